@@ -0,0 +1,47 @@
+/*
+ * BenchmarkRunner.java - This file contains the entry point used to run the benchmarks.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * This class runs the JMH benchmarks with the GC profiler always enabled so that the results include the
+ * allocation rate of each benchmark, which is where most regressions in these helpers show up.  It accepts
+ * the standard JMH command-line options, such as a benchmark name regular expression or -rf json.
+ */
+public final class BenchmarkRunner {
+    private BenchmarkRunner() { /* Hide constructor for utility class */ }
+
+    /**
+     * Run the benchmarks.
+     *
+     * @param args the JMH command-line options
+     * @throws Exception if the options are invalid or running the benchmarks failed
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * CreateReleaseMojoBenchmark.java - This file contains the benchmarks for the CreateReleaseMojo helpers.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the CreateReleaseMojo helpers that run for every asset or that read whole files: the MIME
+ * type lookup, reading the release description file, and scanning the asset fileSets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreateReleaseMojoBenchmark {
+    @State(Scope.Benchmark)
+    public static class FileNameState {
+        @Param({ "project-1.0.zip", "project-1.0-linux-x86_64.tar.gz", "project-1.0-sources.jar" })
+        public String fileName;
+    }
+
+    @State(Scope.Benchmark)
+    public static class DescriptionFileState {
+        @Param({ "64", "4096", "65536" })
+        public int sizeInKilobytes;
+
+        File file;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = Files.createTempFile("description", ".md").toFile();
+            String line = "1. `Enhancement` - This is an enhancement with a line long enough to be typical.\n";
+            long size = sizeInKilobytes * 1024L;
+            try (BufferedWriter writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+                for (long written = 0; written < size; written += line.length()) {
+                    writer.write(line);
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AssetDirectoryState {
+        @Param({ "10", "1000" })
+        public int fileCount;
+
+        Path directory;
+        List<AssetFileSet> fileSets;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("assets");
+            for (int i = 0; i < fileCount; i++) {
+                // Only half of the files match the includes, like a build directory full of other output
+                Files.createFile(directory.resolve("project-" + i + (i % 2 == 0 ? ".zip" : ".class")));
+            }
+            AssetFileSet fileSet = new AssetFileSet();
+            fileSet.setDirectory(directory.toString());
+            fileSet.setIncludes(Arrays.asList("*.zip", "*.tar.gz"));
+            fileSet.setExcludes(Collections.singletonList("*-tests.zip"));
+            fileSets = Collections.singletonList(fileSet);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(directory.toFile());
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String getMimeTypeFromFileExtension(FileNameState state) throws MojoExecutionException {
+        return CreateReleaseMojo.getMimeTypeFromFileExtension(state.fileName,
+                CreateReleaseMojo.DEFAULT_MIME_TYPE_MAPPINGS);
+    }
+
+    @Benchmark
+    public String getFileContents(DescriptionFileState state) throws MojoExecutionException {
+        return CreateReleaseMojo.getFileContents(state.file);
+    }
+
+    @Benchmark
+    public void scanAssetFiles(AssetDirectoryState state, Blackhole blackhole) throws MojoExecutionException {
+        CreateReleaseMojo.scanAssetFiles(state.fileSets, (file, priority) -> blackhole.consume(file));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * MavenUtilsBenchmark.java - This file contains the benchmarks for the MavenUtils class.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the string parsing helpers in MavenUtils, which run once per execution of the goal and once
+ * per project in a multi-module build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MavenUtilsBenchmark {
+    @State(Scope.Benchmark)
+    public static class ScmConnectionState {
+        @Param({
+            "scm:git:git@github.com:rpatrick00/github-maven-plugin.git",
+            "scm:git:https://github.com/rpatrick00/github-maven-plugin.git",
+            "rpatrick00/github-maven-plugin"
+        })
+        public String scmConnection;
+    }
+
+    @State(Scope.Benchmark)
+    public static class VersionState {
+        @Param({ "1.0.0", "1.0.0-SNAPSHOT", "2.3.1-beta-4" })
+        public String version;
+    }
+
+    @Benchmark
+    public String getRepositoryIdFromScmConnection(ScmConnectionState state) throws MojoExecutionException {
+        return MavenUtils.getRepositoryIdFromScmConnection(state.scmConnection);
+    }
+
+    @Benchmark
+    public boolean isPreReleaseVersion(VersionState state) {
+        return MavenUtils.isPreReleaseVersion(state.version);
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * ReleaseScenarioBenchmark.java - This file contains the end-to-end benchmarks of the create-release goal.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.rhpatrick.mojo.github.AssetPipeline.SchedulingPolicy;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.codehaus.plexus.util.FileUtils;
+
+/**
+ * This class runs the create-release goal end to end against the stub GitHub server for a set of scenarios
+ * and reports the wall time, the number of API requests, and the bytes uploaded for each of them.  Unlike
+ * the JMH benchmarks, each scenario is a single run since it is dominated by the injected latency and
+ * bandwidth rather than by the JVM, and the request count is deterministic.  A change in the request count
+ * of a scenario is an API call regression even if the wall time does not change.
+ */
+public final class ReleaseScenarioBenchmark {
+    private static final long KB = 1024;
+    private static final long MB = 1024 * KB;
+    private static final String TAG = "1.0.0";
+
+    private ReleaseScenarioBenchmark() { /* Hide constructor for utility class */ }
+
+    /**
+     * Run the scenarios.
+     *
+     * @param args text contained in the names of the scenarios to run, or none to run all of them
+     * @throws Exception if a scenario failed
+     */
+    public static void main(String[] args) throws Exception {
+        List<Scenario> scenarios = new ArrayList<>();
+        scenarios.add(new Scenario("24 x 256 KB, 1 upload thread", 24, 256 * KB).withUploadThreads(1));
+        scenarios.add(new Scenario("24 x 256 KB, 4 upload threads", 24, 256 * KB).withUploadThreads(4));
+        // A long tail when the large asset is scanned last, which largest-first scheduling avoids
+        scenarios.add(new Scenario("6 x 1 MB + 8 MB, scan order", 6, MB).withLastAsset(8 * MB)
+                .withUploadThreads(2).withUploadOrder(SchedulingPolicy.SCAN_ORDER));
+        scenarios.add(new Scenario("6 x 1 MB + 8 MB, largest first", 6, MB).withLastAsset(8 * MB)
+                .withUploadThreads(2).withUploadOrder(SchedulingPolicy.LARGEST_FIRST));
+        scenarios.add(new Scenario("24 x 256 KB, 20% upload failures", 24, 256 * KB).withUploadThreads(4)
+                .withUploadFailureRate(0.2));
+        // 6 MB at 2 MB/s should take about 3 seconds no matter how many threads upload
+        scenarios.add(new Scenario("24 x 256 KB, 4 threads, 2 MB/s limit", 24, 256 * KB).withUploadThreads(4)
+                .withMaxUploadRate(2 * MB));
+        // Every asset of the first run is deleted and uploaded again
+        scenarios.add(new Scenario("120 x 16 KB, overwrite re-run, 1 thread", 120, 16 * KB).withUploadThreads(1)
+                .withRerun());
+        scenarios.add(new Scenario("120 x 16 KB, overwrite re-run, 4 threads", 120, 16 * KB).withUploadThreads(4)
+                .withRerun());
+        // Two renames more per asset, in exchange for the asset never going missing during its upload
+        scenarios.add(new Scenario("120 x 16 KB, swap re-run, 4 threads", 120, 16 * KB).withUploadThreads(4)
+                .withSwapExistingAssets().withRerun());
+        scenarios.add(new Scenario("24 x 256 KB, unchanged re-run", 24, 256 * KB).withUploadThreads(4)
+                .withSkipUnchangedAssets().withRerun());
+        scenarios.add(new Scenario("24 x 256 KB, re-run with state file", 24, 256 * KB).withUploadThreads(4)
+                .withStateFile().withRerun());
+        // A nightly re-release in which 4 of the assets changed
+        scenarios.add(new Scenario("120 x 16 KB, 4 changed, delete release", 120, 16 * KB).withUploadThreads(4)
+                .withDeleteExistingRelease().withChangedAssets(4).withRerun());
+        scenarios.add(new Scenario("120 x 16 KB, 4 changed, update release", 120, 16 * KB).withUploadThreads(4)
+                .withUpdateExistingRelease().withChangedAssets(4).withRerun());
+
+        // The goal reads the token from this system property rather than from settings.xml
+        System.setProperty("github.auth.token", StubGitHubServer.AUTH_TOKEN);
+        System.out.printf("%-40s %10s %10s %10s %12s%n", "Scenario", "Wall (ms)", "Requests", "Uploads",
+                "Sent (KB)");
+        for (Scenario scenario : scenarios) {
+            if (scenario.matches(args)) {
+                scenario.run();
+            }
+        }
+    }
+
+    private static final class Scenario {
+        private final String name;
+        private final int assetCount;
+        private final long assetSize;
+        private long lastAssetSize;
+        private int uploadThreads = 1;
+        private SchedulingPolicy uploadOrder = SchedulingPolicy.LARGEST_FIRST;
+        private double uploadFailureRate;
+        private long maxUploadRate;
+        private boolean skipUnchangedAssets;
+        private boolean useStateFile;
+        private boolean swapExistingAssets;
+        private boolean deleteExistingRelease;
+        private boolean updateExistingRelease;
+        private int changedAssetCount;
+        private boolean rerun;
+
+        private Scenario(String name, int assetCount, long assetSize) {
+            this.name = name;
+            this.assetCount = assetCount;
+            this.assetSize = assetSize;
+        }
+
+        private Scenario withLastAsset(long size) {
+            this.lastAssetSize = size;
+            return this;
+        }
+
+        private Scenario withUploadThreads(int threads) {
+            this.uploadThreads = threads;
+            return this;
+        }
+
+        private Scenario withUploadOrder(SchedulingPolicy order) {
+            this.uploadOrder = order;
+            return this;
+        }
+
+        private Scenario withUploadFailureRate(double failureRate) {
+            this.uploadFailureRate = failureRate;
+            return this;
+        }
+
+        private Scenario withMaxUploadRate(long bytesPerSecond) {
+            this.maxUploadRate = bytesPerSecond;
+            return this;
+        }
+
+        private Scenario withSkipUnchangedAssets() {
+            this.skipUnchangedAssets = true;
+            return this;
+        }
+
+        private Scenario withStateFile() {
+            this.useStateFile = true;
+            return this;
+        }
+
+        private Scenario withSwapExistingAssets() {
+            this.swapExistingAssets = true;
+            return this;
+        }
+
+        private Scenario withDeleteExistingRelease() {
+            this.deleteExistingRelease = true;
+            return this;
+        }
+
+        private Scenario withUpdateExistingRelease() {
+            this.updateExistingRelease = true;
+            return this;
+        }
+
+        private Scenario withChangedAssets(int count) {
+            this.changedAssetCount = count;
+            return this;
+        }
+
+        private Scenario withRerun() {
+            this.rerun = true;
+            return this;
+        }
+
+        private boolean matches(String[] filters) {
+            if (filters.length == 0) {
+                return true;
+            }
+            for (String filter : filters) {
+                if (name.contains(filter)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void run() throws Exception {
+            Path directory = Files.createTempDirectory("release-scenario");
+            try (StubGitHubServer server = new StubGitHubServer()) {
+                // A typical round trip to GitHub and the upload bandwidth of a CI runner
+                server.setLatency(20);
+                server.setUploadBandwidth(4 * MB);
+                createAssets(directory);
+                if (rerun) {
+                    createMojo(server, directory).execute();
+                    server.resetStatistics();
+                    for (int i = 0; i < changedAssetCount; i++) {
+                        createFile(directory.resolve("assets").resolve("asset-" + i + ".zip").toFile(),
+                                assetSize + 1);
+                    }
+                }
+                server.setUploadFailureRate(uploadFailureRate);
+
+                CreateReleaseMojo mojo = createMojo(server, directory);
+                long start = System.nanoTime();
+                mojo.execute();
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                System.out.printf("%-40s %10d %10d %10d %12d%n", name, elapsed, server.getRequestCount(),
+                        server.getRequestCount("POST asset"), server.getUploadedBytes() / KB);
+            } finally {
+                FileUtils.deleteDirectory(directory.toFile());
+            }
+        }
+
+        private void createAssets(Path directory) throws IOException {
+            Path assets = Files.createDirectories(directory.resolve("assets"));
+            for (int i = 0; i < assetCount; i++) {
+                createFile(assets.resolve("asset-" + i + ".zip").toFile(), assetSize);
+            }
+            if (lastAssetSize > 0) {
+                // In a fileSet of its own so that it is scanned last
+                createFile(directory.resolve("last.zip").toFile(), lastAssetSize);
+            }
+        }
+
+        private CreateReleaseMojo createMojo(StubGitHubServer server, Path directory) throws Exception {
+            List<AssetFileSet> fileSets = new ArrayList<>();
+            AssetFileSet fileSet = new AssetFileSet();
+            fileSet.setDirectory(directory.resolve("assets").toString());
+            fileSet.addInclude("*.zip");
+            fileSets.add(fileSet);
+            if (lastAssetSize > 0) {
+                AssetFileSet lastFileSet = new AssetFileSet();
+                lastFileSet.setDirectory(directory.toString());
+                lastFileSet.addInclude("last.zip");
+                fileSets.add(lastFileSet);
+            }
+
+            CreateReleaseMojo mojo = server.createReleaseMojo(TAG);
+            mojo.setLog(new QuietLog());
+            StubGitHubServer.setParameter(mojo, "assets", fileSets);
+            StubGitHubServer.setParameter(mojo, "uploadThreads", uploadThreads);
+            StubGitHubServer.setParameter(mojo, "uploadOrder", uploadOrder);
+            StubGitHubServer.setParameter(mojo, "uploadRetryDelay", 10L);
+            StubGitHubServer.setParameter(mojo, "skipUnchangedAssets", skipUnchangedAssets);
+            StubGitHubServer.setParameter(mojo, "overwriteExistingAssets", true);
+            StubGitHubServer.setParameter(mojo, "maxUploadRate", maxUploadRate / KB);
+            StubGitHubServer.setParameter(mojo, "swapExistingAssets", swapExistingAssets);
+            StubGitHubServer.setParameter(mojo, "maxConcurrentSwaps", 2);
+            StubGitHubServer.setParameter(mojo, "deleteExistingRelease", deleteExistingRelease);
+            StubGitHubServer.setParameter(mojo, "updateExistingRelease", updateExistingRelease);
+            if (useStateFile) {
+                StubGitHubServer.setParameter(mojo, "stateFile", directory.resolve("release.state").toFile());
+            }
+            return mojo;
+        }
+
+        private static void createFile(File file, long size) throws IOException {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                randomAccessFile.setLength(size);
+            }
+        }
+    }
+
+    // Only warnings and errors so that the results table stays readable
+    private static final class QuietLog extends SystemStreamLog {
+        @Override
+        public boolean isInfoEnabled() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * ApiRequestLog.java - This file contains the log of the GitHub API requests made during a build.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+/**
+ * This class records the endpoint, status, and duration of every GitHub API request made through a tracked
+ * connector or by the release asset client, along with the number of bytes that asset transfers sent.  Like
+ * the rate limit scheduler, it is shared by all executions using the same GitHub client, so each execution
+ * takes a mark when it starts and reports the requests made since then.  In a parallel build, the requests of
+ * executions running at the same time are included in each other's reports.
+ */
+public final class ApiRequestLog {
+    private static final Pattern REPOSITORY = Pattern.compile("^/repos/[^/]+/[^/]+");
+    private static final Pattern TAG = Pattern.compile("/tags/[^/]+$");
+    private static final Pattern ID = Pattern.compile("/\\d+(?=/|$)");
+
+    private final List<ApiRequest> requests = new ArrayList<>();
+
+    /**
+     * Wrap the connector so that every request sent through it is recorded in this log.
+     *
+     * @param connector the connector to wrap
+     * @return the wrapped connector
+     */
+    public GitHubConnector track(GitHubConnector connector) {
+        return request -> {
+            long start = System.nanoTime();
+            int status = -1;
+            try {
+                GitHubConnectorResponse response = connector.send(request);
+                status = response.statusCode();
+                return response;
+            } finally {
+                add(new ApiRequest(request.method() + ' ' + getEndpoint(request.url().getPath()), status,
+                        System.nanoTime() - start));
+            }
+        };
+    }
+
+    /**
+     * Get a mark to pass to getRequestsSince() to get the requests made after this point.
+     *
+     * @return the mark
+     */
+    public synchronized int mark() {
+        return requests.size();
+    }
+
+    /**
+     * Get the requests made since the mark was taken.
+     *
+     * @param mark the mark
+     * @return the requests, in the order they completed
+     */
+    public synchronized List<ApiRequest> getRequestsSince(int mark) {
+        return new ArrayList<>(requests.subList(Math.min(mark, requests.size()), requests.size()));
+    }
+
+    /**
+     * Record a request that was not sent through a tracked connector, such as an asset upload.
+     *
+     * @param method        the HTTP method
+     * @param path          the request path
+     * @param status        the HTTP status of the response, or -1 if no response was received
+     * @param durationNanos the time until the response was received, in nanoseconds
+     * @param bytesSent     the number of request body bytes sent
+     */
+    public void recordRequest(String method, String path, int status, long durationNanos, long bytesSent) {
+        add(new ApiRequest(method + ' ' + getEndpoint(path), status, durationNanos, bytesSent));
+    }
+
+    synchronized void add(ApiRequest request) {
+        requests.add(request);
+    }
+
+    /**
+     * Get the endpoint of a request path, with the repository, tag, and IDs replaced by placeholders so that
+     * requests to the same endpoint are grouped together.
+     *
+     * @param path the request path
+     * @return the endpoint
+     */
+    static String getEndpoint(String path) {
+        String result = REPOSITORY.matcher(path).replaceFirst("/repos/{owner}/{repo}");
+        result = TAG.matcher(result).replaceFirst("/tags/{tag}");
+        return ID.matcher(result).replaceAll("/{id}");
+    }
+
+    /**
+     * A single API request.
+     */
+    public static final class ApiRequest {
+        private final String endpoint;
+        private final int status;
+        private final long durationNanos;
+        private final long bytesSent;
+
+        ApiRequest(String endpoint, int status, long durationNanos) {
+            this(endpoint, status, durationNanos, 0);
+        }
+
+        ApiRequest(String endpoint, int status, long durationNanos, long bytesSent) {
+            this.endpoint = endpoint;
+            this.status = status;
+            this.durationNanos = durationNanos;
+            this.bytesSent = bytesSent;
+        }
+
+        /**
+         * Get the HTTP method and endpoint of the request (e.g., GET /repos/{owner}/{repo}/releases/{id}/assets).
+         *
+         * @return the endpoint
+         */
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        /**
+         * Get the HTTP status of the response.
+         *
+         * @return the status, or -1 if no response was received
+         */
+        public int getStatus() {
+            return status;
+        }
+
+        /**
+         * Get the time until the response headers were received.
+         *
+         * @return the duration in nanoseconds
+         */
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * Get the number of request body bytes sent.  Only the bodies sent by the release asset client are
+         * counted; the small bodies of the requests sent through a connector are reported as zero bytes.
+         *
+         * @return the number of bytes sent
+         */
+        public long getBytesSent() {
+            return bytesSent;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * AssetDeleter.java - This file contains the concurrent deletion of the release assets being replaced.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.MojoExecutionException;
+
+import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
+
+/**
+ * This class deletes the existing release assets that are going to be replaced on a pool of worker threads.
+ * The deletion of an asset is submitted as soon as its replacement has been hashed, so the deletions run
+ * concurrently with each other and with the hashing and uploading of the other files rather than one at a time
+ * just before each upload, while a replacement that cannot be read never costs the existing asset.  Before a
+ * replacement is uploaded, its upload thread waits for the deletion of the asset it replaces to complete.
+ */
+public final class AssetDeleter implements AutoCloseable {
+    private static final String NAME = "delete";
+
+    private final ExecutorService executor;
+    private final Map<String, Future<?>> deletions = new ConcurrentHashMap<>();
+
+    /**
+     * Deletes the existing assets with a given name.
+     */
+    @FunctionalInterface
+    public interface Deletion {
+        /**
+         * Delete the assets.
+         *
+         * @throws MojoExecutionException if deleting the assets failed
+         */
+        void run() throws MojoExecutionException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param threads the maximum number of concurrent deletions
+     */
+    public AssetDeleter(int threads) {
+        this.executor = ConcurrencyUtils.newWorkerPool(NAME, threads);
+    }
+
+    /**
+     * Start deleting the existing assets with the name, unless their deletion was already started.
+     *
+     * @param assetName the asset name
+     * @param deletion  the deletion to run
+     */
+    public void submit(String assetName, Deletion deletion) {
+        deletions.computeIfAbsent(assetName, key -> executor.submit(() -> {
+            deletion.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Wait for the deletion of the existing assets with the name to complete.  This returns immediately if no
+     * deletion was submitted for the name.
+     *
+     * @param assetName the asset name
+     * @throws MojoExecutionException if the deletion failed or the calling thread was interrupted
+     */
+    public void await(String assetName) throws MojoExecutionException {
+        Future<?> deletion = deletions.get(assetName);
+        if (deletion == null) {
+            return;
+        }
+        try {
+            deletion.get();
+        } catch (ExecutionException ex) {
+            throw ConcurrencyUtils.toMojoExecutionException(NAME, ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw getMojoExecutionException(ex, "Interrupted while waiting for existing asset {0} to be deleted",
+                    assetName);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
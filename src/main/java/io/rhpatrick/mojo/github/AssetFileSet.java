@@ -0,0 +1,48 @@
+/*
+ * AssetFileSet.java - This file contains the fileSet type used to configure the release assets.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import org.apache.maven.model.FileSet;
+
+/**
+ * This class is a standard Maven fileSet with an optional upload priority.  Assets from fileSets with a higher
+ * priority are uploaded before those from fileSets with a lower priority, regardless of the upload order.
+ */
+public class AssetFileSet extends FileSet {
+    private static final long serialVersionUID = 1L;
+
+    private int priority;
+
+    /**
+     * Get the upload priority of the assets in this fileSet.
+     *
+     * @return the priority, which defaults to zero
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Set the upload priority of the assets in this fileSet.
+     *
+     * @param priority the priority, where higher values are uploaded first
+     */
+    public void setPriority(int priority) {
+        this.priority = priority;
+    }
+}
@@ -0,0 +1,414 @@
+/*
+ * AssetPipeline.java - This file contains the staged pipeline used to process release assets.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
+import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
+
+/**
+ * This class processes release assets in three stages connected by queues: the calling thread scans for the
+ * files, a pool of hash threads computes their digests, and a pool of upload threads uploads them.  The stages
+ * overlap, so the next assets are discovered and hashed while earlier ones are being uploaded.  Backpressure
+ * comes from a limit on the total size of the files that have been hashed but not yet uploaded, which keeps
+ * the hash stage from running far ahead of the network and keeps the files it has read likely to still be in
+ * the page cache when they are uploaded.  Scanning only reads directory metadata, so it quickly runs ahead of
+ * the other stages, and the queue between scanning and hashing is unbounded so that it never holds it back.
+ *
+ * <p>Both queues are ordered by the scheduling policy so that, by default, the largest of the waiting files
+ * is always processed next.  Starting the large uploads first and letting the small ones fill in the gaps
+ * keeps a large file that happens to be scanned last from becoming a long tail that runs after all of the
+ * other uploads have finished.
+ *
+ * <p>Every file that has been scanned is processed to completion even if processing another file fails, and
+ * the results are returned in the order in which the files were scanned.
+ */
+public final class AssetPipeline {
+    private static final String NAME = "asset";
+    // How often the calling thread checks whether a worker thread died while waiting for the uploads
+    private static final long WORKER_CHECK_INTERVAL_MILLIS = 1000;
+
+    /**
+     * The order in which waiting files are processed.  Files with a higher priority are always processed
+     * before files with a lower priority.
+     */
+    public enum SchedulingPolicy {
+        /**
+         * Process the largest files first, which minimizes the time to upload all of the files.
+         */
+        LARGEST_FIRST,
+        /**
+         * Process the files in the order in which they were scanned.
+         */
+        SCAN_ORDER
+    }
+
+    private final int hashThreads;
+    private final int uploadThreads;
+    private final long maxInFlightBytes;
+    private final SchedulingPolicy schedulingPolicy;
+    private final Log logger;
+
+    private final Object inFlightLock = new Object();
+    private long inFlightBytes;
+    private boolean oversizedInFlight;
+
+    /**
+     * Produces the files to process.
+     */
+    @FunctionalInterface
+    public interface Scanner {
+        /**
+         * Scan for the files, passing each one to the sink as soon as it is found.
+         *
+         * @param sink the sink that accepts the files
+         * @throws MojoExecutionException if scanning failed
+         */
+        void scan(Sink sink) throws MojoExecutionException;
+    }
+
+    /**
+     * Accepts the scanned files.
+     */
+    @FunctionalInterface
+    public interface Sink {
+        /**
+         * Add a file to the pipeline.
+         *
+         * @param file     the file
+         * @param priority the priority of the file, where files with higher values are processed first
+         * @throws MojoExecutionException if the file could not be added
+         */
+        void accept(File file, int priority) throws MojoExecutionException;
+    }
+
+    /**
+     * Computes the digests of a file.
+     *
+     * @param <D> the digests type
+     */
+    @FunctionalInterface
+    public interface Hasher<D> {
+        /**
+         * Compute the digests of the file.
+         *
+         * @param file the file
+         * @return the digests, which may be null
+         * @throws MojoExecutionException if computing the digests failed
+         */
+        D hash(File file) throws MojoExecutionException;
+    }
+
+    /**
+     * Uploads a file.
+     *
+     * @param <D> the digests type
+     * @param <R> the result type
+     */
+    @FunctionalInterface
+    public interface Uploader<D, R> {
+        /**
+         * Upload the file.
+         *
+         * @param file    the file
+         * @param digests the digests computed by the hash stage
+         * @return the result, which may be null
+         * @throws MojoExecutionException if the upload failed
+         */
+        R upload(File file, D digests) throws MojoExecutionException;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param hashThreads      the number of threads computing digests
+     * @param uploadThreads    the number of threads uploading files
+     * @param maxInFlightBytes the maximum total size of the files that have been hashed but not yet uploaded,
+     *                         or zero for no limit.  A file larger than the limit is processed outside of it,
+     *                         one such file at a time, while the smaller files keep using the limit.
+     * @param schedulingPolicy the order in which waiting files are processed
+     * @param logger           the Maven logger to use
+     */
+    public AssetPipeline(int hashThreads, int uploadThreads, long maxInFlightBytes,
+                         SchedulingPolicy schedulingPolicy, Log logger) {
+        this.hashThreads = Math.max(1, hashThreads);
+        this.uploadThreads = Math.max(1, uploadThreads);
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.schedulingPolicy = schedulingPolicy;
+        this.logger = logger;
+    }
+
+    /**
+     * Run the pipeline until all of the scanned files have been uploaded.
+     *
+     * @param scanner  the scanner that finds the files
+     * @param hasher   the hasher that computes the digests of each file
+     * @param uploader the uploader that uploads each file
+     * @param <D>      the digests type
+     * @param <R>      the result type
+     * @return the list of upload results, in scan order (including any null results)
+     * @throws MojoExecutionException if scanning or processing any of the files failed or the calling thread
+     *                                was interrupted
+     */
+    public <D, R> List<R> run(Scanner scanner, Hasher<D> hasher, Uploader<D, R> uploader)
+            throws MojoExecutionException {
+        // The hash queue is deliberately unbounded so that the scheduling policy can choose among every file
+        // scanned so far.  This costs no memory that the pipeline does not already spend: every scanned item is
+        // kept in the items list until the run completes, and the scanner has already listed the files.  The
+        // backpressure that matters, on the files being read, comes from the in-flight limit, which the hash
+        // threads take before reading a file.  The upload queue only holds files that count against the
+        // in-flight limit, which bounds its size.
+        Comparator<Item<D, R>> order = getOrder();
+        BlockingQueue<Item<D, R>> hashQueue = new PriorityBlockingQueue<>(16, order);
+        BlockingQueue<Item<D, R>> uploadQueue = new PriorityBlockingQueue<>(16, order);
+        AtomicInteger activeHashThreads = new AtomicInteger(hashThreads);
+        AtomicReference<Throwable> workerFailure = new AtomicReference<>();
+        List<Item<D, R>> items = new ArrayList<>();
+
+        ExecutorService hashPool = ConcurrencyUtils.newWorkerPool("hash", hashThreads);
+        ExecutorService uploadPool = ConcurrencyUtils.newWorkerPool("upload", uploadThreads);
+        MojoExecutionException scanFailure = null;
+        try {
+            for (int i = 0; i < hashThreads; i++) {
+                hashPool.execute(guard(() -> hash(hasher, hashQueue, uploadQueue, activeHashThreads), workerFailure));
+            }
+            for (int i = 0; i < uploadThreads; i++) {
+                uploadPool.execute(guard(() -> upload(uploader, uploadQueue), workerFailure));
+            }
+
+            try {
+                scanner.scan((file, priority) -> {
+                    Item<D, R> item = new Item<>(file, items.size(), priority);
+                    items.add(item);
+                    put(hashQueue, item);
+                });
+            } catch (MojoExecutionException ex) {
+                // Let the files that were already scanned finish
+                scanFailure = ex;
+            }
+            for (int i = 0; i < hashThreads; i++) {
+                put(hashQueue, Item.end());
+            }
+
+            hashPool.shutdown();
+            uploadPool.shutdown();
+            // A worker that died would leave the others waiting for files forever, so stop waiting if one does
+            while (!uploadPool.awaitTermination(WORKER_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (workerFailure.get() != null) {
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw getMojoExecutionException(ex, "Interrupted while waiting for {0} uploads to complete", NAME);
+        } finally {
+            hashPool.shutdownNow();
+            uploadPool.shutdownNow();
+        }
+
+        Throwable failure = workerFailure.get();
+        if (failure != null) {
+            throw new MojoExecutionException("An " + NAME + " pipeline thread failed unexpectedly: " + failure,
+                    failure);
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        List<MojoExecutionException> failures = new ArrayList<>();
+        for (Item<D, R> item : items) {
+            results.add(item.result);
+            if (item.failure != null) {
+                failures.add(item.failure);
+            }
+        }
+        if (scanFailure != null) {
+            failures.add(scanFailure);
+        }
+        logDebug(logger, "Asset pipeline processed {0} files using {1} hash threads and {2} upload threads",
+                items.size(), hashThreads, uploadThreads);
+
+        if (!failures.isEmpty()) {
+            int total = items.size() + (scanFailure != null ? 1 : 0);
+            throw ConcurrencyUtils.aggregateFailures(NAME, failures, total, logger);
+        }
+        return results;
+    }
+
+    private <D, R> Comparator<Item<D, R>> getOrder() {
+        // The end markers are only queued after every file, so they must also be taken after every file
+        Comparator<Item<D, R>> order = Comparator.comparing(Item::isEnd);
+        order = order.thenComparing(Comparator.comparingInt((Item<D, R> item) -> item.priority).reversed());
+        if (schedulingPolicy == SchedulingPolicy.LARGEST_FIRST) {
+            order = order.thenComparing(Comparator.comparingLong((Item<D, R> item) -> item.size).reversed());
+        }
+        return order.thenComparingInt(item -> item.index);
+    }
+
+    private <D, R> void hash(Hasher<D> hasher, BlockingQueue<Item<D, R>> hashQueue,
+                             BlockingQueue<Item<D, R>> uploadQueue, AtomicInteger activeHashThreads) {
+        try {
+            while (true) {
+                Item<D, R> item = hashQueue.take();
+                if (item.isEnd()) {
+                    break;
+                }
+                acquireInFlightBytes(item.size);
+                try {
+                    item.digests = hasher.hash(item.file);
+                } catch (Throwable ex) {
+                    // Errors, such as failing to map a large file, fail the file rather than kill the thread
+                    item.failure = ConcurrencyUtils.toMojoExecutionException(NAME, ex);
+                }
+                uploadQueue.put(item);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // The last hash thread to finish, however it finishes, tells the upload threads that no more files
+            // are coming.  The upload queue is unbounded, so offering the end markers never blocks.
+            if (activeHashThreads.decrementAndGet() == 0) {
+                for (int i = 0; i < uploadThreads; i++) {
+                    uploadQueue.offer(Item.end());
+                }
+            }
+        }
+    }
+
+    private <D, R> void upload(Uploader<D, R> uploader, BlockingQueue<Item<D, R>> uploadQueue) {
+        try {
+            while (true) {
+                Item<D, R> item = uploadQueue.take();
+                if (item.isEnd()) {
+                    break;
+                }
+                try {
+                    if (item.failure == null) {
+                        item.result = uploader.upload(item.file, item.digests);
+                    }
+                } catch (Throwable ex) {
+                    item.failure = ConcurrencyUtils.toMojoExecutionException(NAME, ex);
+                } finally {
+                    releaseInFlightBytes(item.size);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Runnable guard(Runnable worker, AtomicReference<Throwable> workerFailure) {
+        return () -> {
+            try {
+                worker.run();
+            } catch (Throwable ex) {
+                workerFailure.compareAndSet(null, ex);
+            }
+        };
+    }
+
+    // A file larger than the whole limit could only ever run alone if it counted against the limit, which would
+    // keep the smaller files from filling the other upload threads while it uploads.  Instead, it bypasses the
+    // limit, and only one such file is in flight at a time.
+    private void acquireInFlightBytes(long bytes) throws InterruptedException {
+        synchronized (inFlightLock) {
+            if (isOversized(bytes)) {
+                while (oversizedInFlight) {
+                    inFlightLock.wait();
+                }
+                oversizedInFlight = true;
+                return;
+            }
+            while (maxInFlightBytes > 0 && inFlightBytes + bytes > maxInFlightBytes) {
+                inFlightLock.wait();
+            }
+            inFlightBytes += bytes;
+        }
+    }
+
+    private void releaseInFlightBytes(long bytes) {
+        synchronized (inFlightLock) {
+            if (isOversized(bytes)) {
+                oversizedInFlight = false;
+            } else {
+                inFlightBytes -= bytes;
+            }
+            inFlightLock.notifyAll();
+        }
+    }
+
+    private boolean isOversized(long bytes) {
+        return maxInFlightBytes > 0 && bytes > maxInFlightBytes;
+    }
+
+    // The bytes counted against the limit, which excludes a file larger than the limit
+    long getInFlightBytes() {
+        synchronized (inFlightLock) {
+            return inFlightBytes;
+        }
+    }
+
+    private static <T> void put(BlockingQueue<T> queue, T item) throws MojoExecutionException {
+        try {
+            queue.put(item);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw getMojoExecutionException(ex, "Interrupted while adding files to the {0} pipeline", NAME);
+        }
+    }
+
+    // Fields written by one stage are read by the next after passing through a queue, which publishes them
+    private static final class Item<D, R> {
+        private static final Item<?, ?> END = new Item<>(null, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        private final File file;
+        private final int index;
+        private final int priority;
+        private final long size;
+        private D digests;
+        private R result;
+        private MojoExecutionException failure;
+
+        Item(File file, int index, int priority) {
+            this.file = file;
+            this.index = index;
+            this.priority = priority;
+            this.size = file != null ? file.length() : 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <D, R> Item<D, R> end() {
+            return (Item<D, R>) END;
+        }
+
+        boolean isEnd() {
+            return this == END;
+        }
+    }
+}
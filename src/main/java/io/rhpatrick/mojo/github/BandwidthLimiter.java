@@ -0,0 +1,102 @@
+/*
+ * BandwidthLimiter.java - This file contains the token bucket used to limit the upload bandwidth.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class limits the rate at which bytes are sent using a token bucket.  The bucket fills at the
+ * configured rate up to a burst of a tenth of a second's worth of bytes, or one upload buffer if that is
+ * larger.  A thread that sends more bytes than the bucket holds takes the bucket into debt and parks until
+ * the debt is repaid, so threads sharing a limiter are throttled in the order they sent their bytes and the
+ * long-term rate matches the configured rate.  Waiting threads are parked rather than spinning.
+ */
+public final class BandwidthLimiter {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long bytesPerSecond;
+    private final long burstBytes;
+
+    private double availableBytes;
+    private long lastRefillNanos;
+
+    /**
+     * Constructor.  The bucket starts full.
+     *
+     * @param bytesPerSecond the maximum rate, in bytes per second, which must be greater than zero
+     */
+    public BandwidthLimiter(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("bytesPerSecond must be greater than zero: " + bytesPerSecond);
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstBytes = Math.max(bytesPerSecond / 10, ReleaseAssetClient.BUFFER_SIZE);
+        this.availableBytes = burstBytes;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Get the maximum rate.
+     *
+     * @return the maximum rate, in bytes per second
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Take the bytes that were sent from the bucket, waiting until the rate allows them if needed.
+     *
+     * @param bytes the number of bytes sent
+     * @throws InterruptedIOException if the thread was interrupted while waiting
+     */
+    public void acquire(int bytes) throws InterruptedIOException {
+        long waitNanos = reserve(bytes, System.nanoTime());
+        if (waitNanos <= 0) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining = waitNanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for upload bandwidth");
+            }
+            remaining = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Take the bytes from the bucket.
+     *
+     * @param bytes the number of bytes
+     * @param now   the current time, in nanoseconds
+     * @return the number of nanoseconds to wait until the bucket is no longer in debt, or zero
+     */
+    synchronized long reserve(int bytes, long now) {
+        availableBytes = Math.min(burstBytes,
+                availableBytes + (now - lastRefillNanos) * (double) bytesPerSecond / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+        availableBytes -= bytes;
+        return availableBytes >= 0 ? 0 : (long) Math.ceil(-availableBytes * NANOS_PER_SECOND / bytesPerSecond);
+    }
+}
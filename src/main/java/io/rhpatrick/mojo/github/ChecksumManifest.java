@@ -0,0 +1,156 @@
+/*
+ * ChecksumManifest.java - This file contains the checksum manifest stored alongside a release's assets.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * This class holds the digests of a release's assets in the format used by the GNU coreutils sha256sum
+ * family of commands (i.e., one "&lt;hex digest&gt;  &lt;file name&gt;" line per asset), so the manifest
+ * published with the release can be verified with {@code sha256sum -c} or its equivalent for the algorithm.
+ * All methods are safe to call from concurrent upload threads.
+ */
+public final class ChecksumManifest {
+    private final Map<String, String> digests = new TreeMap<>();
+    private boolean modified;
+
+    /**
+     * Create an empty manifest.
+     */
+    public ChecksumManifest() {
+        // nothing to do
+    }
+
+    /**
+     * Get the conventional name of the manifest for a digest algorithm (e.g., SHA512SUMS for SHA-512).
+     *
+     * @param algorithm the digest algorithm
+     * @return the manifest name
+     */
+    public static String getDefaultName(String algorithm) {
+        return algorithm.replace("-", "").toUpperCase() + "SUMS";
+    }
+
+    /**
+     * Parse a manifest.  Lines that are not in the expected format are ignored.
+     *
+     * @param content the manifest content
+     * @return the parsed manifest
+     */
+    public static ChecksumManifest parse(byte[] content) {
+        ChecksumManifest manifest = new ChecksumManifest();
+        String text = new String(content, StandardCharsets.UTF_8);
+        for (String line : text.split("\r?\n")) {
+            int separator = line.indexOf(' ');
+            if (separator <= 0 || line.length() < separator + 2) {
+                continue;
+            }
+            String digest = line.substring(0, separator);
+            // The second separator character is '*' for files digested in binary mode
+            String assetName = line.substring(separator + 2);
+            if (!assetName.isEmpty() && isHex(digest)) {
+                manifest.digests.put(assetName, digest.toLowerCase());
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Get the digest of the asset.
+     *
+     * @param assetName the asset name
+     * @return the lowercase hex-encoded digest, or null if the manifest does not contain the asset
+     */
+    public synchronized String get(String assetName) {
+        return digests.get(assetName);
+    }
+
+    /**
+     * Set the digest of the asset.
+     *
+     * @param assetName the asset name
+     * @param digest    the lowercase hex-encoded digest
+     */
+    public synchronized void put(String assetName, String digest) {
+        if (!digest.equals(digests.put(assetName, digest))) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Remove the entries for the assets that do not match the predicate, usually because the assets are
+     * no longer attached to the release.
+     *
+     * @param filter the predicate that returns true for the asset names to keep
+     */
+    public synchronized void retainAll(Predicate<String> filter) {
+        if (digests.keySet().removeIf(filter.negate())) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Get the number of entries in the manifest.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return digests.size();
+    }
+
+    /**
+     * Whether the manifest has changed since it was loaded or last published.
+     *
+     * @return true if the manifest has changed, false otherwise
+     */
+    public synchronized boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Record that the manifest's current content has been published.
+     */
+    public synchronized void markPublished() {
+        modified = false;
+    }
+
+    /**
+     * Format the manifest, sorted by asset name.
+     *
+     * @return the manifest content
+     */
+    public synchronized byte[] toBytes() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            text.append(entry.getValue()).append("  ").append(entry.getKey()).append('\n');
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) == -1) {
+                return false;
+            }
+        }
+        return !value.isEmpty();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * ConcurrencyUtils.java - This file contains the helpers shared by the classes that run work on worker threads.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
+import static io.rhpatrick.mojo.github.MavenUtils.logError;
+
+/**
+ * This class holds the helpers shared by the classes that run work on pools of worker threads, such as the
+ * asset pipeline and the asset deleter: naming the worker threads and turning the failures of the work into
+ * a single MojoExecutionException.
+ */
+public final class ConcurrencyUtils {
+    private ConcurrencyUtils() {
+        /* Hide constructor for utility class */
+    }
+
+    /**
+     * Create a fixed-size pool of named daemon worker threads.
+     *
+     * @param name    the name of the work, used to name the threads
+     * @param threads the number of threads, at least one thread is always created
+     * @return the pool
+     */
+    static ExecutorService newWorkerPool(String name, int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), new WorkerThreadFactory(name));
+    }
+
+    /**
+     * Combine the failures of a batch of tasks into one exception.  A single failure is returned as is;
+     * otherwise, each failure is logged and the first one is returned with the others suppressed.
+     *
+     * @param name     the name of the batch, used in error messages
+     * @param failures the failures, in input order
+     * @param total    the total number of tasks in the batch
+     * @param logger   the Maven logger to use
+     * @return the exception to throw
+     */
+    static MojoExecutionException aggregateFailures(String name, List<MojoExecutionException> failures, int total,
+                                                    Log logger) {
+        if (failures.size() == 1) {
+            return failures.get(0);
+        }
+
+        for (MojoExecutionException failure : failures) {
+            logError(logger, "{0} task failed: {1}", name, failure.getMessage());
+        }
+        MojoExecutionException first = failures.get(0);
+        MojoExecutionException result = getMojoExecutionException(first,
+                "{0} of {1} {2} tasks failed, first error: {3}", failures.size(), total, name, first.getMessage());
+        for (int i = 1; i < failures.size(); i++) {
+            result.addSuppressed(failures.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Convert the failure of a task to a MojoExecutionException.
+     *
+     * @param name  the name of the batch, used in the error message
+     * @param cause the failure
+     * @return the failure, if it is a MojoExecutionException, or a MojoExecutionException wrapping it
+     */
+    static MojoExecutionException toMojoExecutionException(String name, Throwable cause) {
+        if (cause instanceof MojoExecutionException) {
+            return (MojoExecutionException) cause;
+        }
+        return new MojoExecutionException(name + " task failed unexpectedly: " + cause, cause);
+    }
+
+    /**
+     * Creates named daemon worker threads, so they never keep Maven from exiting.
+     */
+    static final class WorkerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger(1);
+
+        WorkerThreadFactory(String name) {
+            this.prefix = "github-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -18,27 +18,53 @@
 package io.rhpatrick.mojo.github;
 
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
+import io.rhpatrick.mojo.github.GitHubSessionContext.ReleaseHandle;
+import io.rhpatrick.mojo.github.ReleaseAssetClient.TransferListener;
+import io.rhpatrick.mojo.github.ReleaseAssetRegistry.RegisteredAsset;
+import io.rhpatrick.mojo.github.ReleaseState.AssetState;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.maven.model.FileSet;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.DefaultLifecycles;
+import org.apache.maven.lifecycle.Lifecycle;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
 import org.apache.maven.settings.Settings;
 import org.codehaus.plexus.PlexusConstants;
 import org.codehaus.plexus.PlexusContainer;
 import org.codehaus.plexus.component.annotations.Requirement;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
 import org.codehaus.plexus.context.Context;
 import org.codehaus.plexus.context.ContextException;
 import org.codehaus.plexus.personality.plexus.lifecycle.phase.Contextualizable;
@@ -46,6 +72,7 @@ import org.codehaus.plexus.util.FileUtils;
 import org.kohsuke.github.GHAsset;
 import org.kohsuke.github.GHRelease;
 import org.kohsuke.github.GHReleaseBuilder;
+import org.kohsuke.github.GHReleaseUpdater;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 
@@ -59,9 +86,9 @@ import static io.rhpatrick.mojo.github.MavenUtils.logWarn;
  * This class implements the github:create-release goal.  It supports creating a GitHub repository release
  * and uploading artifacts to it.
  */
-@Mojo(name = "create-release", defaultPhase = LifecyclePhase.DEPLOY)
+@Mojo(name = "create-release", defaultPhase = LifecyclePhase.DEPLOY, threadSafe = true)
 public class CreateReleaseMojo extends AbstractMojo implements Contextualizable {
-    private static final Map<String, String> DEFAULT_MIME_TYPE_MAPPINGS = new LinkedHashMap<>();
+    static final Map<String, String> DEFAULT_MIME_TYPE_MAPPINGS = new LinkedHashMap<>();
     static {
         DEFAULT_MIME_TYPE_MAPPINGS.put("zip", "application/zip");
         // Since tar.gz files content type is application/gzip, don't bother looking for the leading tar extension
@@ -69,6 +96,14 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
         DEFAULT_MIME_TYPE_MAPPINGS.put("gz", "application/gzip");
         DEFAULT_MIME_TYPE_MAPPINGS.put("jar", "application/java-archive");
     }
+    // The suffixes of the names under which an asset being swapped and the asset it replaces are kept
+    static final String TEMPORARY_ASSET_SUFFIX = ".uploading";
+    static final String REPLACED_ASSET_SUFFIX = ".replaced";
+    private static final String AGGREGATE_PARAMETER = "aggregate";
+    private static final String AGGREGATE_PROPERTY = "github.release.aggregate";
+    private static final String CLI_EXECUTION_ID = "default-cli";
+    private static final String NONE_PHASE = "none";
+    private static final Pattern PROPERTY_REFERENCE_PATTERN = Pattern.compile("\\$\\{([^}]+)}");
 
     @Requirement
     private PlexusContainer container;
@@ -76,6 +111,15 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
     @Parameter(defaultValue = "${settings}", readonly = true, required = true)
     private Settings settings;
 
+    @Parameter(defaultValue = "${session}", readonly = true, required = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true, required = true)
+    private MojoExecution mojoExecution;
+
     /**
      * The server ID from settings.xml to use to find the GitHub token for authenticating with GitHub.
      * This token must be stored in the server's passphrase element (either in clear text or using standard
@@ -84,6 +128,13 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
     @Parameter(defaultValue = "github", required = true)
     private String serverId;
 
+    /**
+     * The URL of the GitHub REST API.  Change this to use a GitHub Enterprise Server (e.g.,
+     * https://github.mycompany.com/api/v3).
+     */
+    @Parameter(property = "github.apiUrl", defaultValue = GitHubUtils.DEFAULT_API_URL, required = true)
+    private String apiUrl;
+
     /**
      * The repository name of the GitHub repository (e.g., rpatrick00/github-maven-plugin).  By default, the plugin
      * parses the scm section's connection element to extract the repository name.
@@ -137,10 +188,11 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
     private boolean draft;
 
     /**
-     * The optional list of assets to upload to the release.
+     * The optional list of assets to upload to the release.  Each fileSet may specify a priority; assets from
+     * fileSets with a higher priority are uploaded first.
      */
     @Parameter
-    private List<FileSet> assets;
+    private List<AssetFileSet> assets;
 
     /**
      * The MIME type map to use to associate file extensions with their MIME type used for uploading the assets.
@@ -155,6 +207,81 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
     @Parameter(property = "github.release.overwriteAssets", defaultValue = "false")
     private boolean overwriteExistingAssets;
 
+    /**
+     * Whether to replace existing assets without a window in which they cannot be downloaded.  When enabled, the
+     * new content of an asset being overwritten is uploaded under a temporary name, the existing asset is
+     * renamed out of the way, the new asset is renamed into place, and the existing asset is only then deleted,
+     * so the asset is only missing between two renames rather than for the duration of its upload.  A swap costs
+     * two more API calls than a delete and upload.  This only applies to assets being overwritten.
+     */
+    @Parameter(property = "github.release.swapExistingAssets", defaultValue = "false")
+    private boolean swapExistingAssets;
+
+    /**
+     * The maximum number of assets whose renames and deletion, after their upload, run at the same time when
+     * swapExistingAssets is enabled.  This bounds the burst of API calls when many assets finish uploading at once.
+     * The limit is shared by all executions in the build that use the same server ID, API URL and value.
+     */
+    @Parameter(property = "github.release.maxConcurrentSwaps", defaultValue = "2")
+    private int maxConcurrentSwaps;
+
+    /**
+     * Whether to skip uploading assets whose content has not changed.  When enabled, the SHA-256 digest of each
+     * asset is recorded in a checksum manifest asset published with the release, and an existing asset with the
+     * same size and digest as the file is kept rather than deleted and uploaded again.  This makes re-running
+     * the goal after a partial failure much cheaper.  Changed assets are still only replaced if
+     * overwriteExistingAssets is true.
+     */
+    @Parameter(property = "github.release.skipUnchangedAssets", defaultValue = "false")
+    private boolean skipUnchangedAssets;
+
+    /**
+     * The name of the SHA-256 checksum manifest asset, which is used by skipUnchangedAssets and published when
+     * checksumAlgorithms includes SHA-256.  The manifest uses the sha256sum format so consumers of the release
+     * can also use it to verify their downloads.
+     */
+    @Parameter(property = "github.release.digestManifestName", defaultValue = "SHA256SUMS")
+    private String digestManifestName;
+
+    /**
+     * The digest algorithms (e.g., SHA-256 and SHA-512) for which to publish a checksum manifest with the release.
+     * Each manifest is named after its algorithm (e.g., SHA512SUMS), except that the SHA-256 manifest is named
+     * digestManifestName.  All digests of a file are computed in a single pass over the file, and the files are
+     * digested in parallel before any asset is uploaded.
+     */
+    @Parameter(property = "github.release.checksumAlgorithms")
+    private List<String> checksumAlgorithms;
+
+    /**
+     * The file in which to record the assets uploaded to the release so that later runs of the goal, such as
+     * re-runs after a failed build, can skip the assets that have not changed without any GitHub API calls for
+     * them.  An asset is skipped when its file has the same path, size, and modification time as when it was
+     * uploaded, or when it has the same size and SHA-256 digest.  The recorded state only applies to the release
+     * for which it was recorded and assumes that its assets are not modified by anything else, and the file is
+     * only written after all assets were uploaded successfully.  Note that the default clean lifecycle removes
+     * files in the build directory.  By default, no state is recorded.
+     */
+    @Parameter(property = "github.release.stateFile")
+    private File stateFile;
+
+    /**
+     * Whether to only plan the run rather than change anything.  A dry run finds the release, lists its assets,
+     * downloads its checksum manifests, and scans and digests the asset files like a real run, and then logs
+     * what would happen to the release and to each asset, the number of bytes that would be uploaded, and the
+     * estimated number of API calls that would change the release.  No release or asset is created, updated,
+     * or deleted and the state file is not written.  When reportFile is set, the plan is added to the report.
+     */
+    @Parameter(property = "github.release.dryRun", defaultValue = "false")
+    private boolean dryRun;
+
+    /**
+     * The file to which to write a JSON report of the run: the duration of each operation, the latency
+     * percentiles of the GitHub API requests by endpoint, and the size, duration, retries, and throughput of
+     * each asset.  A summary of the report is always logged.  By default, no report file is written.
+     */
+    @Parameter(property = "github.release.reportFile")
+    private File reportFile;
+
     /**
      * Whether or not to skip execution for pre-releases.
      */
@@ -173,6 +300,175 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
     @Parameter(property = "github.release.deleteExistingRelease", defaultValue = "false")
     private boolean deleteExistingRelease;
 
+    /**
+     * Whether or not to update any existing release that is found in place rather than deleting and recreating
+     * it.  The name, description, pre-release, draft, and commitish settings are patched on the existing release
+     * if they differ, and its assets are reconciled by content: this implies skipUnchangedAssets and
+     * overwriteExistingAssets, so only the assets whose content changed are uploaded again.  The assets that are
+     * kept retain their download URLs and download counts.  Existing assets that are not part of the build are
+     * left in place.  This cannot be combined with deleteExistingRelease.
+     */
+    @Parameter(property = "github.release.updateExistingRelease", defaultValue = "false")
+    private boolean updateExistingRelease;
+
+    /**
+     * Whether deleteExistingRelease and updateExistingRelease may delete or update the release for the tag when
+     * its name differs from the configured name.  By default, the goal fails rather than change such a release.
+     */
+    @Parameter(property = "github.release.allowReleaseNameMismatch", defaultValue = "false")
+    private boolean allowReleaseNameMismatch;
+
+    /**
+     * Whether to publish the release once for the whole multi-module build.  When enabled, each project's
+     * execution only registers its assets, and the execution in the last project to run creates or updates
+     * the release and uploads the assets of all of the projects through a single upload pipeline.  The release
+     * settings of that last execution are used.  The projects expected to register are those with an execution
+     * of this goal that is bound to a phase the build runs and that enables aggregate, or every project in the
+     * build when the goal is run from the command line.  If one of them is skipped or fails before registering
+     * its assets, the build fails once no project that could complete the release is left to run.
+     */
+    @Parameter(property = "github.release.aggregate", defaultValue = "false")
+    private boolean aggregate;
+
+    /**
+     * The maximum number of assets to upload concurrently.  Uploading several assets at once usually reduces
+     * the overall upload time when a release has many assets since each upload is bound by request latency.
+     * Executions in the build that use the same server ID and API URL share one rate limit scheduler, which
+     * allows as many concurrent uploads as the largest of their values.
+     */
+    @Parameter(property = "github.release.uploadThreads", defaultValue = "1")
+    private int uploadThreads;
+
+    /**
+     * The maximum total size, in megabytes, of the assets that have been read and hashed but not yet uploaded.
+     * Assets are scanned and hashed while earlier assets are uploading; this limit keeps that work from running
+     * too far ahead of the uploads.  An asset larger than the limit is still uploaded, one at a time, while the
+     * smaller assets keep uploading alongside it.
+     */
+    @Parameter(property = "github.release.maxPendingUploadSize", defaultValue = "1024")
+    private long maxPendingUploadSize;
+
+    /**
+     * The order in which assets with the same priority are uploaded.  LARGEST_FIRST starts the largest assets
+     * first and lets the smaller ones fill in the gaps, which minimizes the overall upload time when uploading
+     * several assets in parallel.  SCAN_ORDER uploads them in the order the fileSets list them.
+     */
+    @Parameter(property = "github.release.uploadOrder", defaultValue = "LARGEST_FIRST")
+    private AssetPipeline.SchedulingPolicy uploadOrder;
+
+    /**
+     * Whether to search the repository's releases by name when no release exists for the tag.  The release is
+     * always looked up by its tag first, which takes a single request.  Searching by name requires paging through
+     * all of the repository's releases so it is only needed if releases may have been created for another tag.
+     * GitHub does not return draft releases from the tag lookup, so the search by name is always used when
+     * draft or updateExistingRelease is true, since the release being re-run or updated may be a draft.
+     */
+    @Parameter(property = "github.release.fallbackToNameSearch", defaultValue = "false")
+    private boolean fallbackToNameSearch;
+
+    /**
+     * The maximum number of times to retry an asset upload or delete that fails with a transient error, such as
+     * a network error or a 5xx response from GitHub.  Before retrying an upload, any incomplete asset left behind
+     * by the failed attempt is deleted.
+     */
+    @Parameter(property = "github.release.uploadRetries", defaultValue = "3")
+    private int uploadRetries;
+
+    /**
+     * The delay, in milliseconds, before the first retry of a failed asset upload.  The delay doubles for every
+     * subsequent retry and is randomized so that concurrent uploads do not all retry at the same time.
+     */
+    @Parameter(property = "github.release.uploadRetryDelay", defaultValue = "1000")
+    private long uploadRetryDelay;
+
+    /**
+     * The number of seconds between the progress reports logged while assets are uploading.  Each report
+     * covers all concurrent uploads and includes the current and average throughput and the estimated time
+     * remaining.  Set to zero to disable the reports.
+     */
+    @Parameter(property = "github.release.progressInterval", defaultValue = "10")
+    private long progressInterval;
+
+    /**
+     * The maximum combined rate, in kilobytes per second, of all concurrent asset uploads.  The limit is shared
+     * by all executions in the build that use the same server ID and API URL, and the first of them to upload
+     * sets it; a later execution that configures another rate logs a warning and uses the shared limit.
+     * By default, the upload bandwidth is not limited.
+     */
+    @Parameter(property = "github.release.maxUploadRate", defaultValue = "0")
+    private long maxUploadRate;
+
+    /**
+     * The maximum rate, in kilobytes per second, of each asset upload.  By default, the upload bandwidth of
+     * each asset is only limited by maxUploadRate.
+     */
+    @Parameter(property = "github.release.maxAssetUploadRate", defaultValue = "0")
+    private long maxAssetUploadRate;
+
+    /**
+     * Whether to keep an on-disk cache of GitHub API responses.  Cached responses are always revalidated with
+     * GitHub using conditional requests, so unchanged data costs a 304 response that does not count against
+     * the GitHub rate limit.  A build that finds the cache directory in use by another build running
+     * concurrently does not cache responses.
+     */
+    @Parameter(property = "github.responseCache", defaultValue = "false")
+    private boolean useResponseCache;
+
+    /**
+     * The directory in which to store the GitHub API response cache when useResponseCache is true.  The default
+     * directory under ~/.m2 survives clean builds and is shared by all of the user's builds, which use it one
+     * build at a time.
+     */
+    @Parameter(property = "github.responseCache.directory",
+               defaultValue = "${user.home}/.m2/github-maven-plugin/response-cache")
+    private File responseCacheDirectory;
+
+    /**
+     * The maximum size, in megabytes, of the GitHub API response cache.
+     */
+    @Parameter(property = "github.responseCache.size", defaultValue = "50")
+    private long responseCacheSize;
+
+    /**
+     * The HTTP connector to use for GitHub API calls: DEFAULT, OKHTTP, or HTTP_CLIENT.  Asset uploads, renames,
+     * and downloads always use a pooled, HTTP/2-capable OkHttp client.  The OKHTTP connector sends the API calls
+     * through that same client, so concurrent API calls and uploads share its warm connections; with the other
+     * connectors, only the asset transfers are pooled.  The HTTP_CLIENT connector uses java.net.http.HttpClient
+     * and requires Java 11 or newer.  The OKHTTP connector is always used when useResponseCache is true.
+     */
+    @Parameter(property = "github.connector", defaultValue = "DEFAULT")
+    private GitHubConnectorFactory.ConnectorType connector;
+
+    /**
+     * The maximum number of idle connections to keep in the connection pool of the OKHTTP connector and asset
+     * transfers.
+     */
+    @Parameter(property = "github.connectionPoolSize", defaultValue = "5")
+    private int connectionPoolSize;
+
+    /**
+     * The number of seconds that the OKHTTP connector and asset transfers keep an idle connection open.
+     */
+    @Parameter(property = "github.connectionKeepAlive", defaultValue = "300")
+    private long connectionKeepAlive;
+
+    /**
+     * The connect timeout, in seconds, used by the OKHTTP connector and by asset transfers.  Zero means no timeout.
+     */
+    @Parameter(property = "github.connectTimeout", defaultValue = "10")
+    private long connectTimeout;
+
+    /**
+     * The read and write timeout, in seconds, used by the OKHTTP connector and by asset transfers.  Zero means no
+     * timeout.
+     */
+    @Parameter(property = "github.readTimeout", defaultValue = "60")
+    private long readTimeout;
+
+    private ReleaseReport report;
+    private BandwidthLimiter bandwidthLimiter;
+    private Semaphore swapPermits;
+
     @Override
     public void contextualize(Context context) throws ContextException {
         container = (PlexusContainer) context.get(PlexusConstants.PLEXUS_KEY);
@@ -195,58 +491,342 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
         if (mimeTypeMap == null) {
             mimeTypeMap = DEFAULT_MIME_TYPE_MAPPINGS;
         }
+        if (updateExistingRelease) {
+            if (deleteExistingRelease) {
+                throw getMojoExecutionException("updateExistingRelease and deleteExistingRelease cannot both be true");
+            }
+            // Updating in place only pays off if the unchanged assets are kept and the changed ones replaced
+            skipUnchangedAssets = true;
+            overwriteExistingAssets = true;
+        }
+        repositoryId = MavenUtils.getRepositoryIdFromScmConnection(repositoryId);
+
+        // The client, repository and release are shared by all executions in this Maven session
+        GitHubSessionContext sessionContext = GitHubSessionContext.forSession(session);
+        List<RegisteredAsset> aggregateAssets = null;
+        if (aggregate) {
+            aggregateAssets = registerAggregateAssets(sessionContext);
+            if (aggregateAssets == null) {
+                return;
+            }
+        }
+
+        RateLimitScheduler scheduler = sessionContext.getRateLimitScheduler(getEndpointKey(),
+                () -> new RateLimitScheduler(uploadThreads, getLog()));
+        scheduler.raiseMaxConcurrency(uploadThreads);
+        RateLimitScheduler.UsageSnapshot usageAtStart = scheduler.snapshot();
+        ApiRequestLog requestLog = sessionContext.getApiRequestLog(getEndpointKey());
+        int requestMark = requestLog.mark();
+        report = new ReleaseReport();
+        boolean succeeded = false;
+        boolean hasAssets;
+        AssetPipeline.Scanner scanner;
+        if (aggregateAssets != null) {
+            List<RegisteredAsset> registeredAssets = aggregateAssets;
+            hasAssets = !registeredAssets.isEmpty();
+            scanner = sink -> {
+                for (RegisteredAsset registeredAsset : registeredAssets) {
+                    sink.accept(registeredAsset.getFile(), registeredAsset.getPriority());
+                }
+            };
+        } else {
+            hasAssets = assets != null && !assets.isEmpty();
+            scanner = sink -> scanAssetFiles(assets, sink);
+        }
+        try {
+            if (dryRun) {
+                planRelease(sessionContext, scheduler, hasAssets, scanner, requestLog, requestMark);
+            } else {
+                ReleaseHandle releaseHandle = getRelease(sessionContext, scheduler);
+                uploadAssets(sessionContext, releaseHandle, scheduler, hasAssets, scanner);
+            }
+            succeeded = true;
+        } finally {
+            scheduler.logUsageSince(usageAtStart);
+            report.setApiRequests(requestLog.getRequestsSince(requestMark));
+            report.finish(succeeded);
+            report.logSummary(getLog());
+            writeReport();
+        }
+    }
+
+    private void writeReport() {
+        if (reportFile == null) {
+            return;
+        }
+        try {
+            report.write(reportFile, repositoryId, tag);
+            logInfo(getLog(), "Wrote release report {0}", reportFile.getAbsolutePath());
+        } catch (IOException ex) {
+            // The report must never fail, or hide the failure of, the release itself
+            logWarn(getLog(), "Failed to write release report {0}: {1}", reportFile.getAbsolutePath(),
+                    ex.getMessage());
+        }
+    }
+
+    private ReleaseHandle getRelease(GitHubSessionContext sessionContext, RateLimitScheduler scheduler)
+            throws MojoExecutionException {
+        GitHub github = sessionContext.getClient(getClientKey(), () -> connect(sessionContext, scheduler));
+
+        GHRepository repository = sessionContext.getRepository(getEndpointKey(), repositoryId,
+                () -> getRepository(github));
+
+        AtomicBoolean resolvedByThisExecution = new AtomicBoolean();
+        ReleaseHandle releaseHandle = sessionContext.getRelease(getEndpointKey(), repositoryId, tag, () -> {
+            resolvedByThisExecution.set(true);
+            return findOrCreateRelease(repository);
+        });
+        if (!resolvedByThisExecution.get()) {
+            logInfo(getLog(), "Using release {0} for tag {1} that was resolved earlier in this build",
+                    releaseHandle.getRelease().getName(), tag);
+        }
+        return releaseHandle;
+    }
 
-        GHRelease release = getRelease();
-        uploadAssets(release);
+    private GitHubConnectorFactory createConnectorFactory(GitHubSessionContext sessionContext) {
+        GitHubConnectorFactory result = new GitHubConnectorFactory()
+                .withConnectorType(connector)
+                .withConnectionPool(connectionPoolSize, connectionKeepAlive)
+                .withTimeouts(connectTimeout, readTimeout)
+                .withRequestLog(sessionContext.getApiRequestLog(getEndpointKey()));
+        if (useResponseCache) {
+            result.withResponseCache(responseCacheDirectory, responseCacheSize);
+        }
+        return result;
     }
 
-    private GHRelease getRelease() throws MojoExecutionException {
-        GitHub github;
+    private GitHub connect(GitHubSessionContext sessionContext, RateLimitScheduler scheduler)
+            throws MojoExecutionException {
         try {
-            github = GitHubUtils.connect(container, settings, serverId, getLog());
+            GitHubConnectorFactory connectorFactory = createConnectorFactory(sessionContext);
+            long start = System.nanoTime();
+            boolean connected = false;
+            try {
+                GitHub result = GitHubUtils.connect(container, settings, serverId, apiUrl, connectorFactory,
+                        scheduler, getLog());
+                connected = true;
+                return result;
+            } finally {
+                report.recordOperation("connect", System.nanoTime() - start, connected);
+            }
         } catch (IOException ex) {
             throw getMojoExecutionException(ex, "Failed to connect to GitHub: {0}", ex.getMessage());
         }
+    }
+
+    // The token and API URL, which determine the rate limits and the repositories and releases that can be seen
+    private String getEndpointKey() {
+        return serverId + '|' + apiUrl;
+    }
+
+    // Executions that configure the connector differently each get a client of their own
+    private String getClientKey() {
+        StringBuilder result = new StringBuilder(getEndpointKey()).append('|').append(connector).append('|')
+                .append(connectionPoolSize).append('|').append(connectionKeepAlive).append('|')
+                .append(connectTimeout).append('|').append(readTimeout);
+        if (useResponseCache) {
+            result.append('|').append(responseCacheDirectory.getAbsolutePath()).append('|').append(responseCacheSize);
+        }
+        return result.toString();
+    }
 
-        repositoryId = MavenUtils.getRepositoryIdFromScmConnection(repositoryId);
-        GHRepository repository;
+    private GHRepository getRepository(GitHub github) throws MojoExecutionException {
         try {
             logDebug(getLog(), "getting repository {0}", repositoryId);
-            repository = github.getRepository(repositoryId);
+            return report.time("get repository", () -> github.getRepository(repositoryId));
         } catch (IOException ex) {
             throw getMojoExecutionException(ex, "Failed to get repository {0} from GitHub: {1}",
                     repositoryId, ex.getMessage());
         }
+    }
+
+    private void planRelease(GitHubSessionContext sessionContext, RateLimitScheduler scheduler, boolean hasAssets,
+                             AssetPipeline.Scanner scanner, ApiRequestLog requestLog, int requestMark)
+            throws MojoExecutionException {
+        logInfo(getLog(), "Dry run: planning release {0} for tag {1} without changing anything", name, tag);
+        GitHub github = sessionContext.getClient(getClientKey(), () -> connect(sessionContext, scheduler));
+        GHRepository repository = sessionContext.getRepository(getEndpointKey(), repositoryId,
+                () -> getRepository(github));
+
+        // The release is not registered with the session, which would let a real execution use it
+        GHRelease release = findRelease(repository);
+        ReleasePlan plan;
+        if (release == null) {
+            plan = new ReleasePlan(name, ReleasePlan.ReleaseAction.CREATE, null);
+        } else if (failIfReleaseExists) {
+            throw getMojoExecutionException("Release {0} already exists and failIfReleaseExists is true",
+                    release.getName());
+        } else if (deleteExistingRelease) {
+            GitHubUtils.checkReleaseName(release, name, "delete", allowReleaseNameMismatch);
+            plan = new ReleasePlan(name, ReleasePlan.ReleaseAction.RECREATE, null);
+        } else if (updateExistingRelease) {
+            GitHubUtils.checkReleaseName(release, name, "update", allowReleaseNameMismatch);
+            List<String> changes = getReleaseChanges(release, null);
+            plan = new ReleasePlan(name, changes.isEmpty() ? ReleasePlan.ReleaseAction.USE_EXISTING :
+                    ReleasePlan.ReleaseAction.UPDATE, changes);
+        } else {
+            plan = new ReleasePlan(release.getName(), ReleasePlan.ReleaseAction.USE_EXISTING, null);
+        }
+
+        if (hasAssets) {
+            // A release that is created or recreated starts without any assets
+            ReleaseHandle releaseHandle = plan.getReleaseAction() == ReleasePlan.ReleaseAction.CREATE
+                    || plan.getReleaseAction() == ReleasePlan.ReleaseAction.RECREATE ? null :
+                    new ReleaseHandle(release, false);
+            planAssets(sessionContext, releaseHandle, scheduler, scanner, plan);
+        }
+        plan.setReadRequests(requestLog.getRequestsSince(requestMark).size());
+        plan.log(getLog());
+        report.setPlan(plan);
+    }
+
+    private void planAssets(GitHubSessionContext sessionContext, ReleaseHandle releaseHandle,
+                            RateLimitScheduler scheduler, AssetPipeline.Scanner scanner, ReleasePlan plan)
+            throws MojoExecutionException {
+        Map<String, String> manifestNames = getChecksumManifestNames();
+        Set<String> digestAlgorithms = new LinkedHashSet<>(manifestNames.keySet());
+
+        ReleaseAssetIndex assetIndex = ReleaseAssetIndex.empty();
+        Map<String, ChecksumManifest> manifests = new LinkedHashMap<>();
+        ReleaseState lastRunState = null;
+        if (releaseHandle != null) {
+            GitHub github = sessionContext.getClient(getClientKey(), () -> connect(sessionContext, scheduler));
+            ReleaseAssetClient assetClient = sessionContext.getAssetClient(getClientKey(),
+                    () -> createAssetClient(sessionContext, github, scheduler));
+            assetIndex = releaseHandle.getAssetIndex(getLog());
+            manifests = getChecksumManifests(releaseHandle, assetClient, manifestNames);
+            if (stateFile != null) {
+                lastRunState = loadReleaseState(releaseHandle.getRelease(),
+                        StringUtils.join(manifestNames.values(), ','));
+                digestAlgorithms.add(FileDigester.SHA_256);
+            }
+        } else {
+            for (String algorithm : manifestNames.keySet()) {
+                manifests.put(algorithm, new ChecksumManifest());
+            }
+        }
+        ReleaseAssetIndex existingAssetIndex = assetIndex;
+        Map<String, ChecksumManifest> existingManifests = manifests;
+        ReleaseState existingState = lastRunState;
+
+        int hashThreads = digestAlgorithms.isEmpty() ? 1 : Runtime.getRuntime().availableProcessors();
+        AssetPipeline pipeline = new AssetPipeline(hashThreads, uploadThreads,
+                maxPendingUploadSize * 1024L * 1024L, uploadOrder, getLog());
+        pipeline.run(
+                sink -> scanner.scan((file, priority) -> {
+                    if (manifestNames.containsValue(file.getName())) {
+                        throw getMojoExecutionException("Asset file {0} has the same name as a checksum " +
+                                "manifest", file.getAbsolutePath());
+                    }
+                    AssetState assetState = existingState == null ? null : existingState.get(file.getName());
+                    if (assetState != null && assetState.isUnmodified(file)) {
+                        plan.addAsset(file.getName(), file.length(), ReleasePlan.AssetAction.UNCHANGED,
+                                "not modified since uploaded by an earlier run");
+                        return;
+                    }
+                    sink.accept(file, priority);
+                }),
+                file -> report.time("hash asset", () -> computeDigests(file, digestAlgorithms)),
+                (file, digests) -> {
+                    planAsset(existingAssetIndex, existingManifests, existingState, plan, file, digests);
+                    return null;
+                });
+
+        for (Map.Entry<String, ChecksumManifest> manifest : manifests.entrySet()) {
+            if (manifest.getValue().isModified()) {
+                String manifestName = manifestNames.get(manifest.getKey());
+                ReleasePlan.AssetAction action = assetIndex.get(manifestName).isEmpty() ?
+                        ReleasePlan.AssetAction.UPLOAD : swapExistingAssets ? ReleasePlan.AssetAction.SWAP :
+                        ReleasePlan.AssetAction.REPLACE;
+                plan.addAsset(manifestName, manifest.getValue().toBytes().length, action, "checksum manifest");
+            }
+        }
+    }
 
+    private void planAsset(ReleaseAssetIndex assetIndex, Map<String, ChecksumManifest> manifests,
+                           ReleaseState lastRunState, ReleasePlan plan, File file, Map<String, String> digests) {
+        String digest = digests.get(FileDigester.SHA_256);
+        AssetState assetState = lastRunState == null ? null : lastRunState.get(file.getName());
+        List<GHAsset> existingAssets = assetIndex.get(file.getName());
+        if (assetState != null && assetState.hasSameContent(file, digest)) {
+            plan.addAsset(file.getName(), file.length(), ReleasePlan.AssetAction.UNCHANGED,
+                    "same content as uploaded by an earlier run");
+            return;
+        }
+
+        ReleasePlan.AssetAction action;
+        String reason;
+        if (existingAssets.isEmpty()) {
+            action = ReleasePlan.AssetAction.UPLOAD;
+            reason = "new asset";
+        } else if (skipUnchangedAssets && isUnchanged(existingAssets, file, digest,
+                manifests.get(FileDigester.SHA_256))) {
+            action = ReleasePlan.AssetAction.UNCHANGED;
+            reason = "same content as the existing asset";
+        } else if (!overwriteExistingAssets) {
+            plan.addAsset(file.getName(), file.length(), ReleasePlan.AssetAction.SKIP,
+                    "asset exists and overwriteExistingAssets is false");
+            return;
+        } else {
+            action = swapExistingAssets ? ReleasePlan.AssetAction.SWAP : ReleasePlan.AssetAction.REPLACE;
+            reason = skipUnchangedAssets ? "content changed" : "asset exists";
+        }
+        recordDigests(manifests, file.getName(), digests);
+        plan.addAsset(file.getName(), file.length(), action, reason);
+    }
+
+    private GHRelease findRelease(GHRepository repository) throws MojoExecutionException {
         GHRelease release;
+        long start = System.nanoTime();
+        boolean searched = false;
+        // A draft release can only be found by name, so search by name whenever the release may be a draft
+        boolean scanByName = fallbackToNameSearch || draft || updateExistingRelease;
         try {
-            release = GitHubUtils.findReleaseByName(repository, name, getLog());
+            release = GitHubUtils.findRelease(repository, tag, name, scanByName, getLog());
+            searched = true;
             if (release == null) {
-                logInfo(getLog(), "Repository {0} did not contain release {1}", repository.getName(), name);
+                logInfo(getLog(), "Repository {0} did not contain release {1} for tag {2}", repository.getName(),
+                        name, tag);
             }
         } catch (IOException ex) {
             throw getMojoExecutionException(ex, "Failed to find release {0}: {1}", name, ex.getMessage());
+        } finally {
+            report.recordOperation("find release", System.nanoTime() - start, searched);
         }
 
+        return release;
+    }
+
+    private ReleaseHandle findOrCreateRelease(GHRepository repository) throws MojoExecutionException {
+        GHRelease release = findRelease(repository);
         if (release != null) {
             if (failIfReleaseExists) {
                 throw getMojoExecutionException("Release {0} already exists and failIfReleaseExists is true",
                         release.getName());
             } else if (deleteExistingRelease) {
+                GitHubUtils.checkReleaseName(release, name, "delete", allowReleaseNameMismatch);
                 logInfo(getLog(), "Deleting existing release {0} before creating new release",
                         release.getName());
+                GHRelease existingRelease = release;
                 try {
-                    release.delete();
+                    report.time("delete release", () -> {
+                        existingRelease.delete();
+                        return existingRelease;
+                    });
                 } catch (IOException ex) {
                     throw getMojoExecutionException(ex, "Failed to delete release {0}: {1}",
                             release.getName(), ex.getMessage());
                 }
                 logInfo(getLog(), "Existing release {0} successfully deleted", release.getName());
                 release = null;
+            } else if (updateExistingRelease) {
+                GitHubUtils.checkReleaseName(release, name, "update", allowReleaseNameMismatch);
+                release = updateRelease(release);
             } else {
                 logInfo(getLog(), "Release {0} already exists so using the existing release", release.getName());
             }
         }
+        boolean releaseCreated = false;
         if (release == null) {
             logInfo(getLog(), "Creating new release {0} for repository {1}", name, repository.getName());
             logDebug(getLog(), "Creating GHReleaseBuilder [ tag: {0}, name: {1}, prerelease: {2}, draft: {3}]",
@@ -255,20 +835,9 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
                     .name(name)
                     .prerelease(preRelease)
                     .draft(draft);
-            if (StringUtils.isNotEmpty(description)) {
-                logDebug(getLog(), "Adding body to GHReleaseBuilder: {0}", description);
-                releaseBuilder.body(description);
-            } else if (descriptionFile != null) {
-                if (descriptionFile.exists()) {
-                    String descriptionFileContents = getFileContents(descriptionFile);
-                    if (StringUtils.isNotEmpty(descriptionFileContents))
-                        logDebug(getLog(), "Add body from file {0} to GHReleaseBuilder: {1}",
-                                 descriptionFile.getAbsolutePath(), descriptionFileContents);
-                    releaseBuilder.body(descriptionFileContents);
-                } else {
-                    logWarn(getLog(), "descriptionFile set to {0} but the file does not exist so skipping...",
-                            descriptionFile.getAbsolutePath());
-                }
+            String body = getReleaseBody();
+            if (body != null) {
+                releaseBuilder.body(body);
             }
 
             if (StringUtils.isNotEmpty(commmitish)) {
@@ -278,100 +847,852 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
 
             try {
                 logInfo(getLog(), "Calling GHReleaseBuilder.create()...");
-                release = releaseBuilder.create();
+                release = report.time("create release", releaseBuilder::create);
+                releaseCreated = true;
                 logInfo(getLog(), "GHReleaseBuilder.create() returned successfully");
             } catch (IOException ex) {
                 logError(getLog(), ex, "Failed to create release: {0}", ex.getMessage());
                 throw getMojoExecutionException(ex, "Failed to create new release {0}: {1}", name, ex.getMessage());
             }
         }
-        return release;
+        return new ReleaseHandle(release, releaseCreated);
     }
 
-    private List<GHAsset> uploadAssets(GHRelease release) throws MojoExecutionException {
-        List<GHAsset> results = new ArrayList<>();
+    private GHRelease updateRelease(GHRelease release) throws MojoExecutionException {
+        GHReleaseUpdater releaseUpdater = release.update();
+        List<String> changes = getReleaseChanges(release, releaseUpdater);
+        if (changes.isEmpty()) {
+            logInfo(getLog(), "Release {0} already exists and is up to date so using the existing release",
+                    release.getName());
+            return release;
+        }
+        logInfo(getLog(), "Updating {0} of existing release {1}", StringUtils.join(changes, ", "),
+                release.getName());
+        try {
+            return report.time("update release", releaseUpdater::update);
+        } catch (IOException ex) {
+            throw getMojoExecutionException(ex, "Failed to update release {0}: {1}", release.getName(),
+                    ex.getMessage());
+        }
+    }
+
+    // Returns the names of the settings of the existing release that differ, and sets them on the updater if any
+    private List<String> getReleaseChanges(GHRelease release, GHReleaseUpdater releaseUpdater)
+            throws MojoExecutionException {
+        List<String> result = new ArrayList<>();
+        if (!name.equals(release.getName())) {
+            result.add("name");
+            if (releaseUpdater != null) {
+                releaseUpdater.name(name);
+            }
+        }
+        String body = getReleaseBody();
+        if (body != null && !body.equals(release.getBody())) {
+            result.add("body");
+            if (releaseUpdater != null) {
+                releaseUpdater.body(body);
+            }
+        }
+        if (preRelease != release.isPrerelease()) {
+            result.add("prerelease");
+            if (releaseUpdater != null) {
+                releaseUpdater.prerelease(preRelease);
+            }
+        }
+        if (draft != release.isDraft()) {
+            result.add("draft");
+            if (releaseUpdater != null) {
+                releaseUpdater.draft(draft);
+            }
+        }
+        if (StringUtils.isNotEmpty(commmitish) && !commmitish.equals(release.getTargetCommitish())) {
+            result.add("commitish");
+            if (releaseUpdater != null) {
+                releaseUpdater.commitish(commmitish);
+            }
+        }
+        return result;
+    }
+
+    private String getReleaseBody() throws MojoExecutionException {
+        if (StringUtils.isNotEmpty(description)) {
+            logDebug(getLog(), "Using release body: {0}", description);
+            return description;
+        } else if (descriptionFile != null) {
+            if (descriptionFile.exists()) {
+                String descriptionFileContents = getFileContents(descriptionFile);
+                logDebug(getLog(), "Using release body from file {0}: {1}", descriptionFile.getAbsolutePath(),
+                        descriptionFileContents);
+                return descriptionFileContents;
+            } else {
+                logWarn(getLog(), "descriptionFile set to {0} but the file does not exist so skipping...",
+                        descriptionFile.getAbsolutePath());
+            }
+        }
+        return null;
+    }
+
+    private ReleaseAssetClient createAssetClient(GitHubSessionContext sessionContext, GitHub github,
+                                                RateLimitScheduler scheduler) throws MojoExecutionException {
+        String authToken = GitHubUtils.getAuthToken(container, settings, serverId, getLog());
+        return new ReleaseAssetClient(github, createConnectorFactory(sessionContext).createAssetHttpClient(getLog()),
+                authToken, scheduler, sessionContext.getApiRequestLog(getEndpointKey()), getLog());
+    }
+
+    private List<RegisteredAsset> registerAggregateAssets(GitHubSessionContext sessionContext)
+            throws MojoExecutionException {
+        List<RegisteredAsset> projectAssets = new ArrayList<>();
         if (assets != null) {
-            int counter = 1;
-            for (FileSet fileSet : assets) {
+            scanAssetFiles(assets, (file, priority) -> projectAssets.add(new RegisteredAsset(file, priority)));
+        }
 
-                List<File> files;
-                try {
-                    files = FileUtils.getFiles(
-                        new File(fileSet.getDirectory()).getAbsoluteFile(),
-                        StringUtils.join(fileSet.getIncludes(), ','),
-                        StringUtils.join(fileSet.getExcludes(), ',')
-                    );
-                } catch (IOException ex) {
-                    throw getMojoExecutionException(ex, "Failed to get files for fileSet at position {0}: {1}",
-                            counter, ex.getMessage());
+        ReleaseAssetRegistry registry = sessionContext.getAssetRegistry(getEndpointKey(), repositoryId, tag);
+        List<MavenProject> expectedProjects = getAggregateProjects();
+        List<RegisteredAsset> result = registry.register(project.getId(), projectAssets, expectedProjects.size());
+        if (result == null) {
+            int pendingProjects = getPendingProjectCount(expectedProjects);
+            if (registry.getProjectCount() + pendingProjects < expectedProjects.size()) {
+                throw getMojoExecutionException("Release {0} will never be published: only {1} of the {2} projects " +
+                        "expected to register assets have done so and no project that could register the rest is " +
+                        "left to run, so check for projects that skipped the goal or failed before it ran", name,
+                        registry.getProjectCount(), expectedProjects.size());
+            }
+            logInfo(getLog(), "Registered {0} assets from project {1} for release {2}, which will be published " +
+                    "once {3} more projects have registered", projectAssets.size(), project.getArtifactId(), name,
+                    expectedProjects.size() - registry.getProjectCount());
+        } else {
+            logInfo(getLog(), "Publishing release {0} with {1} assets registered by {2} projects", name,
+                    result.size(), registry.getProjectCount());
+        }
+        return result;
+    }
+
+    private List<MavenProject> getAggregateProjects() {
+        String pluginKey = mojoExecution.getGroupId() + ':' + mojoExecution.getArtifactId();
+        String goal = mojoExecution.getGoal();
+        // When the goal is run from the command line, every project in the build runs it
+        if (CLI_EXECUTION_ID.equals(mojoExecution.getExecutionId())) {
+            return session.getProjects();
+        }
+
+        String defaultPhase = mojoExecution.getMojoDescriptor() == null ? null :
+                mojoExecution.getMojoDescriptor().getPhase();
+        Set<String> plannedPhases = getPlannedPhases(getRequestedTasks(), goal, getLifecyclePhases());
+        Properties properties = new Properties();
+        properties.putAll(session.getSystemProperties());
+        properties.putAll(session.getUserProperties());
+
+        List<MavenProject> result = new ArrayList<>();
+        for (MavenProject reactorProject : session.getProjects()) {
+            if (reactorProject.getId().equals(project.getId()) || registersAggregateAssets(reactorProject, pluginKey,
+                    goal, defaultPhase, plannedPhases, properties)) {
+                result.add(reactorProject);
+            }
+        }
+        return result;
+    }
+
+    // The other expected projects that have not finished building yet and so may still register their assets
+    private int getPendingProjectCount(List<MavenProject> expectedProjects) {
+        if (session.getResult() == null) {
+            return expectedProjects.size();
+        }
+        int result = 0;
+        for (MavenProject expectedProject : expectedProjects) {
+            if (!expectedProject.getId().equals(project.getId())
+                    && session.getResult().getBuildSummary(expectedProject) == null) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private List<String> getRequestedTasks() {
+        List<String> result = session.getGoals();
+        if (result.isEmpty() && session.getTopLevelProject() != null
+                && !StringUtils.isBlank(session.getTopLevelProject().getDefaultGoal())) {
+            result = Arrays.asList(StringUtils.split(session.getTopLevelProject().getDefaultGoal()));
+        }
+        return result;
+    }
+
+    private List<List<String>> getLifecyclePhases() {
+        if (container == null) {
+            return null;
+        }
+        try {
+            List<List<String>> result = new ArrayList<>();
+            for (Lifecycle lifecycle : container.lookup(DefaultLifecycles.class).getLifeCycles()) {
+                result.add(lifecycle.getPhases());
+            }
+            return result;
+        } catch (ComponentLookupException ex) {
+            logDebug(getLog(), ex, "Failed to look up the Maven lifecycles so every execution of the goal is " +
+                    "assumed to run");
+            return null;
+        }
+    }
+
+    /**
+     * Get the lifecycle phases that the build runs.
+     *
+     * @param tasks      the phases and goals requested on the command line
+     * @param goal       the goal of this plugin being executed
+     * @param lifecycles the phases of each Maven lifecycle, in order
+     * @return the phases that run, or null if that cannot be determined, for example because the requested goals
+     *         include this plugin's goal, which can run an execution bound to any phase
+     */
+    static Set<String> getPlannedPhases(List<String> tasks, String goal, List<List<String>> lifecycles) {
+        if (lifecycles == null || tasks.isEmpty()) {
+            return null;
+        }
+        Set<String> result = new HashSet<>();
+        for (String task : tasks) {
+            if (task.endsWith(':' + goal) || task.contains(':' + goal + '@')) {
+                return null;
+            }
+            for (List<String> phases : lifecycles) {
+                int index = phases.indexOf(task);
+                if (index >= 0) {
+                    result.addAll(phases.subList(0, index + 1));
                 }
+            }
+        }
+        return result;
+    }
 
-                for (File file : files) {
-                    if (file == null ) {
-                        throw getMojoExecutionException("File in fileSet at position {0} is null", counter);
-                    } else if (!file.exists()) {
-                        throw getMojoExecutionException("File {0} in fileSet at position {1} does not exist",
-                                file.getName(), counter);
-                    }
-                    GHAsset uploadedAsset = uploadAsset(release, file);
-                    if (uploadedAsset != null) {
-                        results.add(uploadedAsset);
-                    } else {
-                        logWarn(getLog(),"uploadAsset() for release {0} and file {1} did not upload the asset",
-                                release.getName(), file.getName());
-                    }
+    /**
+     * Whether a project has an execution of the goal that the build runs and that has aggregate enabled.
+     *
+     * @param project       the project
+     * @param pluginKey     the groupId:artifactId of this plugin
+     * @param goal          the goal
+     * @param defaultPhase  the phase the goal is bound to when an execution does not specify one
+     * @param plannedPhases the phases that the build runs, or null if every phase is assumed to run
+     * @param properties    the user and system properties of the build
+     * @return whether the project registers assets for an aggregated release
+     */
+    static boolean registersAggregateAssets(MavenProject project, String pluginKey, String goal, String defaultPhase,
+                                            Set<String> plannedPhases, Properties properties) {
+        Plugin plugin = project.getPlugin(pluginKey);
+        if (plugin == null) {
+            return false;
+        }
+        for (PluginExecution execution : plugin.getExecutions()) {
+            String phase = execution.getPhase() == null ? defaultPhase : execution.getPhase();
+            if (execution.getGoals().contains(goal) && !NONE_PHASE.equals(phase)
+                    && (plannedPhases == null || phase == null || plannedPhases.contains(phase))
+                    && isAggregateEnabled(project, plugin, execution, properties)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAggregateEnabled(MavenProject project, Plugin plugin, PluginExecution execution,
+                                              Properties properties) {
+        String value = getConfigurationValue(execution.getConfiguration(), AGGREGATE_PARAMETER);
+        if (value == null) {
+            value = getConfigurationValue(plugin.getConfiguration(), AGGREGATE_PARAMETER);
+        }
+        if (value == null) {
+            value = "${" + AGGREGATE_PROPERTY + '}';
+        }
+        // Resolve a property reference the way Maven does, with the build properties overriding the project's;
+        // a reference to an undefined property leaves the parameter at its default of false
+        Matcher matcher = PROPERTY_REFERENCE_PATTERN.matcher(value.trim());
+        if (matcher.matches()) {
+            value = properties.getProperty(matcher.group(1), project.getProperties().getProperty(matcher.group(1)));
+        }
+        return value != null && Boolean.parseBoolean(value.trim());
+    }
+
+    // The model holds the configuration as an Xpp3Dom, which plexus-utils 4 moved to another artifact, so its
+    // getChild() and getValue() methods are called reflectively to work with the class Maven provides
+    private static String getConfigurationValue(Object configuration, String name) {
+        if (configuration == null) {
+            return null;
+        }
+        try {
+            Object child = configuration.getClass().getMethod("getChild", String.class).invoke(configuration, name);
+            return child == null ? null : (String) child.getClass().getMethod("getValue").invoke(child);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    private List<GHAsset> uploadAssets(GitHubSessionContext sessionContext, ReleaseHandle releaseHandle,
+                                       RateLimitScheduler scheduler, boolean hasAssets,
+                                       AssetPipeline.Scanner scanner) throws MojoExecutionException {
+        GHRelease release = releaseHandle.getRelease();
+        List<GHAsset> results = new ArrayList<>();
+        if (hasAssets) {
+            // The manifest names, keyed by digest algorithm
+            Map<String, String> manifestNames = getChecksumManifestNames();
+            Set<String> digestAlgorithms = new LinkedHashSet<>(manifestNames.keySet());
+
+            ReleaseState previousState = null;
+            ReleaseState state = null;
+            if (stateFile != null) {
+                String checksums = StringUtils.join(manifestNames.values(), ',');
+                state = new ReleaseState(repositoryId, tag, release.getId(), checksums);
+                previousState = loadReleaseState(release, checksums);
+                if (previousState != null) {
+                    state.putAll(previousState);
+                }
+                // The state recognizes rewritten but identical files by their SHA-256 digest
+                digestAlgorithms.add(FileDigester.SHA_256);
+            }
+            ReleaseState lastRunState = previousState;
+            ReleaseState runState = state;
+
+            GitHub github = sessionContext.getClient(getClientKey(), () -> connect(sessionContext, scheduler));
+            ReleaseAssetClient assetClient = sessionContext.getAssetClient(getClientKey(),
+                    () -> createAssetClient(sessionContext, github, scheduler));
+
+            RetryPolicy retryPolicy = new RetryPolicy(uploadRetries, uploadRetryDelay, getLog());
+            // Digesting is CPU-bound so it gets a thread per core rather than the upload thread count
+            int hashThreads = digestAlgorithms.isEmpty() ? 1 : Runtime.getRuntime().availableProcessors();
+            AssetPipeline pipeline = new AssetPipeline(hashThreads, uploadThreads,
+                    maxPendingUploadSize * 1024L * 1024L, uploadOrder, getLog());
+            logDebug(getLog(), "Uploading assets using {0} hash threads and up to {1} upload threads",
+                    hashThreads, uploadThreads);
+
+            if (maxUploadRate > 0) {
+                bandwidthLimiter = sessionContext.getBandwidthLimiter(getEndpointKey(),
+                        () -> new BandwidthLimiter(maxUploadRate * 1024L));
+                if (bandwidthLimiter.getBytesPerSecond() != maxUploadRate * 1024L) {
+                    logWarn(getLog(), "Limiting the upload bandwidth to {0} KB/s rather than the configured " +
+                            "maxUploadRate of {1} KB/s since an earlier execution in this build set the shared limit",
+                            bandwidthLimiter.getBytesPerSecond() / 1024, maxUploadRate);
+                } else {
+                    logDebug(getLog(), "Limiting the upload bandwidth to {0} KB/s", maxUploadRate);
+                }
+            }
+            int swapLimit = Math.max(1, maxConcurrentSwaps);
+            swapPermits = sessionContext.getSwapPermits(getEndpointKey() + '|' + swapLimit,
+                    () -> new Semaphore(swapLimit));
+            // Unless an existing asset may turn out to be unchanged or is swapped, replacing it starts by deleting it
+            AssetDeleter deleter = overwriteExistingAssets && !skipUnchangedAssets && !swapExistingAssets ?
+                    new AssetDeleter(uploadThreads) : null;
+            UploadProgress progress = new UploadProgress(progressInterval, getLog());
+            List<File> scannedFiles = new ArrayList<>();
+            Set<File> unchangedFiles = ConcurrentHashMap.newKeySet();
+            // The asset index and checksum manifests are only loaded once an asset needs GitHub
+            AtomicBoolean releaseContacted = new AtomicBoolean();
+            List<GHAsset> uploadedAssets;
+            try {
+                uploadedAssets = pipeline.run(
+                        sink -> scanner.scan((file, priority) -> {
+                            if (manifestNames.containsValue(file.getName())) {
+                                throw getMojoExecutionException("Asset file {0} has the same name as a checksum " +
+                                        "manifest", file.getAbsolutePath());
+                            }
+                            AssetState assetState = lastRunState == null ? null : lastRunState.get(file.getName());
+                            if (assetState != null && assetState.isUnmodified(file)) {
+                                logInfo(getLog(), "Asset file {0} has not been modified since it was uploaded by an " +
+                                        "earlier run...skipping", file.getAbsolutePath());
+                                report.recordAsset(file.getName(), file.length(), ReleaseReport.UNCHANGED, 0, 0);
+                                return;
+                            }
+                            scannedFiles.add(file);
+                            progress.expect(file.length());
+                            sink.accept(file, priority);
+                        }),
+                        file -> {
+                            Map<String, String> digests =
+                                    report.time("hash asset", () -> computeDigests(file, digestAlgorithms));
+                            // Only give up the existing asset once its replacement is ready to upload
+                            if (deleter != null && (lastRunState == null || lastRunState.get(file.getName()) == null)) {
+                                deleter.submit(file.getName(), () -> deleteExistingAssets(releaseHandle, scheduler,
+                                        retryPolicy, file.getName()));
+                            }
+                            return digests;
+                        },
+                        (file, digests) -> {
+                            if (runState != null) {
+                                String digest = digests.get(FileDigester.SHA_256);
+                                AssetState assetState = lastRunState == null ? null : lastRunState.get(file.getName());
+                                if (assetState != null && assetState.hasSameContent(file, digest)) {
+                                    logInfo(getLog(), "Asset file {0} has the same content as when it was uploaded " +
+                                            "by an earlier run...skipping", file.getAbsolutePath());
+                                    runState.put(file.getName(), new AssetState(file, digest, assetState.getAssetId()));
+                                    unchangedFiles.add(file);
+                                    progress.skip(file.length());
+                                    report.recordAsset(file.getName(), file.length(), ReleaseReport.UNCHANGED, 0, 0);
+                                    return null;
+                                }
+                                // Never leave a stale entry behind if replacing the asset fails
+                                runState.remove(file.getName());
+                            }
+
+                            if (deleter != null) {
+                                // Wait without holding a scheduler permit, which the deletion itself needs
+                                deleter.await(file.getName());
+                            }
+                            releaseContacted.set(true);
+                            // The scheduler adapts the number of concurrent uploads to the GitHub rate limits
+                            scheduler.acquire();
+                            GHAsset uploadedAsset;
+                            try {
+                                uploadedAsset = uploadAsset(releaseHandle, assetClient,
+                                        releaseHandle.getAssetIndex(getLog()),
+                                        getChecksumManifests(releaseHandle, assetClient, manifestNames), digests,
+                                        retryPolicy, progress, file);
+                            } finally {
+                                scheduler.release();
+                            }
+                            if (runState != null && uploadedAsset != null) {
+                                runState.put(file.getName(), new AssetState(file, digests.get(FileDigester.SHA_256),
+                                        uploadedAsset.getId()));
+                            }
+                            return uploadedAsset;
+                        });
+            } finally {
+                progress.close();
+                if (deleter != null) {
+                    deleter.close();
+                }
+            }
+            for (int i = 0; i < scannedFiles.size(); i++) {
+                GHAsset uploadedAsset = uploadedAssets.get(i);
+                if (uploadedAsset != null) {
+                    results.add(uploadedAsset);
+                } else if (!unchangedFiles.contains(scannedFiles.get(i))) {
+                    logWarn(getLog(),"uploadAsset() for release {0} and file {1} did not upload the asset",
+                            release.getName(), scannedFiles.get(i).getName());
+                }
+            }
+            if (releaseContacted.get()) {
+                ReleaseAssetIndex assetIndex = releaseHandle.getAssetIndex(getLog());
+                Map<String, ChecksumManifest> manifests =
+                        getChecksumManifests(releaseHandle, assetClient, manifestNames);
+                for (Map.Entry<String, ChecksumManifest> manifest : manifests.entrySet()) {
+                    publishChecksumManifest(releaseHandle, assetClient, assetIndex,
+                            manifestNames.get(manifest.getKey()), manifest.getValue(), retryPolicy);
                 }
-                counter++;
+            }
+            if (state != null) {
+                saveReleaseState(state);
             }
         }
         return results;
     }
 
-    private GHAsset uploadAsset(GHRelease release, File file) throws MojoExecutionException {
-        getLog().info("Processing asset " + file.getAbsolutePath());
+    private ReleaseState loadReleaseState(GHRelease release, String checksums) {
+        ReleaseState result = ReleaseState.load(stateFile, getLog());
+        if (result != null && !result.isFor(repositoryId, tag, release.getId(), checksums)) {
+            logInfo(getLog(), "Ignoring release state file {0} since it was recorded for another release or " +
+                    "other checksum manifests", stateFile.getAbsolutePath());
+            result = null;
+        }
+        return result;
+    }
 
-        List<GHAsset> existingAssets;
+    private void saveReleaseState(ReleaseState state) throws MojoExecutionException {
         try {
-            existingAssets = release.listAssets()
-                    .toList()
-                    .stream()
-                    .filter(a -> a.getName().equals(file.getName()))
-                    .collect(Collectors.toList());
+            state.save(stateFile);
+            logDebug(getLog(), "Saved release state file {0}", stateFile.getAbsolutePath());
         } catch (IOException ex) {
-            throw getMojoExecutionException(ex, "Failed to list existing assets for release {0}: {1}",
-                    release.getName(), ex.getMessage());
+            throw getMojoExecutionException(ex, "Failed to save release state file {0}: {1}",
+                    stateFile.getAbsolutePath(), ex.getMessage());
         }
+    }
 
-        if (!existingAssets.isEmpty()) {
-            if (overwriteExistingAssets) {
-                // There should only ever be one but...
-                for (GHAsset existingAsset : existingAssets) {
-                    logInfo(getLog(), "    Deleting existing asset {0}", existingAsset.getName());
-                    try {
-                        existingAsset.delete();
-                    } catch (IOException ex) {
-                        throw getMojoExecutionException(ex, "Failed to delete existing asset {0}",
-                                existingAsset.getName());
-                    }
+    private Map<String, ChecksumManifest> getChecksumManifests(ReleaseHandle releaseHandle,
+                                                               ReleaseAssetClient assetClient,
+                                                               Map<String, String> manifestNames)
+            throws MojoExecutionException {
+        // The release handle loads each manifest once, so this is cheap after the first asset
+        Map<String, ChecksumManifest> result = new LinkedHashMap<>();
+        for (Map.Entry<String, String> manifestName : manifestNames.entrySet()) {
+            result.put(manifestName.getKey(),
+                    releaseHandle.getChecksumManifest(manifestName.getValue(), assetClient, getLog()));
+        }
+        return result;
+    }
+
+    static void scanAssetFiles(List<AssetFileSet> fileSets, AssetPipeline.Sink sink)
+            throws MojoExecutionException {
+        int counter = 1;
+        for (AssetFileSet fileSet : fileSets) {
+
+            List<File> files;
+            try {
+                files = FileUtils.getFiles(
+                    new File(fileSet.getDirectory()).getAbsoluteFile(),
+                    StringUtils.join(fileSet.getIncludes(), ','),
+                    StringUtils.join(fileSet.getExcludes(), ',')
+                );
+            } catch (IOException ex) {
+                throw getMojoExecutionException(ex, "Failed to get files for fileSet at position {0}: {1}",
+                        counter, ex.getMessage());
+            }
+
+            for (File file : files) {
+                if (file == null ) {
+                    throw getMojoExecutionException("File in fileSet at position {0} is null", counter);
+                } else if (!file.exists()) {
+                    throw getMojoExecutionException("File {0} in fileSet at position {1} does not exist",
+                            file.getName(), counter);
                 }
+                sink.accept(file, fileSet.getPriority());
+            }
+            counter++;
+        }
+    }
+
+    private Map<String, String> getChecksumManifestNames() throws MojoExecutionException {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (skipUnchangedAssets) {
+            result.put(FileDigester.SHA_256, digestManifestName);
+        }
+        if (checksumAlgorithms != null) {
+            for (String checksumAlgorithm : checksumAlgorithms) {
+                if (StringUtils.isBlank(checksumAlgorithm)) {
+                    continue;
+                }
+                String algorithm = checksumAlgorithm.trim().toUpperCase();
+                try {
+                    FileDigester.validateAlgorithm(algorithm);
+                } catch (IOException ex) {
+                    throw getMojoExecutionException(ex, "Invalid checksumAlgorithms value {0}: {1}",
+                            checksumAlgorithm, ex.getMessage());
+                }
+                result.putIfAbsent(algorithm, FileDigester.SHA_256.equals(algorithm) ?
+                        digestManifestName : ChecksumManifest.getDefaultName(algorithm));
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, String> computeDigests(File file, Collection<String> algorithms)
+            throws MojoExecutionException {
+        if (algorithms.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        try {
+            return FileDigester.digest(file, algorithms);
+        } catch (IOException ex) {
+            throw getMojoExecutionException(ex, "Failed to compute the digests of file {0}: {1}",
+                    file.getAbsolutePath(), ex.getMessage());
+        }
+    }
+
+    private GHAsset uploadAsset(ReleaseHandle releaseHandle, ReleaseAssetClient assetClient,
+                                ReleaseAssetIndex assetIndex, Map<String, ChecksumManifest> manifests,
+                                Map<String, String> digests, RetryPolicy retryPolicy, UploadProgress progress,
+                                File file) throws MojoExecutionException {
+        GHRelease release = releaseHandle.getRelease();
+        logInfo(getLog(), "Processing asset {0}", file.getAbsolutePath());
+
+        List<GHAsset> existingAssets = assetIndex.get(file.getName());
+        List<GHAsset> replacedAssets = Collections.emptyList();
+
+        if (!existingAssets.isEmpty()) {
+            if (skipUnchangedAssets && isUnchanged(existingAssets, file, digests.get(FileDigester.SHA_256),
+                    manifests.get(FileDigester.SHA_256))) {
+                logInfo(getLog(), "    Asset {0} is unchanged...skipping upload", file.getName());
+                recordDigests(manifests, file.getName(), digests);
+                progress.skip(file.length());
+                report.recordAsset(file.getName(), file.length(), ReleaseReport.UNCHANGED, 0, 0);
+                return existingAssets.get(0);
+            } else if (overwriteExistingAssets && swapExistingAssets) {
+                replacedAssets = existingAssets;
+            } else if (overwriteExistingAssets) {
+                deleteExistingAssets(existingAssets, assetIndex, retryPolicy);
             } else {
                 logWarn(getLog(), "Asset {0} already exists...skipping upload", existingAssets.get(0).getName());
+                progress.skip(file.length());
+                report.recordAsset(file.getName(), file.length(), ReleaseReport.SKIPPED, 0, 0);
                 return null;
             }
         }
 
-        String mimeType = getMimeTypeFromFileExtension(file.getName());
-        logInfo(getLog(), "    Uploading asset {0} as type {1}", file.getName(), mimeType);
+        String mimeType = getMimeTypeFromFileExtension(file.getName(), mimeTypeMap);
+        String uploadName = replacedAssets.isEmpty() ? file.getName() :
+                prepareTemporaryAsset(assetIndex, file.getName(), retryPolicy);
+        logInfo(getLog(), "    Uploading asset {0} as type {1}", uploadName, mimeType);
         GHAsset uploadedAsset;
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+        FlightRecorderEvents.UploadRecording recording = FlightRecorderEvents.beginUpload(file.getName(),
+                file.length());
         try {
-            uploadedAsset = release.uploadAsset(file, mimeType);
+            uploadedAsset = report.time("upload asset", () -> retryPolicy.execute("Uploading asset " + file.getName(),
+                    () -> {
+                        attempts.incrementAndGet();
+                        UploadProgress.Transfer transfer = progress.startTransfer();
+                        boolean transferred = false;
+                        try {
+                            GHAsset asset = assetClient.uploadAsset(release, file, uploadName, mimeType,
+                                    getTransferListener(transfer));
+                            transferred = true;
+                            return asset;
+                        } finally {
+                            transfer.end(transferred);
+                        }
+                    },
+                    failure -> reconcileFailedUpload(releaseHandle, uploadName, file.length())));
         } catch (IOException ex) {
+            int retries = Math.max(attempts.get() - 1, 0);
+            recording.end(retries, false);
+            report.recordAsset(file.getName(), file.length(), ReleaseReport.FAILED, System.nanoTime() - start,
+                    retries);
             throw getMojoExecutionException(ex, "Failed to upload asset {0}: {1}", file.getName(), ex.getMessage());
         }
+        int retries = Math.max(attempts.get() - 1, 0);
+        recording.end(retries, true);
+        report.recordAsset(file.getName(), file.length(), ReleaseReport.UPLOADED, System.nanoTime() - start,
+                retries);
+        if (!replacedAssets.isEmpty()) {
+            try {
+                uploadedAsset = swapAsset(release, assetClient, assetIndex, replacedAssets, uploadedAsset,
+                        file.getName(), retryPolicy);
+            } catch (IOException ex) {
+                throw getMojoExecutionException(ex, "Failed to replace asset {0}: {1}", file.getName(),
+                        ex.getMessage());
+            }
+        }
+        assetIndex.add(uploadedAsset);
+        recordDigests(manifests, uploadedAsset.getName(), digests);
         return uploadedAsset;
     }
 
-    private String getMimeTypeFromFileExtension(String fileName) throws MojoExecutionException {
+    private void deleteExistingAssets(ReleaseHandle releaseHandle, RateLimitScheduler scheduler,
+                                      RetryPolicy retryPolicy, String assetName) throws MojoExecutionException {
+        ReleaseAssetIndex assetIndex = releaseHandle.getAssetIndex(getLog());
+        List<GHAsset> existingAssets = assetIndex.get(assetName);
+        if (!existingAssets.isEmpty()) {
+            scheduler.acquire();
+            try {
+                deleteExistingAssets(existingAssets, assetIndex, retryPolicy);
+            } finally {
+                scheduler.release();
+            }
+        }
+    }
+
+    private void deleteExistingAssets(List<GHAsset> existingAssets, ReleaseAssetIndex assetIndex,
+                                      RetryPolicy retryPolicy) throws MojoExecutionException {
+        // There should only ever be one but...
+        for (GHAsset existingAsset : existingAssets) {
+            logInfo(getLog(), "    Deleting existing asset {0}", existingAsset.getName());
+            try {
+                retryPolicy.execute("Deleting asset " + existingAsset.getName(), () -> {
+                    deleteAsset(existingAsset);
+                    return existingAsset;
+                }, null);
+                assetIndex.remove(existingAsset);
+            } catch (IOException ex) {
+                throw getMojoExecutionException(ex, "Failed to delete existing asset {0}", existingAsset.getName());
+            }
+        }
+    }
+
+    private TransferListener getTransferListener(UploadProgress.Transfer transfer) {
+        // Each attempt gets a fresh per-asset limiter so that a retry does not start in debt
+        BandwidthLimiter assetLimiter = maxAssetUploadRate > 0 ? new BandwidthLimiter(maxAssetUploadRate * 1024L)
+                : null;
+        BandwidthLimiter sharedLimiter = bandwidthLimiter;
+        if (assetLimiter == null && sharedLimiter == null) {
+            return transfer;
+        }
+        return count -> {
+            transfer.bytesTransferred(count);
+            if (assetLimiter != null) {
+                assetLimiter.acquire(count);
+            }
+            if (sharedLimiter != null) {
+                sharedLimiter.acquire(count);
+            }
+        };
+    }
+
+    private static void recordDigests(Map<String, ChecksumManifest> manifests, String assetName,
+                                      Map<String, String> digests) {
+        for (Map.Entry<String, ChecksumManifest> manifest : manifests.entrySet()) {
+            manifest.getValue().put(assetName, digests.get(manifest.getKey()));
+        }
+    }
+
+    private static boolean isUnchanged(List<GHAsset> existingAssets, File file, String digest,
+                                       ChecksumManifest manifest) {
+        if (existingAssets.size() != 1) {
+            return false;
+        }
+        GHAsset existingAsset = existingAssets.get(0);
+        return "uploaded".equals(existingAsset.getState()) && existingAsset.getSize() == file.length()
+                && digest.equals(manifest.get(existingAsset.getName()));
+    }
+
+    private void publishChecksumManifest(ReleaseHandle releaseHandle, ReleaseAssetClient assetClient,
+                                         ReleaseAssetIndex assetIndex, String manifestName,
+                                         ChecksumManifest manifest, RetryPolicy retryPolicy)
+            throws MojoExecutionException {
+        GHRelease release = releaseHandle.getRelease();
+        // Executions sharing the release in a multi-module build publish the manifest one at a time
+        synchronized (manifest) {
+            manifest.retainAll(assetName -> !assetIndex.get(assetName).isEmpty());
+            if (!manifest.isModified()) {
+                logDebug(getLog(), "Checksum manifest {0} is unchanged", manifestName);
+                return;
+            }
+
+            logInfo(getLog(), "    Publishing checksum manifest {0} with {1} entries", manifestName,
+                    manifest.size());
+            byte[] content = manifest.toBytes();
+            List<GHAsset> existingManifests = assetIndex.get(manifestName);
+            boolean swap = swapExistingAssets && !existingManifests.isEmpty();
+            try {
+                if (!swap) {
+                    for (GHAsset existingManifest : existingManifests) {
+                        retryPolicy.execute("Deleting asset " + manifestName, () -> {
+                            deleteAsset(existingManifest);
+                            return existingManifest;
+                        }, null);
+                        assetIndex.remove(existingManifest);
+                    }
+                }
+                String uploadName = swap ? prepareTemporaryAsset(assetIndex, manifestName, retryPolicy) :
+                        manifestName;
+                GHAsset uploadedManifest = report.time("publish checksum manifest",
+                        () -> retryPolicy.execute("Uploading asset " + manifestName,
+                                () -> assetClient.uploadAsset(release, content, uploadName, "text/plain"),
+                                failure -> reconcileFailedUpload(releaseHandle, uploadName, content.length)));
+                if (swap) {
+                    uploadedManifest = swapAsset(release, assetClient, assetIndex, existingManifests,
+                            uploadedManifest, manifestName, retryPolicy);
+                }
+                assetIndex.add(uploadedManifest);
+            } catch (IOException ex) {
+                throw getMojoExecutionException(ex, "Failed to publish checksum manifest {0}: {1}",
+                        manifestName, ex.getMessage());
+            }
+            manifest.markPublished();
+        }
+    }
+
+    // After an upload fails, GitHub may have created the asset in the "starter" state or may even have
+    // completed the upload without us receiving the response, so check before uploading the file again.
+    private String prepareTemporaryAsset(ReleaseAssetIndex assetIndex, String assetName, RetryPolicy retryPolicy)
+            throws MojoExecutionException {
+        String temporaryName = assetName + TEMPORARY_ASSET_SUFFIX;
+        List<GHAsset> staleAssets = assetIndex.get(temporaryName);
+        if (!staleAssets.isEmpty()) {
+            logInfo(getLog(), "    Deleting asset {0} left by an earlier failed swap", temporaryName);
+            deleteExistingAssets(staleAssets, assetIndex, retryPolicy);
+        }
+        return temporaryName;
+    }
+
+    private GHAsset swapAsset(GHRelease release, ReleaseAssetClient assetClient, ReleaseAssetIndex assetIndex,
+                              List<GHAsset> existingAssets, GHAsset uploadedAsset, String assetName,
+                              RetryPolicy retryPolicy) throws IOException {
+        try {
+            swapPermits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to swap asset " + assetName);
+        }
+        long start = System.nanoTime();
+        boolean swapped = false;
+        try {
+            logInfo(getLog(), "    Swapping asset {0} into place", assetName);
+            // Asset names are unique within a release, so the existing asset has to move out of the way first
+            List<GHAsset> renamedAssets = new ArrayList<>();
+            GHAsset result;
+            try {
+                for (GHAsset existingAsset : existingAssets) {
+                    String replacedName = assetName + '.' + existingAsset.getId() + REPLACED_ASSET_SUFFIX;
+                    renamedAssets.add(retryPolicy.execute("Renaming asset " + assetName,
+                            () -> assetClient.renameAsset(release, existingAsset, replacedName), null));
+                }
+                result = retryPolicy.execute("Renaming asset " + uploadedAsset.getName(),
+                        () -> assetClient.renameAsset(release, uploadedAsset, assetName), null);
+            } catch (IOException ex) {
+                restoreAssets(release, assetClient, assetIndex, existingAssets, renamedAssets, retryPolicy, ex);
+                throw ex;
+            }
+            for (GHAsset existingAsset : existingAssets) {
+                assetIndex.remove(existingAsset);
+            }
+            for (GHAsset renamedAsset : renamedAssets) {
+                retryPolicy.execute("Deleting asset " + renamedAsset.getName(), () -> {
+                    deleteAsset(renamedAsset);
+                    return renamedAsset;
+                }, null);
+            }
+            swapped = true;
+            return result;
+        } finally {
+            report.recordOperation("swap asset", System.nanoTime() - start, swapped);
+            swapPermits.release();
+        }
+    }
+
+    // Move every asset renamed out of the way back to its original name.  An asset that cannot be restored stays
+    // under its temporary name, so the index is updated to match and the failure names it for manual cleanup.
+    private void restoreAssets(GHRelease release, ReleaseAssetClient assetClient, ReleaseAssetIndex assetIndex,
+                               List<GHAsset> existingAssets, List<GHAsset> renamedAssets, RetryPolicy retryPolicy,
+                               IOException swapFailure) throws IOException {
+        List<String> leftoverNames = new ArrayList<>();
+        for (int i = 0; i < renamedAssets.size(); i++) {
+            GHAsset existingAsset = existingAssets.get(i);
+            GHAsset renamedAsset = renamedAssets.get(i);
+            String originalName = existingAsset.getName();
+            assetIndex.remove(existingAsset);
+            try {
+                assetIndex.add(retryPolicy.execute("Restoring asset " + originalName,
+                        () -> assetClient.renameAsset(release, renamedAsset, originalName), null));
+                logInfo(getLog(), "    Restored asset {0} after the failed swap", originalName);
+            } catch (IOException ex) {
+                logWarn(getLog(), "Failed to restore asset {0} from {1} after the failed swap: {2}", originalName,
+                        renamedAsset.getName(), ex.getMessage());
+                assetIndex.add(renamedAsset);
+                leftoverNames.add(renamedAsset.getName());
+                swapFailure.addSuppressed(ex);
+            }
+        }
+        if (!leftoverNames.isEmpty()) {
+            throw new IOException(swapFailure.getMessage() + "; the replaced assets could not be restored and " +
+                    "remain as " + StringUtils.join(leftoverNames, ", "), swapFailure);
+        }
+    }
+
+    private GHAsset reconcileFailedUpload(ReleaseHandle releaseHandle, String assetName, long size)
+            throws IOException {
+        // Only a listing started after the failure shows what it left behind; concurrent failures share one
+        for (GHAsset asset : releaseHandle.listAssetsAfter(System.nanoTime())) {
+            if (!asset.getName().equals(assetName)) {
+                continue;
+            }
+            if ("uploaded".equals(asset.getState()) && asset.getSize() == size) {
+                logInfo(getLog(), "    Asset {0} was uploaded successfully despite the error", asset.getName());
+                return asset;
+            }
+            logInfo(getLog(), "    Deleting incomplete asset {0} in state {1} left by the failed upload",
+                    asset.getName(), asset.getState());
+            deleteAsset(asset);
+            // Asset names are unique within a release
+            break;
+        }
+        return null;
+    }
+
+    private void deleteAsset(GHAsset asset) throws IOException {
+        report.time("delete asset", () -> {
+            try {
+                asset.delete();
+            } catch (FileNotFoundException ex) {
+                // The asset is already gone, possibly deleted by an earlier attempt whose response was lost
+            }
+            return asset;
+        });
+    }
+
+    static String getMimeTypeFromFileExtension(String fileName, Map<String, String> mimeTypeMap)
+            throws MojoExecutionException {
         if (StringUtils.isEmpty(fileName)) {
             throw getMojoExecutionException("Asset file name was empty");
         } else if (fileName.lastIndexOf('.') == -1) {
@@ -413,8 +1734,8 @@ public class CreateReleaseMojo extends AbstractMojo implements Contextualizable
 
         Path filePath = file.toPath();
         StringBuilder contents = new StringBuilder();
-        try {
-            Files.lines(filePath).forEachOrdered(line -> {
+        try (Stream<String> lines = Files.lines(filePath)) {
+            lines.forEachOrdered(line -> {
                 contents.append(line);
                 contents.append('\n');
             });
@@ -0,0 +1,124 @@
+/*
+ * FileDigester.java - This file contains the utility methods for computing the digests of asset files.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class computes the digests of asset files.  Files are memory-mapped one window at a time and each window
+ * is fed to every requested digest before moving on to the next, so computing several digests reads the file
+ * from disk only once.
+ */
+public final class FileDigester {
+    /**
+     * The digest algorithm used to determine whether an asset has changed.
+     */
+    public static final String SHA_256 = "SHA-256";
+
+    // Mapping the file in windows bounds the address space used for multi-GB assets
+    static final long MAP_WINDOW_SIZE = 64L * 1024 * 1024;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private FileDigester() {
+        // hide the constructor
+    }
+
+    /**
+     * Compute the digest of the file.
+     *
+     * @param file      the file
+     * @param algorithm the digest algorithm (e.g., SHA-256)
+     * @return the lowercase hex-encoded digest
+     * @throws IOException if the file could not be read or the algorithm is not supported
+     */
+    public static String digest(File file, String algorithm) throws IOException {
+        return digest(file, Collections.singletonList(algorithm)).get(algorithm);
+    }
+
+    /**
+     * Compute several digests of the file in a single pass over its content.
+     *
+     * @param file       the file
+     * @param algorithms the digest algorithms (e.g., SHA-256 and SHA-512)
+     * @return the map of algorithm to lowercase hex-encoded digest, in the order of the algorithms
+     * @throws IOException if the file could not be read or an algorithm is not supported
+     */
+    public static Map<String, String> digest(File file, Collection<String> algorithms) throws IOException {
+        List<MessageDigest> digests = new ArrayList<>(algorithms.size());
+        for (String algorithm : algorithms) {
+            digests.add(getMessageDigest(algorithm));
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW_SIZE) {
+                MappedByteBuffer window =
+                    channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_SIZE, size - position));
+                for (MessageDigest digest : digests) {
+                    digest.update(window.duplicate());
+                }
+            }
+        }
+
+        Map<String, String> result = new LinkedHashMap<>();
+        int index = 0;
+        for (String algorithm : algorithms) {
+            result.put(algorithm, toHex(digests.get(index++).digest()));
+        }
+        return result;
+    }
+
+    /**
+     * Validate that the digest algorithm is supported by this JVM.
+     *
+     * @param algorithm the digest algorithm
+     * @throws IOException if the algorithm is not supported
+     */
+    public static void validateAlgorithm(String algorithm) throws IOException {
+        getMessageDigest(algorithm);
+    }
+
+    static MessageDigest getMessageDigest(String algorithm) throws IOException {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException("Digest algorithm " + algorithm + " is not supported", ex);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] result = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+            result[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0xF];
+        }
+        return new String(result);
+    }
+}
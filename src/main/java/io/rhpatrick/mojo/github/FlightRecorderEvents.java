@@ -0,0 +1,226 @@
+/*
+ * FlightRecorderEvents.java - This file contains the Java Flight Recorder events emitted by the plugin.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+/**
+ * This class emits Java Flight Recorder events for each GitHub API request and each asset upload so that the
+ * plugin's activity can be correlated with GC and I/O activity in the same recording.  The events are in the
+ * GitHub Maven Plugin category and are enabled by default in any recording.  On JVMs without Flight Recorder,
+ * such as older Java 8 builds, the event classes are never loaded and no events are emitted.  When no
+ * recording is running, the cost of an event is a single check of whether it is enabled.
+ */
+public final class FlightRecorderEvents {
+    private static final String CATEGORY = "GitHub Maven Plugin";
+    private static final boolean AVAILABLE = isFlightRecorderAvailable();
+
+    /**
+     * An asset upload that is being recorded.
+     */
+    public interface UploadRecording {
+        /**
+         * End the upload and emit its event if it is enabled.
+         *
+         * @param retries   the number of times the upload was retried
+         * @param succeeded whether the upload succeeded
+         */
+        void end(int retries, boolean succeeded);
+    }
+
+    /**
+     * An API request that is being recorded.
+     */
+    public interface RequestRecording {
+        /**
+         * End the request and emit its event if it is enabled.
+         *
+         * @param status             the HTTP status of the response, or -1 if no response was received
+         * @param rateLimitRemaining the value of the rate limit remaining header of the response, or null
+         * @param bytesSent          the number of request body bytes sent
+         */
+        void end(int status, String rateLimitRemaining, long bytesSent);
+    }
+
+    private static final UploadRecording NO_RECORDING = (retries, succeeded) -> { };
+    private static final RequestRecording NO_REQUEST_RECORDING = (status, rateLimitRemaining, bytesSent) -> { };
+
+    private FlightRecorderEvents() { /* Hide constructor for utility class */ }
+
+    /**
+     * Wrap the connector so that every request sent through it emits an API request event.
+     *
+     * @param connector the connector to wrap
+     * @return the wrapped connector, or the connector itself if Flight Recorder is not available
+     */
+    public static GitHubConnector track(GitHubConnector connector) {
+        return AVAILABLE ? EventSupport.track(connector) : connector;
+    }
+
+    /**
+     * Start recording an API request that is not sent through a tracked connector, such as an asset upload.
+     *
+     * @param method the HTTP method
+     * @param path   the request path
+     * @return the request recording to end once the response is received
+     */
+    public static RequestRecording beginRequest(String method, String path) {
+        return AVAILABLE ? EventSupport.beginRequest(method, path) : NO_REQUEST_RECORDING;
+    }
+
+    /**
+     * Start recording an asset upload.
+     *
+     * @param assetName the asset name
+     * @param size      the asset size in bytes
+     * @return the upload recording to end once the upload completes
+     */
+    public static UploadRecording beginUpload(String assetName, long size) {
+        return AVAILABLE ? EventSupport.beginUpload(assetName, size) : NO_RECORDING;
+    }
+
+    private static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+    // Only loaded once Flight Recorder is known to be available
+    private static final class EventSupport {
+        private static GitHubConnector track(GitHubConnector connector) {
+            return request -> {
+                RequestRecording recording = beginRequest(request.method(), request.url().getPath());
+                int status = -1;
+                String rateLimitRemaining = null;
+                try {
+                    GitHubConnectorResponse response = connector.send(request);
+                    status = response.statusCode();
+                    rateLimitRemaining = response.header(RateLimitScheduler.REMAINING_HEADER);
+                    return response;
+                } finally {
+                    recording.end(status, rateLimitRemaining, 0);
+                }
+            };
+        }
+
+        private static RequestRecording beginRequest(String method, String path) {
+            ApiRequestEvent event = new ApiRequestEvent();
+            if (!event.isEnabled()) {
+                return NO_REQUEST_RECORDING;
+            }
+            event.begin();
+            return (status, rateLimitRemaining, bytesSent) -> {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.method = method;
+                    event.endpoint = ApiRequestLog.getEndpoint(path);
+                    event.status = status;
+                    event.rateLimitRemaining = RateLimitScheduler.parseInt(rateLimitRemaining);
+                    event.bytesSent = bytesSent;
+                    event.commit();
+                }
+            };
+        }
+
+        private static UploadRecording beginUpload(String assetName, long size) {
+            AssetUploadEvent event = new AssetUploadEvent();
+            if (!event.isEnabled()) {
+                return NO_RECORDING;
+            }
+            long start = System.nanoTime();
+            event.begin();
+            return (retries, succeeded) -> {
+                event.end();
+                if (event.shouldCommit()) {
+                    long elapsedNanos = System.nanoTime() - start;
+                    event.assetName = assetName;
+                    event.size = size;
+                    event.retries = retries;
+                    event.succeeded = succeeded;
+                    event.bytesPerSecond = !succeeded || elapsedNanos <= 0 ? 0 :
+                            (long) (size * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos);
+                    event.commit();
+                }
+            };
+        }
+    }
+
+    @Name("io.rhpatrick.mojo.github.ApiRequest")
+    @Label("GitHub API Request")
+    @Description("A request sent to the GitHub API")
+    @Category(CATEGORY)
+    static final class ApiRequestEvent extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Endpoint")
+        @Description("The request path with the repository, tag, and IDs replaced by placeholders")
+        String endpoint;
+
+        @Label("Status")
+        @Description("The HTTP status of the response, or -1 if no response was received")
+        int status = -1;
+
+        @Label("Rate Limit Remaining")
+        @Description("The remaining primary rate limit budget reported by the response, or -1 if not reported")
+        int rateLimitRemaining = -1;
+
+        @Label("Bytes Sent")
+        @Description("The number of request body bytes sent by an asset transfer, or 0 for other requests")
+        @DataAmount
+        long bytesSent;
+    }
+
+    @Name("io.rhpatrick.mojo.github.AssetUpload")
+    @Label("GitHub Asset Upload")
+    @Description("The upload of a release asset, including any retries")
+    @Category(CATEGORY)
+    static final class AssetUploadEvent extends Event {
+        @Label("Asset Name")
+        String assetName;
+
+        @Label("Size")
+        @DataAmount
+        long size;
+
+        @Label("Throughput")
+        @Description("The average number of bytes uploaded per second, or 0 if the upload failed")
+        @DataAmount
+        @Frequency
+        long bytesPerSecond;
+
+        @Label("Retries")
+        int retries;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * GitHubConnectorFactory.java - This file contains the factory for the HTTP connector used by the GitHub client.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.extras.HttpClientGitHubConnector;
+import org.kohsuke.github.extras.okhttp3.OkHttpGitHubConnector;
+
+import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
+import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
+import static io.rhpatrick.mojo.github.MavenUtils.logWarn;
+
+/**
+ * This class creates the HTTP connector used by the GitHub client.  By default, the GitHub API for Java
+ * default connector is used.  The OkHttp connector keeps a pool of warm connections that are shared by all
+ * threads using the client and negotiates HTTP/2 with GitHub so that concurrent requests are multiplexed
+ * over those connections.  When a response cache directory is configured, the OkHttp connector is used with
+ * an on-disk HTTP cache.  Every request served from the cache is revalidated with GitHub using its ETag so
+ * that unchanged data is returned as a 304 response, which does not count against the GitHub rate limit.
+ * A cache directory is locked for as long as the JVM runs, and a build that finds the directory locked by
+ * another build does not cache responses.  Release assets are always transferred with an OkHttp client that
+ * shares the OkHttp connector's connection pool, whichever connector is used for the API calls.
+ */
+public final class GitHubConnectorFactory {
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+    private static final String RESPONSE_CACHE_LOCK_FILE = "cache.lock";
+
+    // OkHttp does not allow more than one Cache instance per directory so share them across executions
+    private static final Map<File, Cache> RESPONSE_CACHES = new ConcurrentHashMap<>();
+    // The locks on the cache directories in use, which are held until the JVM exits
+    private static final Map<File, FileLock> RESPONSE_CACHE_LOCKS = new ConcurrentHashMap<>();
+    // OkHttp clients should be shared so that their connection pools are shared
+    private static final Map<String, OkHttpClient> OKHTTP_CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * The supported HTTP connectors.
+     */
+    public enum ConnectorType {
+        /** The GitHub API for Java default connector. */
+        DEFAULT,
+        /** The pooled, HTTP/2-capable OkHttp connector. */
+        OKHTTP,
+        /** The java.net.http.HttpClient connector, which requires Java 11 or newer. */
+        HTTP_CLIENT
+    }
+
+    private ConnectorType connectorType = ConnectorType.DEFAULT;
+    private int connectionPoolSize = 5;
+    private long keepAliveSeconds = 300;
+    private long connectTimeoutSeconds = 10;
+    private long readTimeoutSeconds = 60;
+    private File responseCacheDirectory;
+    private long responseCacheSizeMegabytes;
+    private ApiRequestLog requestLog;
+
+    /**
+     * Set the type of connector to create.
+     *
+     * @param type the connector type
+     * @return this factory
+     */
+    public GitHubConnectorFactory withConnectorType(ConnectorType type) {
+        this.connectorType = type == null ? ConnectorType.DEFAULT : type;
+        return this;
+    }
+
+    /**
+     * Configure the connection pool of the OkHttp connector.
+     *
+     * @param maxIdleConnections the maximum number of idle connections to keep open
+     * @param keepAliveSeconds   the number of seconds to keep an idle connection open
+     * @return this factory
+     */
+    public GitHubConnectorFactory withConnectionPool(int maxIdleConnections, long keepAliveSeconds) {
+        this.connectionPoolSize = maxIdleConnections;
+        this.keepAliveSeconds = keepAliveSeconds;
+        return this;
+    }
+
+    /**
+     * Configure the timeouts of the OkHttp connector.  A value of zero means no timeout.
+     *
+     * @param connectTimeoutSeconds the connect timeout, in seconds
+     * @param readTimeoutSeconds    the read and write timeout, in seconds
+     * @return this factory
+     */
+    public GitHubConnectorFactory withTimeouts(long connectTimeoutSeconds, long readTimeoutSeconds) {
+        this.connectTimeoutSeconds = connectTimeoutSeconds;
+        this.readTimeoutSeconds = readTimeoutSeconds;
+        return this;
+    }
+
+    /**
+     * Enable the on-disk response cache, which requires the OkHttp connector.
+     *
+     * @param directory     the directory to use to store the cached responses
+     * @param sizeMegabytes the maximum size of the cache in megabytes
+     * @return this factory
+     */
+    public GitHubConnectorFactory withResponseCache(File directory, long sizeMegabytes) {
+        this.responseCacheDirectory = directory;
+        this.responseCacheSizeMegabytes = sizeMegabytes;
+        return this;
+    }
+
+    /**
+     * Record every request sent through the connector in the request log.
+     *
+     * @param requestLog the request log, or null to not record the requests
+     * @return this factory
+     */
+    public GitHubConnectorFactory withRequestLog(ApiRequestLog requestLog) {
+        this.requestLog = requestLog;
+        return this;
+    }
+
+    /**
+     * Create the connector to use for the GitHub client.
+     *
+     * @param logger the Maven logger to use
+     * @return the connector
+     * @throws MojoExecutionException if the connector configuration is invalid
+     */
+    public GitHubConnector create(Log logger) throws MojoExecutionException {
+        ConnectorType type = connectorType;
+        if (responseCacheDirectory != null) {
+            if (type == ConnectorType.HTTP_CLIENT) {
+                throw getMojoExecutionException("The response cache requires the {0} connector but the {1} " +
+                        "connector was configured", ConnectorType.OKHTTP, type);
+            }
+            type = ConnectorType.OKHTTP;
+        }
+
+        GitHubConnector result;
+        switch (type) {
+            case OKHTTP:
+                result = createOkHttpConnector(logger);
+                break;
+
+            case HTTP_CLIENT:
+                try {
+                    result = new HttpClientGitHubConnector();
+                } catch (UnsupportedOperationException ex) {
+                    throw getMojoExecutionException(ex, "The {0} connector is not supported on Java {1}",
+                            type, System.getProperty("java.specification.version"));
+                }
+                break;
+
+            default:
+                result = GitHubConnector.DEFAULT;
+                break;
+        }
+        logDebug(logger, "Using the {0} GitHub connector", type);
+        result = FlightRecorderEvents.track(result);
+        return requestLog == null ? result : requestLog.track(result);
+    }
+
+    /**
+     * Create the OkHttp client used to stream release assets to and from GitHub.  The client shares the
+     * connection pool and timeouts of the OkHttp connector, so uploads reuse the connections opened by API calls
+     * when the OkHttp connector is used.  It does not use the response cache and does not follow redirects.
+     *
+     * @param logger the Maven logger to use
+     * @return the OkHttp client
+     * @throws MojoExecutionException if the connection pool or timeout configuration is invalid
+     */
+    public OkHttpClient createAssetHttpClient(Log logger) throws MojoExecutionException {
+        return getOkHttpClient(logger).newBuilder()
+                .cache(null)
+                .followRedirects(false)
+                .followSslRedirects(false)
+                .build();
+    }
+
+    private GitHubConnector createOkHttpConnector(Log logger) throws MojoExecutionException {
+        // When caching, a max-age of zero forces every cached response to be revalidated with a conditional request
+        return new OkHttpGitHubConnector(getOkHttpClient(logger), 0);
+    }
+
+    private OkHttpClient getOkHttpClient(Log logger) throws MojoExecutionException {
+        if (connectionPoolSize < 0 || keepAliveSeconds <= 0) {
+            throw getMojoExecutionException("Invalid connection pool settings: pool size {0}, keep alive {1} seconds",
+                    connectionPoolSize, keepAliveSeconds);
+        }
+        if (connectTimeoutSeconds < 0 || readTimeoutSeconds < 0) {
+            throw getMojoExecutionException("Invalid timeout settings: connect timeout {0}, read timeout {1}",
+                    connectTimeoutSeconds, readTimeoutSeconds);
+        }
+
+        Cache cache = responseCacheDirectory == null ? null : getResponseCache(logger);
+        String key = connectionPoolSize + "|" + keepAliveSeconds + "|" + connectTimeoutSeconds + "|"
+                + readTimeoutSeconds + "|" + (cache == null ? "" : cache.directory().getPath());
+        return OKHTTP_CLIENTS.computeIfAbsent(key, k -> {
+            logDebug(logger, "Creating OkHttp client with pool size {0}, keep alive {1}s, connect timeout {2}s, " +
+                    "read timeout {3}s", connectionPoolSize, keepAliveSeconds, connectTimeoutSeconds,
+                    readTimeoutSeconds);
+            return new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(connectionPoolSize, keepAliveSeconds, TimeUnit.SECONDS))
+                    .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                    .readTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                    .writeTimeout(readTimeoutSeconds, TimeUnit.SECONDS)
+                    .cache(cache)
+                    .build();
+        });
+    }
+
+    private Cache getResponseCache(Log logger) throws MojoExecutionException {
+        if (responseCacheSizeMegabytes <= 0) {
+            throw getMojoExecutionException("Response cache size must be greater than zero but was {0}",
+                    responseCacheSizeMegabytes);
+        }
+        File directory = responseCacheDirectory.getAbsoluteFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw getMojoExecutionException("Failed to create response cache directory {0}", directory);
+        }
+
+        // No cache is stored for a directory that could not be locked, so the lock is tried again next time
+        return RESPONSE_CACHES.computeIfAbsent(directory, key -> {
+            if (!lockResponseCacheDirectory(key, logger)) {
+                return null;
+            }
+            logDebug(logger, "Using GitHub response cache directory {0} with maximum size {1} MB",
+                    key, responseCacheSizeMegabytes);
+            return new Cache(key, responseCacheSizeMegabytes * BYTES_PER_MEGABYTE);
+        });
+    }
+
+    // OkHttp assumes that it is the only user of a cache directory and corrupts the cache when another process
+    // writes to the same directory, so the directory is only used if this JVM is the one holding its lock
+    private static boolean lockResponseCacheDirectory(File directory, Log logger) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(new File(directory, RESPONSE_CACHE_LOCK_FILE).toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                RESPONSE_CACHE_LOCKS.put(directory, lock);
+                return true;
+            }
+        } catch (IOException | OverlappingFileLockException ex) {
+            logDebug(logger, "Failed to lock GitHub response cache directory {0}: {1}", directory, ex);
+        }
+        closeQuietly(channel);
+        logWarn(logger, "GitHub response cache directory {0} is in use by another build so GitHub API responses " +
+                "will not be cached", directory);
+        return false;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+                // The channel was only opened to take the lock
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * GitHubSessionContext.java - This file contains the GitHub objects shared across a Maven session.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.kohsuke.github.GHAsset;
+import org.kohsuke.github.GHRelease;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+
+import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
+import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
+
+/**
+ * This class holds the GitHub client, repository, and release objects that are shared by all executions
+ * within a single Maven session so that a multi-module build connects to GitHub and resolves the repository
+ * and release only once.  Each object is loaded by the first execution that needs it; concurrent executions
+ * in a parallel build wait for that load to complete rather than loading the object themselves, so only
+ * one of them ever creates a given release.
+ */
+public final class GitHubSessionContext {
+    // Parallel builds clone the MavenSession for each project but share its execution request
+    private static final Map<Object, GitHubSessionContext> CONTEXTS = new WeakHashMap<>();
+
+    private final ConcurrentMap<String, Future<RateLimitScheduler>> schedulers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Future<BandwidthLimiter>> bandwidthLimiters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Future<Semaphore>> swapPermits = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Future<GitHub>> clients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Future<ReleaseAssetClient>> assetClients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Future<GHRepository>> repositories = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Future<ReleaseHandle>> releases = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ReleaseAssetRegistry> assetRegistries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ApiRequestLog> requestLogs = new ConcurrentHashMap<>();
+
+    /**
+     * Loads a shared object the first time it is needed.
+     *
+     * @param <V> the type of the object to load
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        /**
+         * Load the object.
+         *
+         * @return the loaded object
+         * @throws MojoExecutionException if loading the object failed
+         */
+        V load() throws MojoExecutionException;
+    }
+
+    private GitHubSessionContext() {
+        // use forSession()
+    }
+
+    /**
+     * Get the context for the specified Maven session, creating it if needed.
+     *
+     * @param session the Maven session, or null to get a context that is not shared
+     * @return the context
+     */
+    public static GitHubSessionContext forSession(MavenSession session) {
+        if (session == null || session.getRequest() == null) {
+            return new GitHubSessionContext();
+        }
+        synchronized (CONTEXTS) {
+            return CONTEXTS.computeIfAbsent(session.getRequest(), key -> new GitHubSessionContext());
+        }
+    }
+
+    /**
+     * Get the rate limit scheduler for the endpoint.  All executions using the same server ID and API URL share
+     * the same token and, therefore, the same rate limits.
+     *
+     * @param endpointKey the server ID from settings.xml used for authentication and the API URL
+     * @param loader      the loader used to create the scheduler if it does not yet exist
+     * @return the rate limit scheduler
+     * @throws MojoExecutionException if creating the scheduler failed
+     */
+    public RateLimitScheduler getRateLimitScheduler(String endpointKey, Loader<RateLimitScheduler> loader)
+            throws MojoExecutionException {
+        return getOrLoad(schedulers, endpointKey, loader);
+    }
+
+    /**
+     * Get the limiter of the combined upload bandwidth for the endpoint, which is shared by all executions
+     * uploading assets so that parallel module builds stay within the same limit.  The limiter keeps the rate
+     * it was created with, so callers should check its rate against the one they were configured with.
+     *
+     * @param endpointKey the server ID from settings.xml used for authentication and the API URL
+     * @param loader      the loader used to create the limiter if it does not yet exist
+     * @return the bandwidth limiter
+     * @throws MojoExecutionException if creating the limiter failed
+     */
+    public BandwidthLimiter getBandwidthLimiter(String endpointKey, Loader<BandwidthLimiter> loader)
+            throws MojoExecutionException {
+        return getOrLoad(bandwidthLimiters, endpointKey, loader);
+    }
+
+    /**
+     * Get the permits for swapping replaced assets, which are shared by all executions with the same key so
+     * that the renames and deletions of parallel module builds stay within the same limit.  The key includes
+     * the number of permits, since a semaphore cannot report the number it was created with.
+     *
+     * @param permitsKey the server ID from settings.xml used for authentication, the API URL and the number
+     *                   of permits
+     * @param loader     the loader used to create the permits if they do not yet exist
+     * @return the swap permits
+     * @throws MojoExecutionException if creating the permits failed
+     */
+    public Semaphore getSwapPermits(String permitsKey, Loader<Semaphore> loader) throws MojoExecutionException {
+        return getOrLoad(swapPermits, permitsKey, loader);
+    }
+
+    /**
+     * Get the log of the GitHub API requests made to the endpoint.
+     *
+     * @param endpointKey the server ID from settings.xml used for authentication and the API URL
+     * @return the request log
+     */
+    public ApiRequestLog getApiRequestLog(String endpointKey) {
+        return requestLogs.computeIfAbsent(endpointKey, key -> new ApiRequestLog());
+    }
+
+    /**
+     * Get the GitHub client for the client key.  The key must include everything the client is configured with,
+     * such as the API URL and the connector settings, so that executions configured differently never get a
+     * client created for another configuration.
+     *
+     * @param clientKey the server ID from settings.xml used for authentication, the API URL, and the connector
+     *                  settings
+     * @param loader    the loader used to connect to GitHub if this session is not yet connected
+     * @return the GitHub client
+     * @throws MojoExecutionException if connecting to GitHub failed
+     */
+    public GitHub getClient(String clientKey, Loader<GitHub> loader) throws MojoExecutionException {
+        return getOrLoad(clients, clientKey, loader);
+    }
+
+    /**
+     * Get the release asset client for the client key.
+     *
+     * @param clientKey the server ID from settings.xml used for authentication, the API URL, and the connector
+     *                  settings
+     * @param loader    the loader used to create the asset client if it does not yet exist
+     * @return the release asset client
+     * @throws MojoExecutionException if creating the asset client failed
+     */
+    public ReleaseAssetClient getAssetClient(String clientKey, Loader<ReleaseAssetClient> loader)
+            throws MojoExecutionException {
+        return getOrLoad(assetClients, clientKey, loader);
+    }
+
+    /**
+     * Get the GitHub repository.
+     *
+     * @param endpointKey  the server ID from settings.xml used for authentication and the API URL
+     * @param repositoryId the repository ID
+     * @param loader       the loader used to get the repository if it has not yet been loaded
+     * @return the GitHub API repository object
+     * @throws MojoExecutionException if getting the repository failed
+     */
+    public GHRepository getRepository(String endpointKey, String repositoryId, Loader<GHRepository> loader)
+            throws MojoExecutionException {
+        return getOrLoad(repositories, endpointKey + '|' + repositoryId, loader);
+    }
+
+    /**
+     * Get the release for the tag, which is only ever found or created once per session.
+     *
+     * @param endpointKey  the server ID from settings.xml used for authentication and the API URL
+     * @param repositoryId the repository ID
+     * @param tag          the tag name of the release
+     * @param loader       the loader used to find or create the release if it has not yet been loaded
+     * @return the release handle
+     * @throws MojoExecutionException if finding or creating the release failed
+     */
+    public ReleaseHandle getRelease(String endpointKey, String repositoryId, String tag, Loader<ReleaseHandle> loader)
+            throws MojoExecutionException {
+        return getOrLoad(releases, endpointKey + '|' + repositoryId + '|' + tag, loader);
+    }
+
+    /**
+     * Get the registry that collects the assets of all projects publishing to the release for the tag.
+     *
+     * @param endpointKey  the server ID from settings.xml used for authentication and the API URL
+     * @param repositoryId the repository ID
+     * @param tag          the tag name of the release
+     * @return the asset registry
+     */
+    public ReleaseAssetRegistry getAssetRegistry(String endpointKey, String repositoryId, String tag) {
+        return assetRegistries.computeIfAbsent(endpointKey + '|' + repositoryId + '|' + tag,
+                key -> new ReleaseAssetRegistry());
+    }
+
+    private static <V> V getOrLoad(ConcurrentMap<String, Future<V>> cache, String key, Loader<V> loader)
+            throws MojoExecutionException {
+        FutureTask<V> task = new FutureTask<>(loader::load);
+        Future<V> future = cache.putIfAbsent(key, task);
+        if (future == null) {
+            future = task;
+            task.run();
+        }
+
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            // Allow a later execution to try again
+            cache.remove(key, future);
+            Throwable cause = ex.getCause();
+            if (cause instanceof MojoExecutionException) {
+                throw (MojoExecutionException) cause;
+            }
+            throw getMojoExecutionException(ex, "Failed to load {0}: {1}", key, cause.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw getMojoExecutionException(ex, "Interrupted while waiting to load {0}", key);
+        }
+    }
+
+    /**
+     * A release resolved by this session along with the index of its assets.
+     */
+    public static final class ReleaseHandle {
+        private final GHRelease release;
+        private final boolean created;
+        private ReleaseAssetIndex assetIndex;
+        private final Map<String, ChecksumManifest> checksumManifests = new HashMap<>();
+        private final Object listingLock = new Object();
+        private List<GHAsset> listedAssets;
+        private long listingStartNanos;
+
+        /**
+         * Constructor.
+         *
+         * @param release the GitHub API release object
+         * @param created whether the release was created by this session
+         */
+        public ReleaseHandle(GHRelease release, boolean created) {
+            this.release = release;
+            this.created = created;
+        }
+
+        /**
+         * Get the release.
+         *
+         * @return the GitHub API release object
+         */
+        public GHRelease getRelease() {
+            return release;
+        }
+
+        /**
+         * Whether the release was created by this session.
+         *
+         * @return true if the release was created by this session, false if it already existed
+         */
+        public boolean isCreated() {
+            return created;
+        }
+
+        /**
+         * Get the index of the release's assets.  The release's assets are listed only the first time this is
+         * called and never for a release created by this session, since all of its assets were uploaded by
+         * this session and are already in the index.
+         *
+         * @param logger the Maven logger to use
+         * @return the asset index
+         * @throws MojoExecutionException if listing the release assets fails
+         */
+        public synchronized ReleaseAssetIndex getAssetIndex(Log logger) throws MojoExecutionException {
+            if (assetIndex == null) {
+                assetIndex = created ? ReleaseAssetIndex.empty() : ReleaseAssetIndex.load(release, logger);
+            }
+            return assetIndex;
+        }
+
+        /**
+         * List the release's assets as they are now, for example to find out what a failed upload left behind.
+         * Unlike the asset index, this lists the assets again, but callers that ask at the same time share a
+         * single listing: a listing that started after the specified time is returned as is rather than
+         * repeated.
+         *
+         * @param notBeforeNanos the System.nanoTime() value after which the listing must have started
+         * @return the release's assets
+         * @throws IOException if listing the release assets fails
+         */
+        public List<GHAsset> listAssetsAfter(long notBeforeNanos) throws IOException {
+            synchronized (listingLock) {
+                if (listedAssets == null || listingStartNanos - notBeforeNanos < 0) {
+                    listingStartNanos = System.nanoTime();
+                    // A listing that fails is never shared
+                    listedAssets = null;
+                    listedAssets = release.listAssets().withPageSize(ReleaseAssetIndex.LIST_PAGE_SIZE).toList();
+                }
+                return listedAssets;
+            }
+        }
+
+        /**
+         * Get the checksum manifest published with the release.  The manifest is downloaded only the first time
+         * this is called and then kept up to date as assets are uploaded.
+         *
+         * @param manifestName the name of the manifest asset
+         * @param assetClient  the client used to download the manifest
+         * @param logger       the Maven logger to use
+         * @return the checksum manifest, which is empty if the release does not have one
+         * @throws MojoExecutionException if listing the release assets or downloading the manifest fails
+         */
+        public synchronized ChecksumManifest getChecksumManifest(String manifestName, ReleaseAssetClient assetClient,
+                                                                 Log logger) throws MojoExecutionException {
+            ChecksumManifest manifest = checksumManifests.get(manifestName);
+            if (manifest == null) {
+                manifest = new ChecksumManifest();
+                List<GHAsset> manifestAssets = getAssetIndex(logger).get(manifestName);
+                if (!manifestAssets.isEmpty()) {
+                    try {
+                        manifest = ChecksumManifest.parse(assetClient.downloadAsset(manifestAssets.get(0)));
+                    } catch (IOException ex) {
+                        throw getMojoExecutionException(ex, "Failed to download checksum manifest {0}: {1}",
+                                manifestName, ex.getMessage());
+                    }
+                    logDebug(logger, "Loaded {0} digests from checksum manifest {1} of release {2}",
+                            manifest.size(), manifestName, release.getName());
+                }
+                checksumManifests.put(manifestName, manifest);
+            }
+            return manifest;
+        }
+    }
+}
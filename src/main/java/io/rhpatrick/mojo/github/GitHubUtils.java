@@ -31,16 +31,25 @@ import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
 import org.kohsuke.github.GitHubBuilder;
 import org.kohsuke.github.PagedIterable;
+import org.kohsuke.github.connector.GitHubConnector;
 
 import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
 import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
 import static io.rhpatrick.mojo.github.MavenUtils.logInfo;
+import static io.rhpatrick.mojo.github.MavenUtils.logWarn;
 
 /**
  * This class provides helper methods for interacting with GitHub.
  */
 public final class GitHubUtils {
+    /**
+     * The URL of the public GitHub REST API.
+     */
+    public static final String DEFAULT_API_URL = "https://api.github.com";
+
     private static final String AUTH_TOKEN_PROPERTY_NAME = "github.auth.token";
+    // The maximum page size supported by the GitHub REST API
+    private static final int RELEASE_PAGE_SIZE = 100;
 
     private GitHubUtils() { /* Hide constructor for utility class */ }
 
@@ -58,7 +67,81 @@ public final class GitHubUtils {
     public static GitHub connect(final PlexusContainer container, final Settings settings,
                                  final String serverId, Log logger)
             throws MojoExecutionException, IOException {
+        return connect(container, settings, serverId, new GitHubConnectorFactory(), null, logger);
+    }
 
+    /**
+     * Connect to GitHub using the HTTP connector created by the specified factory.
+     *
+     * @param container        the Maven Plexus container
+     * @param settings         the Maven settings object
+     * @param serverId         the server ID from settings.xml to use for authentication
+     * @param connectorFactory the factory to use to create the HTTP connector
+     * @param scheduler        the rate limit scheduler to track and handle the rate limits, or null to use the
+     *                         GitHub API for Java default rate limit handling
+     * @param logger           the Maven logger to use
+     * @return the GitHub API object
+     * @throws MojoExecutionException if a non-GitHub API error is detected
+     * @throws IOException            if a GitHub API method encounters an error
+     */
+    public static GitHub connect(final PlexusContainer container, final Settings settings,
+                                 final String serverId, final GitHubConnectorFactory connectorFactory,
+                                 final RateLimitScheduler scheduler, Log logger)
+            throws MojoExecutionException, IOException {
+        return connect(container, settings, serverId, DEFAULT_API_URL, connectorFactory, scheduler, logger);
+    }
+
+    /**
+     * Connect to the GitHub REST API at the specified URL using the HTTP connector created by the specified
+     * factory.
+     *
+     * @param container        the Maven Plexus container
+     * @param settings         the Maven settings object
+     * @param serverId         the server ID from settings.xml to use for authentication
+     * @param apiUrl           the URL of the GitHub REST API, such as that of a GitHub Enterprise Server
+     * @param connectorFactory the factory to use to create the HTTP connector
+     * @param scheduler        the rate limit scheduler to track and handle the rate limits, or null to use the
+     *                         GitHub API for Java default rate limit handling
+     * @param logger           the Maven logger to use
+     * @return the GitHub API object
+     * @throws MojoExecutionException if a non-GitHub API error is detected
+     * @throws IOException            if a GitHub API method encounters an error
+     */
+    public static GitHub connect(final PlexusContainer container, final Settings settings,
+                                 final String serverId, final String apiUrl,
+                                 final GitHubConnectorFactory connectorFactory,
+                                 final RateLimitScheduler scheduler, Log logger)
+            throws MojoExecutionException, IOException {
+        if (StringUtils.isEmpty(apiUrl)) {
+            throw new MojoExecutionException("connect() requires the API URL not to be empty");
+        }
+        String authToken = getAuthToken(container, settings, serverId, logger);
+        GitHubConnector connector = connectorFactory.create(logger);
+        GitHubBuilder builder = new GitHubBuilder().withEndpoint(apiUrl).withOAuthToken(authToken);
+        logDebug(logger, "Connecting to the GitHub REST API at {0}", apiUrl);
+        if (scheduler != null) {
+            builder.withConnector(scheduler.track(connector))
+                    .withRateLimitHandler(scheduler.getRateLimitHandler())
+                    .withAbuseLimitHandler(scheduler.getSecondaryLimitHandler());
+        } else {
+            builder.withConnector(connector);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the GitHub auth token from the system property or the server's passphrase in settings.xml.
+     * This also initializes the proxy settings from settings.xml.
+     *
+     * @param container the Maven Plexus container
+     * @param settings  the Maven settings object
+     * @param serverId  the server ID from settings.xml to use for authentication
+     * @param logger    the Maven logger to use
+     * @return the auth token
+     * @throws MojoExecutionException if the auth token could not be found
+     */
+    public static String getAuthToken(final PlexusContainer container, final Settings settings,
+                                      final String serverId, Log logger) throws MojoExecutionException {
         String authToken = System.getProperty(AUTH_TOKEN_PROPERTY_NAME);
         if (StringUtils.isNotEmpty(authToken)) {
             logDebug(logger,"Auth token found in system property {0}", AUTH_TOKEN_PROPERTY_NAME);
@@ -92,7 +175,83 @@ public final class GitHubUtils {
             }
             logDebug(logger, "Auth token found in settings.xml for server {0}", serverId);
         }
-        return new GitHubBuilder().withOAuthToken(authToken).build();
+        return authToken;
+    }
+
+    /**
+     * Find a GitHub Release by its tag and, optionally, by its name.  Since a tag can only have a single release,
+     * the tag lookup requires only one request.  The name-based lookup is only used when the tag lookup does not
+     * find a release and the caller asked for it since it must page through all of the repository's releases.
+     *
+     * @param repository     the GitHub API repository object
+     * @param tagName        the tag name of the release to use
+     * @param releaseName    the name of the release to use
+     * @param scanByName     whether to fall back to searching the releases by name
+     * @param logger         the Maven logger
+     * @return the GitHub API release object, or null of the release was not found
+     * @throws MojoExecutionException if a non-GitHub API error condition is detected
+     * @throws IOException            if a GitHub API encounters an error condition
+     */
+    public static GHRelease findRelease(GHRepository repository, String tagName, String releaseName,
+                                        boolean scanByName, Log logger) throws MojoExecutionException, IOException {
+        GHRelease result = findReleaseByTag(repository, tagName, logger);
+        if (result != null) {
+            if (!StringUtils.equals(releaseName, result.getName())) {
+                logWarn(logger, "Release {0} found for tag {1} in repository {2} does not match the " +
+                        "specified name {3}", result.getName(), tagName, repository.getName(), releaseName);
+            }
+        } else if (scanByName) {
+            logDebug(logger, "No release found for tag {0} in repository {1} so searching by name {2}",
+                    tagName, repository.getName(), releaseName);
+            result = findReleaseByName(repository, releaseName, logger);
+        }
+        return result;
+    }
+
+    /**
+     * Verify that a release found by findRelease() may be deleted or updated.  The tag lookup can find a release
+     * with a different name than the one specified, which a search by name would never have matched, so such a
+     * release is only changed if the caller explicitly allows it.
+     *
+     * @param release            the GitHub API release object
+     * @param releaseName        the name of the release to use
+     * @param action             the action about to be taken on the release (e.g., delete)
+     * @param allowNameMismatch  whether a release with a different name may be changed
+     * @throws MojoExecutionException if the release name does not match and the mismatch is not allowed
+     */
+    public static void checkReleaseName(GHRelease release, String releaseName, String action,
+                                        boolean allowNameMismatch) throws MojoExecutionException {
+        if (!allowNameMismatch && !StringUtils.equals(releaseName, release.getName())) {
+            throw getMojoExecutionException("Refusing to {0} release {1} for tag {2} since its name does not match " +
+                    "the specified name {3}; set allowReleaseNameMismatch to true to {0} it anyway", action,
+                    release.getName(), release.getTagName(), releaseName);
+        }
+    }
+
+    /**
+     * Find a GitHub Release by its tag name.
+     *
+     * @param repository the GitHub API repository object
+     * @param tagName    the tag name of the release to use
+     * @param logger     the Maven logger
+     * @return the GitHub API release object, or null of the release was not found
+     * @throws MojoExecutionException if a non-GitHub API error condition is detected
+     * @throws IOException            if a GitHub API encounters an error condition
+     */
+    public static GHRelease findReleaseByTag(GHRepository repository, String tagName, Log logger)
+            throws MojoExecutionException, IOException {
+        if (StringUtils.isEmpty(tagName)) {
+            throw getMojoExecutionException("findReleaseByTag() requires the tag name to not be empty");
+        }
+
+        GHRelease result = repository.getReleaseByTagName(tagName);
+        if (result != null) {
+            logDebug(logger, "Found release {0} with the tag {1} in repository {2}",
+                    result.getName(), tagName, repository.getName());
+        } else {
+            logDebug(logger, "Repository {0} has no release with the tag {1}", repository.getName(), tagName);
+        }
+        return result;
     }
 
     /**
@@ -112,7 +271,7 @@ public final class GitHubUtils {
         }
 
         GHRelease result = null;
-        PagedIterable<GHRelease> releases = repository.listReleases();
+        PagedIterable<GHRelease> releases = repository.listReleases().withPageSize(RELEASE_PAGE_SIZE);
         int count = 0;
         for (GHRelease release : releases) {
             count++;
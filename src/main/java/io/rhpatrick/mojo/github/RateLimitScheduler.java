@@ -0,0 +1,385 @@
+/*
+ * RateLimitScheduler.java - This file contains the scheduler that keeps GitHub requests within the rate limits.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.kohsuke.github.GitHubAbuseLimitHandler;
+import org.kohsuke.github.GitHubRateLimitHandler;
+import org.kohsuke.github.connector.GitHubConnector;
+import org.kohsuke.github.connector.GitHubConnectorResponse;
+
+import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
+import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
+import static io.rhpatrick.mojo.github.MavenUtils.logInfo;
+import static io.rhpatrick.mojo.github.MavenUtils.logWarn;
+
+/**
+ * This class keeps the plugin's GitHub requests within GitHub's rate limits.  It tracks the remaining primary
+ * rate limit budget reported in the response headers and pauses new work when the budget is exhausted until
+ * the limit resets.  When GitHub reports that a secondary rate limit was hit, it waits for the requested
+ * Retry-After time before retrying the request.
+ * <p>
+ * The number of concurrent operations (e.g., asset uploads) is adjusted using an additive-increase,
+ * multiplicative-decrease (AIMD) policy: each successful operation slowly raises the concurrency limit
+ * back toward the configured maximum, while each secondary rate limit response halves it.
+ */
+public final class RateLimitScheduler {
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+    static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private static final long DEFAULT_SECONDARY_LIMIT_WAIT_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final long RESET_GRACE_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private final Log logger;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    private int maxConcurrency;
+    private double concurrencyLimit;
+    private int inFlight;
+    private long lastDecreaseMillis;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong countedRequestCount = new AtomicLong();
+    private final AtomicLong secondaryLimitCount = new AtomicLong();
+    private volatile int remaining = -1;
+    private volatile int limit = -1;
+    private volatile long resetEpochSeconds = -1;
+
+    /**
+     * Constructor.
+     *
+     * @param maxConcurrency the maximum number of concurrent operations
+     * @param logger         the Maven logger to use
+     */
+    public RateLimitScheduler(int maxConcurrency, Log logger) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.concurrencyLimit = this.maxConcurrency;
+        this.logger = logger;
+    }
+
+    /**
+     * Wrap the connector so that the rate limit headers of every response are tracked by this scheduler.
+     *
+     * @param connector the connector to wrap
+     * @return the wrapped connector
+     */
+    public GitHubConnector track(GitHubConnector connector) {
+        return request -> {
+            GitHubConnectorResponse response = connector.send(request);
+            onResponse(response.statusCode(), response::header);
+            return response;
+        };
+    }
+
+    /**
+     * Get the handler to install in the GitHub client for primary rate limit errors.
+     *
+     * @return the primary rate limit handler
+     */
+    public GitHubRateLimitHandler getRateLimitHandler() {
+        return new GitHubRateLimitHandler() {
+            @Override
+            public void onError(GitHubConnectorResponse response) throws IOException {
+                long waitMillis = getPrimaryLimitWaitMillis(response::header);
+                logWarn(logger, "GitHub API rate limit exhausted, waiting {0} seconds for it to reset",
+                        TimeUnit.MILLISECONDS.toSeconds(waitMillis));
+                sleep(waitMillis);
+            }
+        };
+    }
+
+    /**
+     * Get the handler to install in the GitHub client for secondary rate limit errors.
+     *
+     * @return the secondary rate limit handler
+     */
+    public GitHubAbuseLimitHandler getSecondaryLimitHandler() {
+        return new GitHubAbuseLimitHandler() {
+            @Override
+            public void onError(GitHubConnectorResponse response) throws IOException {
+                sleep(onSecondaryRateLimit(response::header));
+            }
+        };
+    }
+
+    /**
+     * Record the rate limit information from a response.
+     *
+     * @param statusCode the HTTP status code of the response
+     * @param headers    the function used to get a response header value by name
+     */
+    public void onResponse(int statusCode, Function<String, String> headers) {
+        requestCount.incrementAndGet();
+        int responseRemaining = parseInt(headers.apply(REMAINING_HEADER));
+        if (responseRemaining >= 0) {
+            // Conditional requests answered with 304 Not Modified do not count against the rate limit
+            if (statusCode != 304) {
+                countedRequestCount.incrementAndGet();
+            }
+            int previousRemaining = remaining;
+            remaining = responseRemaining;
+            limit = parseInt(headers.apply(LIMIT_HEADER));
+            resetEpochSeconds = parseLong(headers.apply(RESET_HEADER));
+            if (previousRemaining == 0 && responseRemaining > 0) {
+                signalAll();
+            }
+        }
+    }
+
+    /**
+     * Record that GitHub responded with a secondary rate limit error and reduce the concurrency limit.
+     *
+     * @param headers the function used to get a response header value by name
+     * @return the number of milliseconds to wait before retrying the request
+     */
+    public long onSecondaryRateLimit(Function<String, String> headers) {
+        secondaryLimitCount.incrementAndGet();
+        long waitMillis = getSecondaryLimitWaitMillis(headers);
+
+        lock.lock();
+        try {
+            // Many in-flight requests typically hit the limit at once so only back off once per wait period
+            long now = System.currentTimeMillis();
+            if (now - lastDecreaseMillis >= waitMillis) {
+                concurrencyLimit = Math.max(1.0, concurrencyLimit / 2.0);
+                lastDecreaseMillis = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+        logWarn(logger, "GitHub secondary rate limit hit, waiting {0} seconds and reducing concurrency to {1}",
+                TimeUnit.MILLISECONDS.toSeconds(waitMillis), getConcurrencyLimit());
+        return waitMillis;
+    }
+
+    /**
+     * Wait until a new operation may start.  This blocks while the number of in-flight operations is at the
+     * current concurrency limit or while the primary rate limit budget is exhausted.  Every successful call
+     * must be followed by a call to {@link #release()}.
+     *
+     * @throws MojoExecutionException if the calling thread is interrupted while waiting
+     */
+    public void acquire() throws MojoExecutionException {
+        lock.lock();
+        try {
+            while (true) {
+                long budgetWaitMillis = getExhaustedBudgetWaitMillis();
+                if (budgetWaitMillis > 0) {
+                    logInfo(logger, "GitHub API rate limit budget exhausted, pausing for {0} seconds until it resets",
+                            TimeUnit.MILLISECONDS.toSeconds(budgetWaitMillis));
+                    permitAvailable.await(budgetWaitMillis, TimeUnit.MILLISECONDS);
+                } else if (inFlight >= (int) concurrencyLimit) {
+                    permitAvailable.await();
+                } else {
+                    break;
+                }
+            }
+            inFlight++;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw getMojoExecutionException(ex, "Interrupted while waiting for GitHub rate limit capacity");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Complete an operation started with {@link #acquire()} and additively increase the concurrency limit.
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1.0 / concurrencyLimit);
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Raise the maximum number of concurrent operations if it is below the requested maximum.  The scheduler is
+     * shared by all executions using the same endpoint, so each of them raises it to its own upload thread count
+     * rather than being held to the count of whichever execution created the scheduler.  Unless concurrency is
+     * currently reduced by a secondary rate limit, the new maximum takes effect immediately.
+     *
+     * @param requestedConcurrency the maximum number of concurrent operations requested by an execution
+     */
+    public void raiseMaxConcurrency(int requestedConcurrency) {
+        lock.lock();
+        try {
+            if (requestedConcurrency <= maxConcurrency) {
+                return;
+            }
+            if (concurrencyLimit >= maxConcurrency) {
+                concurrencyLimit = requestedConcurrency;
+            }
+            maxConcurrency = requestedConcurrency;
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the current concurrency limit.
+     *
+     * @return the number of operations currently allowed to run concurrently
+     */
+    public int getConcurrencyLimit() {
+        lock.lock();
+        try {
+            return (int) concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of requests seen so far that counted against the primary rate limit.
+     *
+     * @return the number of counted requests
+     */
+    public long getCountedRequestCount() {
+        return countedRequestCount.get();
+    }
+
+    /**
+     * Take a snapshot of the usage counters, to later report the usage of a single execution.
+     *
+     * @return the usage snapshot
+     */
+    public UsageSnapshot snapshot() {
+        return new UsageSnapshot(requestCount.get(), countedRequestCount.get(), secondaryLimitCount.get());
+    }
+
+    /**
+     * Log the rate limit budget consumed since the snapshot was taken.
+     *
+     * @param snapshot the snapshot returned by {@link #snapshot()}
+     */
+    public void logUsageSince(UsageSnapshot snapshot) {
+        long requests = requestCount.get() - snapshot.requests;
+        long counted = countedRequestCount.get() - snapshot.countedRequests;
+        long secondaryLimits = secondaryLimitCount.get() - snapshot.secondaryLimits;
+        if (remaining >= 0) {
+            logInfo(logger, "GitHub API usage: {0} requests made, {1} counted against the rate limit, {2} of {3} " +
+                    "remaining until {4}, {5} secondary rate limit responses", requests, counted, remaining, limit,
+                    new Date(TimeUnit.SECONDS.toMillis(resetEpochSeconds)), secondaryLimits);
+        } else {
+            logInfo(logger, "GitHub API usage: {0} requests made, {1} secondary rate limit responses",
+                    requests, secondaryLimits);
+        }
+    }
+
+    private long getExhaustedBudgetWaitMillis() {
+        if (remaining != 0 || resetEpochSeconds < 0) {
+            return 0;
+        }
+        long waitMillis = TimeUnit.SECONDS.toMillis(resetEpochSeconds) - System.currentTimeMillis();
+        if (waitMillis <= 0) {
+            // The limit has reset and the next response will report the new budget
+            remaining = -1;
+            return 0;
+        }
+        return waitMillis + RESET_GRACE_MILLIS;
+    }
+
+    private long getPrimaryLimitWaitMillis(Function<String, String> headers) {
+        long reset = parseLong(headers.apply(RESET_HEADER));
+        if (reset < 0) {
+            return DEFAULT_SECONDARY_LIMIT_WAIT_MILLIS;
+        }
+        return Math.max(0, TimeUnit.SECONDS.toMillis(reset) - System.currentTimeMillis()) + RESET_GRACE_MILLIS;
+    }
+
+    private long getSecondaryLimitWaitMillis(Function<String, String> headers) {
+        long retryAfterSeconds = parseLong(headers.apply(RETRY_AFTER_HEADER));
+        if (retryAfterSeconds >= 0) {
+            return TimeUnit.SECONDS.toMillis(retryAfterSeconds);
+        }
+        if (parseInt(headers.apply(REMAINING_HEADER)) == 0) {
+            return getPrimaryLimitWaitMillis(headers);
+        }
+        return DEFAULT_SECONDARY_LIMIT_WAIT_MILLIS;
+    }
+
+    private void signalAll() {
+        lock.lock();
+        try {
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void sleep(long millis) throws InterruptedIOException {
+        logDebug(logger, "Sleeping {0} ms before retrying the GitHub request", millis);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException("Interrupted waiting for GitHub rate limit")
+                    .initCause(ex);
+        }
+    }
+
+    /**
+     * The values of the usage counters at a point in time.
+     */
+    public static final class UsageSnapshot {
+        private final long requests;
+        private final long countedRequests;
+        private final long secondaryLimits;
+
+        private UsageSnapshot(long requests, long countedRequests, long secondaryLimits) {
+            this.requests = requests;
+            this.countedRequests = countedRequests;
+            this.secondaryLimits = secondaryLimits;
+        }
+    }
+
+    static int parseInt(String value) {
+        return (int) parseLong(value);
+    }
+
+    private static long parseLong(String value) {
+        if (StringUtils.isNotEmpty(value)) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException ignore) {
+                // fall through
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * ReleaseAssetClient.java - This file contains the client used to stream release assets to GitHub.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.ObjectReader;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.kohsuke.github.GHAsset;
+import org.kohsuke.github.GHRelease;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.HttpException;
+
+import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
+
+/**
+ * This class uploads release assets by streaming them straight from the file to GitHub.  The GitHub API for
+ * Java upload methods hand the file to the connector as an input stream of unknown length, which causes the
+ * request body to be buffered in memory before it is sent.  This client instead sends a request body of known
+ * length, copying the file through a small, reusable buffer, so the heap used by an upload does not depend on
+ * the size of the asset.  It also downloads small assets, such as the checksum manifest, that the plugin reads
+ * back from an existing release, and renames assets.  The requests are sent with the OkHttp client created by
+ * the GitHubConnectorFactory, so they share its pool of connections, and its timeouts.
+ */
+public final class ReleaseAssetClient {
+    static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_REDIRECTS = 5;
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    // Upload threads are pooled so each one keeps its buffer for all of the uploads that it runs
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    private final GitHub github;
+    private final OkHttpClient httpClient;
+    private final String authToken;
+    private final RateLimitScheduler scheduler;
+    private final ApiRequestLog requestLog;
+    private final Log logger;
+
+    /**
+     * Constructor.
+     *
+     * @param github     the GitHub client to which the uploaded assets are bound
+     * @param httpClient the OkHttp client to send the requests with, which must not follow redirects
+     * @param authToken  the GitHub auth token
+     * @param scheduler  the rate limit scheduler, or null if rate limits are not being tracked
+     * @param requestLog the log in which to record the requests, or null to not record them
+     * @param logger     the Maven logger to use
+     */
+    public ReleaseAssetClient(GitHub github, OkHttpClient httpClient, String authToken, RateLimitScheduler scheduler,
+                              ApiRequestLog requestLog, Log logger) {
+        this.github = github;
+        this.httpClient = httpClient;
+        this.authToken = authToken;
+        this.scheduler = scheduler;
+        this.requestLog = requestLog;
+        this.logger = logger;
+    }
+
+    /**
+     * Receives the number of bytes of a file that have been sent as the file is uploaded.
+     */
+    @FunctionalInterface
+    public interface TransferListener {
+        /**
+         * Called by the uploading thread each time a buffer of the file has been sent.
+         *
+         * @param count the number of bytes sent
+         * @throws IOException if the upload should be aborted
+         */
+        void bytesTransferred(int count) throws IOException;
+    }
+
+    /**
+     * Upload a file as a release asset.
+     *
+     * @param release     the GitHub API release object
+     * @param file        the file to upload
+     * @param assetName   the name of the asset to create
+     * @param contentType the MIME type of the asset
+     * @return the GitHub API asset object for the uploaded asset
+     * @throws IOException if the upload failed
+     */
+    public GHAsset uploadAsset(GHRelease release, File file, String assetName, String contentType)
+            throws IOException {
+        return uploadAsset(release, file, assetName, contentType, null);
+    }
+
+    /**
+     * Upload a file as a release asset.
+     *
+     * @param release     the GitHub API release object
+     * @param file        the file to upload
+     * @param assetName   the name of the asset to create
+     * @param contentType the MIME type of the asset
+     * @param listener    the listener to notify as the file is sent, or null
+     * @return the GitHub API asset object for the uploaded asset
+     * @throws IOException if the upload failed
+     */
+    public GHAsset uploadAsset(GHRelease release, File file, String assetName, String contentType,
+                               TransferListener listener) throws IOException {
+        logDebug(logger, "Streaming {0} bytes from {1} to asset {2}", file.length(), file.getAbsolutePath(),
+                assetName);
+        return send(release, new Request.Builder().url(getUploadUrl(release, assetName))
+                .post(new FileRequestBody(file, MediaType.parse(contentType), listener)));
+    }
+
+    /**
+     * Upload content held in memory, such as a generated checksum manifest, as a release asset.
+     *
+     * @param release     the GitHub API release object
+     * @param content     the asset content
+     * @param assetName   the name of the asset to create
+     * @param contentType the MIME type of the asset
+     * @return the GitHub API asset object for the uploaded asset
+     * @throws IOException if the upload failed
+     */
+    public GHAsset uploadAsset(GHRelease release, byte[] content, String assetName, String contentType)
+            throws IOException {
+        logDebug(logger, "Uploading {0} bytes to asset {1}", content.length, assetName);
+        return send(release, new Request.Builder().url(getUploadUrl(release, assetName))
+                .post(RequestBody.create(content, MediaType.parse(contentType))));
+    }
+
+    /**
+     * Rename a release asset.  The asset keeps its ID, content, and download count.
+     *
+     * @param release   the GitHub API release object to which the asset belongs
+     * @param asset     the GitHub API asset object
+     * @param assetName the new name of the asset
+     * @return the GitHub API asset object for the renamed asset
+     * @throws IOException if the rename failed
+     */
+    public GHAsset renameAsset(GHRelease release, GHAsset asset, String assetName) throws IOException {
+        logDebug(logger, "Renaming asset {0} to {1}", asset.getName(), assetName);
+        byte[] content = GitHub.getMappingObjectWriter().writeValueAsBytes(Collections.singletonMap("name", assetName));
+        return send(release, new Request.Builder().url(asset.getUrl()).patch(RequestBody.create(content, JSON)));
+    }
+
+    /**
+     * Download the content of a release asset into memory.  This is intended for small assets, such as
+     * a checksum manifest.
+     *
+     * @param asset the GitHub API asset object
+     * @return the asset content
+     * @throws IOException if the download failed
+     */
+    public byte[] downloadAsset(GHAsset asset) throws IOException {
+        // The download is recorded as a single request to the asset, including the redirect to the storage service
+        String path = asset.getUrl().getPath();
+        FlightRecorderEvents.RequestRecording recording = FlightRecorderEvents.beginRequest("GET", path);
+        long start = System.nanoTime();
+        int status = -1;
+        String rateLimitRemaining = null;
+        try {
+            HttpUrl url = HttpUrl.get(asset.getUrl());
+            boolean authenticated = true;
+            for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+                Request.Builder request = new Request.Builder().url(url).header("Accept", "application/octet-stream");
+                // GitHub redirects to pre-signed storage URLs that reject any other credentials
+                if (authenticated && StringUtils.isNotEmpty(authToken)) {
+                    request.header("Authorization", "token " + authToken);
+                }
+                try (Response response = httpClient.newCall(request.build()).execute()) {
+                    status = response.code();
+                    if (authenticated) {
+                        rateLimitRemaining = response.header(RateLimitScheduler.REMAINING_HEADER);
+                        if (scheduler != null) {
+                            scheduler.onResponse(response.code(), response::header);
+                        }
+                    }
+                    String location = response.header("Location");
+                    if (response.isRedirect() && location != null) {
+                        url = url.resolve(location);
+                        if (url == null) {
+                            throw new IOException("Asset " + asset.getName() + " redirected to invalid URL " +
+                                    location);
+                        }
+                        authenticated = false;
+                        continue;
+                    }
+                    if (!response.isSuccessful()) {
+                        throw getHttpException(response);
+                    }
+                    return response.body().bytes();
+                }
+            }
+            throw new IOException("Too many redirects downloading asset " + asset.getName());
+        } finally {
+            recording.end(status, rateLimitRemaining, 0);
+            recordRequest("GET", path, status, System.nanoTime() - start, 0);
+        }
+    }
+
+    private GHAsset send(GHRelease release, Request.Builder builder) throws IOException {
+        builder.header("Accept", "application/vnd.github+json");
+        if (StringUtils.isNotEmpty(authToken)) {
+            builder.header("Authorization", "token " + authToken);
+        }
+        Request request = builder.build();
+        String path = request.url().encodedPath();
+        FlightRecorderEvents.RequestRecording recording = FlightRecorderEvents.beginRequest(request.method(), path);
+        long start = System.nanoTime();
+        int status = -1;
+        String rateLimitRemaining = null;
+        try (Response response = httpClient.newCall(request).execute()) {
+            status = response.code();
+            rateLimitRemaining = response.header(RateLimitScheduler.REMAINING_HEADER);
+            if (scheduler != null) {
+                scheduler.onResponse(response.code(), response::header);
+            }
+            if (!response.isSuccessful()) {
+                throw getHttpException(response);
+            }
+            return readAsset(response.body().byteStream(), release);
+        } finally {
+            long bytesSent = getBytesSent(request.body(), status);
+            recording.end(status, rateLimitRemaining, bytesSent);
+            recordRequest(request.method(), path, status, System.nanoTime() - start, bytesSent);
+        }
+    }
+
+    private void recordRequest(String method, String path, int status, long durationNanos, long bytesSent) {
+        if (requestLog != null) {
+            requestLog.recordRequest(method, path, status, durationNanos, bytesSent);
+        }
+    }
+
+    private static long getBytesSent(RequestBody body, int status) throws IOException {
+        if (body instanceof FileRequestBody) {
+            return ((FileRequestBody) body).bytesWritten;
+        }
+        // A response means the whole body was sent
+        return body == null || status == -1 ? 0 : body.contentLength();
+    }
+
+    // The request body of a file upload, which is streamed from the file with a fixed length
+    private static final class FileRequestBody extends RequestBody {
+        private final File file;
+        private final MediaType contentType;
+        private final long contentLength;
+        private final TransferListener listener;
+        private volatile long bytesWritten;
+
+        FileRequestBody(File file, MediaType contentType, TransferListener listener) {
+            this.file = file;
+            this.contentType = contentType;
+            this.contentLength = file.length();
+            this.listener = listener;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return contentType;
+        }
+
+        @Override
+        public long contentLength() {
+            return contentLength;
+        }
+
+        // A listener counts the bytes sent so the body must not be sent again behind its back
+        @Override
+        public boolean isOneShot() {
+            return listener != null;
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            ByteBuffer buffer = BUFFERS.get();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                long position = 0;
+                while (position < contentLength) {
+                    buffer.clear();
+                    int count = channel.read(buffer, position);
+                    if (count < 0) {
+                        throw new IOException("File was truncated after " + position + " of " + contentLength +
+                                " bytes");
+                    }
+                    sink.write(buffer.array(), 0, count);
+                    position += count;
+                    bytesWritten += count;
+                    if (listener != null) {
+                        listener.bytesTransferred(count);
+                    }
+                }
+            }
+        }
+    }
+
+    private GHAsset readAsset(InputStream in, GHRelease release) throws IOException {
+        ObjectReader reader = GitHub.getMappingObjectReader();
+        // Bind the asset to this client rather than the offline client used by default
+        if (reader.getInjectableValues() instanceof InjectableValues.Std) {
+            ((InjectableValues.Std) reader.getInjectableValues()).addValue(GitHub.class, github);
+        }
+        GHAsset asset = reader.forType(GHAsset.class).readValue(in);
+        return GHAsset.wrap(new GHAsset[] { asset }, release)[0];
+    }
+
+    private HttpException getHttpException(Response response) throws IOException {
+        ResponseBody responseBody = response.body();
+        String body = responseBody == null ? "" : responseBody.string();
+        String url = response.request().url().toString();
+
+        if (scheduler != null && isSecondaryRateLimit(response, body)) {
+            sleep(scheduler.onSecondaryRateLimit(response::header));
+            // Report the secondary rate limit as a 429 so that the retry policy retries the upload, and as waited
+            // out so that it does not wait again on top of the wait GitHub asked for
+            return new RetryPolicy.WaitedOutException(body, 429, response.message(), url);
+        }
+        return new HttpException(body, response.code(), response.message(), url);
+    }
+
+    private static boolean isSecondaryRateLimit(Response response, String body) {
+        if (response.code() == 429) {
+            return true;
+        }
+        return response.code() == 403 && (response.header(RateLimitScheduler.RETRY_AFTER_HEADER) != null
+                || StringUtils.containsIgnoreCase(body, "secondary rate limit"));
+    }
+
+    static URL getUploadUrl(GHRelease release, String assetName) throws IOException {
+        String uploadUrl = release.getUploadUrl();
+        if (StringUtils.isEmpty(uploadUrl)) {
+            throw new IOException("Release " + release.getName() + " does not have an upload URL");
+        }
+        int templateStart = uploadUrl.indexOf('{');
+        if (templateStart != -1) {
+            uploadUrl = uploadUrl.substring(0, templateStart);
+        }
+        String encodedName = URLEncoder.encode(assetName, "UTF-8").replace("+", "%20");
+        return new URL(uploadUrl + "?name=" + encodedName);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException(
+                    "Interrupted while waiting for the GitHub secondary rate limit").initCause(ex);
+        }
+    }
+}
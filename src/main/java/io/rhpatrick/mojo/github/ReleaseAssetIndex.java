@@ -0,0 +1,139 @@
+/*
+ * ReleaseAssetIndex.java - This file contains an in-memory index of a GitHub release's assets.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.kohsuke.github.GHAsset;
+import org.kohsuke.github.GHRelease;
+
+import static io.rhpatrick.mojo.github.MavenUtils.getMojoExecutionException;
+import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
+
+/**
+ * This class holds a snapshot of a release's assets indexed by asset name.  The snapshot is fetched once and
+ * then kept up to date as assets are deleted and uploaded so that processing each file does not require
+ * listing the release's assets again.  All methods are safe to call from concurrent upload threads.
+ */
+public final class ReleaseAssetIndex {
+    // The maximum page size supported by the GitHub REST API
+    static final int LIST_PAGE_SIZE = 100;
+
+    private final Map<String, List<GHAsset>> assetsByName = new ConcurrentHashMap<>();
+
+    private ReleaseAssetIndex() {
+        // use the factory methods
+    }
+
+    /**
+     * Create an empty index, typically for a release that was just created and has no assets.
+     *
+     * @return the empty index
+     */
+    public static ReleaseAssetIndex empty() {
+        return new ReleaseAssetIndex();
+    }
+
+    /**
+     * Create an index by listing the release's existing assets.
+     *
+     * @param release the GitHub API release object
+     * @param logger  the Maven logger to use
+     * @return the populated index
+     * @throws MojoExecutionException if listing the release assets fails
+     */
+    public static ReleaseAssetIndex load(GHRelease release, Log logger) throws MojoExecutionException {
+        ReleaseAssetIndex index = new ReleaseAssetIndex();
+        List<GHAsset> existingAssets;
+        try {
+            existingAssets = release.listAssets().withPageSize(LIST_PAGE_SIZE).toList();
+        } catch (IOException ex) {
+            throw getMojoExecutionException(ex, "Failed to list existing assets for release {0}: {1}",
+                    release.getName(), ex.getMessage());
+        }
+        for (GHAsset asset : existingAssets) {
+            index.add(asset);
+        }
+        logDebug(logger, "Indexed {0} existing assets for release {1}", existingAssets.size(), release.getName());
+        return index;
+    }
+
+    /**
+     * Get the assets with the specified name.
+     *
+     * @param assetName the asset name
+     * @return the list of matching assets, which is empty if no asset has the name
+     */
+    public List<GHAsset> get(String assetName) {
+        List<GHAsset> assets = assetsByName.get(assetName);
+        if (assets == null) {
+            return Collections.emptyList();
+        }
+        synchronized (assets) {
+            return new ArrayList<>(assets);
+        }
+    }
+
+    /**
+     * Add an asset to the index, usually after it has been uploaded.
+     *
+     * @param asset the asset to add
+     */
+    public void add(GHAsset asset) {
+        List<GHAsset> assets = assetsByName.computeIfAbsent(asset.getName(), key -> new ArrayList<>(1));
+        synchronized (assets) {
+            assets.add(asset);
+        }
+    }
+
+    /**
+     * Remove an asset from the index, usually after it has been deleted.
+     *
+     * @param asset the asset to remove
+     */
+    public void remove(GHAsset asset) {
+        List<GHAsset> assets = assetsByName.get(asset.getName());
+        if (assets != null) {
+            synchronized (assets) {
+                assets.removeIf(a -> a.getId() == asset.getId());
+            }
+        }
+    }
+
+    /**
+     * Get the number of assets in the index.
+     *
+     * @return the number of indexed assets
+     */
+    public int size() {
+        int result = 0;
+        for (List<GHAsset> assets : assetsByName.values()) {
+            synchronized (assets) {
+                result += assets.size();
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ReleaseAssetRegistry.java - This file contains the registry of assets aggregated across a reactor build.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class collects the assets that each project in a multi-module build registers for a release so that
+ * a single execution can publish all of them.  The execution that registers the last expected project gets
+ * all of the registered assets back and publishes the release; the others only register their assets.
+ */
+public final class ReleaseAssetRegistry {
+    private final Map<String, List<RegisteredAsset>> assetsByProject = new LinkedHashMap<>();
+    private boolean published;
+
+    /**
+     * Register a project's assets.
+     *
+     * @param projectId        the ID of the project registering the assets
+     * @param assets           the project's assets
+     * @param expectedProjects the number of projects expected to register assets for the release
+     * @return all registered assets if this registration completes the set of expected projects; only the
+     *         project's own assets if the release was already published before the project registered, which
+     *         happens when more projects register than expected; or null if the release should be published
+     *         by a later registration
+     */
+    public synchronized List<RegisteredAsset> register(String projectId, List<RegisteredAsset> assets,
+                                                       int expectedProjects) {
+        if (published) {
+            return new ArrayList<>(assets);
+        }
+        // A project with several executions of the goal registers the assets of each of them
+        assetsByProject.computeIfAbsent(projectId, key -> new ArrayList<>()).addAll(assets);
+        if (assetsByProject.size() < expectedProjects) {
+            return null;
+        }
+
+        published = true;
+        List<RegisteredAsset> result = new ArrayList<>();
+        for (List<RegisteredAsset> projectAssets : assetsByProject.values()) {
+            result.addAll(projectAssets);
+        }
+        return result;
+    }
+
+    /**
+     * Get the number of projects that have registered their assets.
+     *
+     * @return the number of registered projects
+     */
+    public synchronized int getProjectCount() {
+        return assetsByProject.size();
+    }
+
+    /**
+     * An asset file registered for upload.
+     */
+    public static final class RegisteredAsset {
+        private final File file;
+        private final int priority;
+
+        /**
+         * Constructor.
+         *
+         * @param file     the asset file
+         * @param priority the upload priority from the asset's fileSet
+         */
+        public RegisteredAsset(File file, int priority) {
+            this.file = file;
+            this.priority = priority;
+        }
+
+        /**
+         * Get the asset file.
+         *
+         * @return the asset file
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Get the upload priority.
+         *
+         * @return the upload priority
+         */
+        public int getPriority() {
+            return priority;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * ReleasePlan.java - This file contains the plan of the changes a run of the create-release goal would make.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.logging.Log;
+
+import static io.rhpatrick.mojo.github.MavenUtils.logInfo;
+
+/**
+ * This class holds the changes that a run of the create-release goal would make to a release, as computed by
+ * a dry run: what happens to the release itself and to each asset, the number of bytes that would be uploaded,
+ * and an estimate of the number of GitHub API calls that would change the release.  The estimate assumes that
+ * no call fails and is retried.
+ */
+public final class ReleasePlan {
+    /**
+     * What happens to the release.
+     */
+    public enum ReleaseAction {
+        /** The release does not exist and is created. */
+        CREATE("create", 1),
+        /** The existing release is deleted and created again. */
+        RECREATE("delete and create", 2),
+        /** The settings of the existing release are updated. */
+        UPDATE("update", 1),
+        /** The existing release is used as is. */
+        USE_EXISTING("use existing", 0);
+
+        private final String description;
+        private final int apiCalls;
+
+        ReleaseAction(String description, int apiCalls) {
+            this.description = description;
+            this.apiCalls = apiCalls;
+        }
+    }
+
+    /**
+     * What happens to an asset.
+     */
+    public enum AssetAction {
+        /** The asset is uploaded to the release, which does not have it. */
+        UPLOAD("upload", 1, 0, 0),
+        /** The existing asset is deleted and then uploaded again. */
+        REPLACE("replace", 1, 1, 0),
+        /** The asset is uploaded under a temporary name and swapped for the existing asset. */
+        SWAP("swap", 1, 1, 2),
+        /** The asset is not uploaded since the release already has the same content. */
+        UNCHANGED("unchanged", 0, 0, 0),
+        /** The asset is not uploaded since the release has an asset with the same name. */
+        SKIP("skip", 0, 0, 0);
+
+        private final String description;
+        private final int uploads;
+        private final int deletes;
+        private final int renames;
+
+        AssetAction(String description, int uploads, int deletes, int renames) {
+            this.description = description;
+            this.uploads = uploads;
+            this.deletes = deletes;
+            this.renames = renames;
+        }
+    }
+
+    private final String releaseName;
+    private final ReleaseAction releaseAction;
+    private final List<String> releaseChanges;
+    private final List<PlannedAsset> assets = new ArrayList<>();
+    private int readRequests;
+
+    /**
+     * Constructor.
+     *
+     * @param releaseName    the name of the release
+     * @param releaseAction  what happens to the release
+     * @param releaseChanges the names of the release settings that are updated, if the release is updated
+     */
+    public ReleasePlan(String releaseName, ReleaseAction releaseAction, List<String> releaseChanges) {
+        this.releaseName = releaseName;
+        this.releaseAction = releaseAction;
+        this.releaseChanges = releaseChanges == null ? Collections.emptyList() : new ArrayList<>(releaseChanges);
+    }
+
+    /**
+     * Add an asset to the plan.  Checksum manifests are added like any other asset.  This may be called by
+     * concurrent threads.
+     *
+     * @param name   the asset name
+     * @param size   the size of the asset's file, in bytes
+     * @param action what happens to the asset
+     * @param reason why, for the log
+     */
+    public synchronized void addAsset(String name, long size, AssetAction action, String reason) {
+        assets.add(new PlannedAsset(name, size, action, reason));
+    }
+
+    /**
+     * Set the number of API requests, not counting asset downloads, that the dry run made to compute the plan,
+     * none of which changed anything.
+     *
+     * @param readRequests the number of requests
+     */
+    public synchronized void setReadRequests(int readRequests) {
+        this.readRequests = readRequests;
+    }
+
+    /**
+     * Get what happens to the release.
+     *
+     * @return the release action
+     */
+    public ReleaseAction getReleaseAction() {
+        return releaseAction;
+    }
+
+    /**
+     * Get the number of bytes that would be uploaded.
+     *
+     * @return the number of bytes
+     */
+    public synchronized long getUploadBytes() {
+        long result = 0;
+        for (PlannedAsset asset : assets) {
+            if (asset.action.uploads > 0) {
+                result += asset.size;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the estimated number of API calls that would change the release and its assets.
+     *
+     * @return the number of API calls
+     */
+    public synchronized int getEstimatedApiCalls() {
+        int result = releaseAction.apiCalls;
+        for (PlannedAsset asset : assets) {
+            result += asset.action.uploads + asset.action.deletes + asset.action.renames;
+        }
+        return result;
+    }
+
+    /**
+     * Log the plan.
+     *
+     * @param logger the Maven logger to use
+     */
+    public synchronized void log(Log logger) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logInfo(logger, "Dry run plan for release {0}:", releaseName);
+        if (releaseChanges.isEmpty()) {
+            logInfo(logger, "  Release: {0}", releaseAction.description);
+        } else {
+            logInfo(logger, "  Release: {0} {1}", releaseAction.description,
+                    StringUtils.join(releaseChanges, ", "));
+        }
+        for (PlannedAsset asset : getSortedAssets()) {
+            logInfo(logger, "  {0}", String.format("%-10s %-48s %12d  %s", asset.action.description, asset.name,
+                    asset.size, asset.reason));
+        }
+        Map<AssetAction, Integer> counts = getCounts();
+        logInfo(logger, "  Assets: {0} uploads ({1} KB), {2} deletes, {3} renames, {4} unchanged, {5} skipped",
+                counts.get(AssetAction.UPLOAD) + counts.get(AssetAction.REPLACE) + counts.get(AssetAction.SWAP),
+                getUploadBytes() / 1024, counts.get(AssetAction.REPLACE) + counts.get(AssetAction.SWAP),
+                2 * counts.get(AssetAction.SWAP), counts.get(AssetAction.UNCHANGED), counts.get(AssetAction.SKIP));
+        logInfo(logger, "  Estimated API calls that change the release: {0} (planning made {1} API requests, not " +
+                "counting asset downloads)", getEstimatedApiCalls(), readRequests);
+    }
+
+    synchronized Map<String, Object> toMap() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("release", releaseName);
+        result.put("releaseAction", releaseAction.description);
+        result.put("releaseChanges", releaseChanges);
+        Map<String, Object> counts = new LinkedHashMap<>();
+        for (Map.Entry<AssetAction, Integer> count : getCounts().entrySet()) {
+            counts.put(count.getKey().description, count.getValue());
+        }
+        result.put("assetCounts", counts);
+        result.put("uploadBytes", getUploadBytes());
+        result.put("estimatedApiCalls", getEstimatedApiCalls());
+        result.put("readRequests", readRequests);
+
+        List<Object> assetPlans = new ArrayList<>();
+        for (PlannedAsset asset : getSortedAssets()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", asset.name);
+            entry.put("size", asset.size);
+            entry.put("action", asset.action.description);
+            entry.put("reason", asset.reason);
+            assetPlans.add(entry);
+        }
+        result.put("assets", assetPlans);
+        return result;
+    }
+
+    // Assets are added by concurrent threads, so they are listed by name to keep the plan stable
+    private List<PlannedAsset> getSortedAssets() {
+        List<PlannedAsset> result = new ArrayList<>(assets);
+        result.sort(Comparator.comparing(asset -> asset.name));
+        return result;
+    }
+
+    private Map<AssetAction, Integer> getCounts() {
+        Map<AssetAction, Integer> result = new EnumMap<>(AssetAction.class);
+        for (AssetAction action : AssetAction.values()) {
+            result.put(action, 0);
+        }
+        for (PlannedAsset asset : assets) {
+            result.merge(asset.action, 1, Integer::sum);
+        }
+        return result;
+    }
+
+    private static final class PlannedAsset {
+        private final String name;
+        private final long size;
+        private final AssetAction action;
+        private final String reason;
+
+        private PlannedAsset(String name, long size, AssetAction action, String reason) {
+            this.name = name;
+            this.size = size;
+            this.action = action;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * ReleaseReport.java - This file contains the timing report of a run of the create-release goal.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.rhpatrick.mojo.github.ApiRequestLog.ApiRequest;
+import org.apache.maven.plugin.logging.Log;
+
+import static io.rhpatrick.mojo.github.MavenUtils.logInfo;
+
+/**
+ * This class collects the timings of a run of the create-release goal: the duration of each operation (e.g.,
+ * connecting, finding the release, and uploading each asset), the GitHub API requests it made, and the size,
+ * duration, and retries of each asset.  At the end of the run, it logs a summary table and can write the
+ * details as a JSON report for CI dashboards.  All methods are safe to call from concurrent upload threads.
+ */
+public final class ReleaseReport {
+    /** The outcome of an asset that was uploaded. */
+    public static final String UPLOADED = "uploaded";
+    /** The outcome of an asset that was not uploaded since the release already has the same content. */
+    public static final String UNCHANGED = "unchanged";
+    /** The outcome of an asset that was not uploaded since the release has an asset with the same name. */
+    public static final String SKIPPED = "skipped";
+    /** The outcome of an asset whose upload failed. */
+    public static final String FAILED = "failed";
+
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    private final long startMillis = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, List<Long>> operationDurations = new LinkedHashMap<>();
+    private final Map<String, Integer> operationFailures = new LinkedHashMap<>();
+    private final List<AssetResult> assets = new ArrayList<>();
+    private List<ApiRequest> apiRequests = Collections.emptyList();
+    private ReleasePlan plan;
+    private long wallNanos = -1;
+    private boolean success;
+
+    /**
+     * An operation to time.
+     *
+     * @param <R> the result type
+     * @param <E> the type of exception thrown by the operation
+     */
+    @FunctionalInterface
+    public interface Operation<R, E extends Exception> {
+        /**
+         * Run the operation.
+         *
+         * @return the result
+         * @throws E if the operation failed
+         */
+        R run() throws E;
+    }
+
+    /**
+     * Run and time an operation.  Failed operations are timed too and counted as failures.
+     *
+     * @param name      the operation name
+     * @param operation the operation
+     * @param <R>       the result type
+     * @param <E>       the type of exception thrown by the operation
+     * @return the result of the operation
+     * @throws E if the operation failed
+     */
+    public <R, E extends Exception> R time(String name, Operation<R, E> operation) throws E {
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            R result = operation.run();
+            succeeded = true;
+            return result;
+        } finally {
+            recordOperation(name, System.nanoTime() - start, succeeded);
+        }
+    }
+
+    /**
+     * Record the duration of an operation that was timed by the caller.
+     *
+     * @param name          the operation name
+     * @param durationNanos the duration of the operation
+     * @param succeeded     whether the operation succeeded
+     */
+    public synchronized void recordOperation(String name, long durationNanos, boolean succeeded) {
+        operationDurations.computeIfAbsent(name, key -> new ArrayList<>()).add(durationNanos);
+        operationFailures.merge(name, succeeded ? 0 : 1, Integer::sum);
+    }
+
+    /**
+     * Record the result of processing an asset.
+     *
+     * @param name          the asset name
+     * @param size          the asset size in bytes
+     * @param outcome       the outcome, such as UPLOADED or FAILED
+     * @param durationNanos the time spent uploading the asset, including retries
+     * @param retries       the number of times the upload was retried
+     */
+    public synchronized void recordAsset(String name, long size, String outcome, long durationNanos, int retries) {
+        assets.add(new AssetResult(name, size, outcome, durationNanos, retries));
+    }
+
+    /**
+     * Set the GitHub API requests made during the run.
+     *
+     * @param requests the requests
+     */
+    public synchronized void setApiRequests(List<ApiRequest> requests) {
+        this.apiRequests = new ArrayList<>(requests);
+    }
+
+    /**
+     * Set the plan computed by a dry run, which is added to the JSON report.
+     *
+     * @param plan the plan
+     */
+    public synchronized void setPlan(ReleasePlan plan) {
+        this.plan = plan;
+    }
+
+    /**
+     * Mark the end of the run.
+     *
+     * @param succeeded whether the run succeeded
+     */
+    public synchronized void finish(boolean succeeded) {
+        this.wallNanos = System.nanoTime() - startNanos;
+        this.success = succeeded;
+    }
+
+    /**
+     * Log a summary table of the operations, API requests, and assets.
+     *
+     * @param logger the Maven logger to use
+     */
+    public synchronized void logSummary(Log logger) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        logInfo(logger, "GitHub release timings ({0} ms wall time):", toMillis(getWallNanos()));
+        logInfo(logger, "  {0}", String.format("%-28s %7s %7s %10s %9s %9s %9s", "Operation", "Count",
+                "Errors", "Total ms", "p50 ms", "p90 ms", "Max ms"));
+        for (Map.Entry<String, List<Long>> operation : operationDurations.entrySet()) {
+            logSummaryRow(logger, operation.getKey(), operation.getValue(), operationFailures.get(operation.getKey()));
+        }
+        List<Long> requestDurations = new ArrayList<>();
+        int requestErrors = 0;
+        for (ApiRequest request : apiRequests) {
+            requestDurations.add(request.getDurationNanos());
+            if (isError(request)) {
+                requestErrors++;
+            }
+        }
+        logSummaryRow(logger, "API requests", requestDurations, requestErrors);
+
+        long uploadedBytes = 0;
+        long uploadNanos = 0;
+        int uploaded = 0;
+        for (AssetResult asset : assets) {
+            if (UPLOADED.equals(asset.outcome)) {
+                uploaded++;
+                uploadedBytes += asset.size;
+                uploadNanos += asset.durationNanos;
+            }
+        }
+        if (!assets.isEmpty()) {
+            logInfo(logger, "  Processed {0} assets: {1} uploaded ({2} KB at {3} KB/s per upload)", assets.size(),
+                    uploaded, uploadedBytes / 1024, getBytesPerSecond(uploadedBytes, uploadNanos) / 1024);
+        }
+    }
+
+    /**
+     * Write the JSON report.
+     *
+     * @param file         the report file
+     * @param repositoryId the repository ID
+     * @param tag          the tag name of the release
+     * @throws IOException if writing the report failed
+     */
+    public void write(File file, String repositoryId, String tag) throws IOException {
+        Map<String, Object> report = toMap(repositoryId, tag);
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    synchronized Map<String, Object> toMap(String repositoryId, String tag) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("repository", repositoryId);
+        result.put("tag", tag);
+        result.put("startTime", startMillis);
+        result.put("wallTimeMillis", toMillis(getWallNanos()));
+        result.put("success", success);
+
+        List<Object> operations = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> operation : operationDurations.entrySet()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", operation.getKey());
+            entry.put("failures", operationFailures.get(operation.getKey()));
+            entry.putAll(getStatistics(operation.getValue()));
+            operations.add(entry);
+        }
+        result.put("operations", operations);
+
+        Map<String, List<Long>> durationsByEndpoint = new LinkedHashMap<>();
+        Map<String, Integer> errorsByEndpoint = new LinkedHashMap<>();
+        Map<String, Long> bytesSentByEndpoint = new LinkedHashMap<>();
+        for (ApiRequest request : apiRequests) {
+            durationsByEndpoint.computeIfAbsent(request.getEndpoint(), key -> new ArrayList<>())
+                    .add(request.getDurationNanos());
+            errorsByEndpoint.merge(request.getEndpoint(), isError(request) ? 1 : 0, Integer::sum);
+            bytesSentByEndpoint.merge(request.getEndpoint(), request.getBytesSent(), Long::sum);
+        }
+        List<Object> endpoints = new ArrayList<>();
+        for (Map.Entry<String, List<Long>> endpoint : durationsByEndpoint.entrySet()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("endpoint", endpoint.getKey());
+            entry.put("errors", errorsByEndpoint.get(endpoint.getKey()));
+            entry.put("bytesSent", bytesSentByEndpoint.get(endpoint.getKey()));
+            entry.putAll(getStatistics(endpoint.getValue()));
+            endpoints.add(entry);
+        }
+        result.put("apiRequests", endpoints);
+
+        List<Object> assetResults = new ArrayList<>();
+        List<Long> uploadDurations = new ArrayList<>();
+        List<Long> uploadThroughputs = new ArrayList<>();
+        for (AssetResult asset : assets) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", asset.name);
+            entry.put("size", asset.size);
+            entry.put("outcome", asset.outcome);
+            entry.put("millis", toMillis(asset.durationNanos));
+            entry.put("retries", asset.retries);
+            if (UPLOADED.equals(asset.outcome)) {
+                long bytesPerSecond = getBytesPerSecond(asset.size, asset.durationNanos);
+                entry.put("bytesPerSecond", bytesPerSecond);
+                uploadDurations.add(asset.durationNanos);
+                uploadThroughputs.add(bytesPerSecond);
+            }
+            assetResults.add(entry);
+        }
+        Map<String, Object> uploads = new LinkedHashMap<>(getStatistics(uploadDurations));
+        Collections.sort(uploadThroughputs);
+        for (double percentile : PERCENTILES) {
+            uploads.put("p" + (int) percentile + "BytesPerSecond", getPercentile(uploadThroughputs, percentile));
+        }
+        result.put("uploads", uploads);
+        result.put("assets", assetResults);
+        if (plan != null) {
+            result.put("plan", plan.toMap());
+        }
+        return result;
+    }
+
+    /**
+     * Get the value at the percentile of the sorted values using the nearest-rank method.
+     *
+     * @param sortedValues the values, in ascending order
+     * @param percentile   the percentile, between 0 and 100
+     * @return the value, or 0 if there are no values
+     */
+    static long getPercentile(List<Long> sortedValues, double percentile) {
+        if (sortedValues.isEmpty()) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sortedValues.size());
+        return sortedValues.get(Math.min(Math.max(rank, 1), sortedValues.size()) - 1);
+    }
+
+    private long getWallNanos() {
+        return wallNanos < 0 ? System.nanoTime() - startNanos : wallNanos;
+    }
+
+    private static void logSummaryRow(Log logger, String name, List<Long> durations, int errors) {
+        Map<String, Object> statistics = getStatistics(durations);
+        logInfo(logger, "  {0}", String.format("%-28s %7d %7d %10d %9d %9d %9d", name, durations.size(), errors,
+                statistics.get("totalMillis"), statistics.get("p50Millis"), statistics.get("p90Millis"),
+                statistics.get("maxMillis")));
+    }
+
+    private static Map<String, Object> getStatistics(List<Long> durationsNanos) {
+        Long[] sorted = durationsNanos.toArray(new Long[0]);
+        Arrays.sort(sorted);
+        List<Long> sortedMillis = new ArrayList<>();
+        long total = 0;
+        for (Long duration : sorted) {
+            total += duration;
+            sortedMillis.add(toMillis(duration));
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", sorted.length);
+        result.put("totalMillis", toMillis(total));
+        for (double percentile : PERCENTILES) {
+            result.put("p" + (int) percentile + "Millis", getPercentile(sortedMillis, percentile));
+        }
+        result.put("maxMillis", sorted.length == 0 ? 0L : toMillis(sorted[sorted.length - 1]));
+        return result;
+    }
+
+    private static boolean isError(ApiRequest request) {
+        return request.getStatus() < 0 || request.getStatus() >= 400;
+    }
+
+    private static long getBytesPerSecond(long bytes, long nanos) {
+        return nanos <= 0 ? 0 : (long) (bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos);
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static final class AssetResult {
+        private final String name;
+        private final long size;
+        private final String outcome;
+        private final long durationNanos;
+        private final int retries;
+
+        private AssetResult(String name, long size, String outcome, long durationNanos, int retries) {
+            this.name = name;
+            this.size = size;
+            this.outcome = outcome;
+            this.durationNanos = durationNanos;
+            this.retries = retries;
+        }
+    }
+}
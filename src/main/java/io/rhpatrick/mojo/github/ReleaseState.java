@@ -0,0 +1,273 @@
+/*
+ * ReleaseState.java - This file contains the state persisted between runs of the create-release goal.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.maven.plugin.logging.Log;
+
+import static io.rhpatrick.mojo.github.MavenUtils.logDebug;
+import static io.rhpatrick.mojo.github.MavenUtils.logWarn;
+
+/**
+ * This class holds what the create-release goal uploaded to a release so that a later run can tell which
+ * assets have not changed without making any GitHub API calls for them.  The state is stored as a properties
+ * file that records the release and, for each asset, the path, size, and modification time of the file that
+ * was uploaded along with its SHA-256 digest and the ID of the resulting GitHub asset.  All methods are safe
+ * to call from concurrent upload threads.
+ */
+public final class ReleaseState {
+    private static final String REPOSITORY_KEY = "release.repository";
+    private static final String TAG_KEY = "release.tag";
+    private static final String RELEASE_ID_KEY = "release.id";
+    private static final String CHECKSUMS_KEY = "release.checksums";
+    private static final String ASSET_PREFIX = "asset.";
+
+    private final String repositoryId;
+    private final String tag;
+    private final long releaseId;
+    private final String checksums;
+    private final Map<String, AssetState> assets = new TreeMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param repositoryId the repository ID
+     * @param tag          the tag name of the release
+     * @param releaseId    the GitHub ID of the release
+     * @param checksums    the checksum manifests published with the release, which must match for the recorded
+     *                     assets to be considered up to date since the manifests must list every asset
+     */
+    public ReleaseState(String repositoryId, String tag, long releaseId, String checksums) {
+        this.repositoryId = repositoryId;
+        this.tag = tag;
+        this.releaseId = releaseId;
+        this.checksums = checksums;
+    }
+
+    /**
+     * Load the state file.  A missing or unreadable file results in null so that every asset is checked.
+     *
+     * @param file   the state file
+     * @param logger the Maven logger to use
+     * @return the loaded state, or null if there is no usable state
+     */
+    public static ReleaseState load(File file, Log logger) {
+        if (!file.isFile()) {
+            logDebug(logger, "Release state file {0} does not exist", file.getAbsolutePath());
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            properties.load(in);
+            ReleaseState state = new ReleaseState(properties.getProperty(REPOSITORY_KEY),
+                    properties.getProperty(TAG_KEY), Long.parseLong(properties.getProperty(RELEASE_ID_KEY)),
+                    properties.getProperty(CHECKSUMS_KEY, ""));
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(ASSET_PREFIX) && key.endsWith(".id")) {
+                    String assetName = key.substring(ASSET_PREFIX.length(), key.length() - ".id".length());
+                    state.assets.put(assetName, AssetState.load(properties, ASSET_PREFIX + assetName + '.'));
+                }
+            }
+            logDebug(logger, "Loaded the state of {0} assets from release state file {1}", state.assets.size(),
+                    file.getAbsolutePath());
+            return state;
+        } catch (IOException | RuntimeException ex) {
+            logWarn(logger, "Ignoring unreadable release state file {0}: {1}", file.getAbsolutePath(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Save the state file.  The file is replaced atomically so that an interrupted build never leaves a
+     * partially written file behind.
+     *
+     * @param file the state file
+     * @throws IOException if writing the file failed
+     */
+    public void save(File file) throws IOException {
+        Properties properties = new Properties();
+        synchronized (this) {
+            properties.setProperty(REPOSITORY_KEY, repositoryId);
+            properties.setProperty(TAG_KEY, tag);
+            properties.setProperty(RELEASE_ID_KEY, Long.toString(releaseId));
+            properties.setProperty(CHECKSUMS_KEY, checksums);
+            for (Map.Entry<String, AssetState> asset : assets.entrySet()) {
+                asset.getValue().store(properties, ASSET_PREFIX + asset.getKey() + '.');
+            }
+        }
+
+        Path target = file.getAbsoluteFile().toPath();
+        Files.createDirectories(target.getParent());
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "github-maven-plugin release state");
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Whether the state was recorded for the same release and checksum manifests.
+     *
+     * @param otherRepositoryId the repository ID
+     * @param otherTag          the tag name of the release
+     * @param otherReleaseId    the GitHub ID of the release
+     * @param otherChecksums    the checksum manifests published with the release
+     * @return true if the recorded assets apply to the release, false otherwise
+     */
+    public boolean isFor(String otherRepositoryId, String otherTag, long otherReleaseId, String otherChecksums) {
+        return releaseId == otherReleaseId && repositoryId.equals(otherRepositoryId) && tag.equals(otherTag)
+                && checksums.equals(otherChecksums);
+    }
+
+    /**
+     * Get the state of the asset.
+     *
+     * @param assetName the asset name
+     * @return the asset state, or null if the asset is not recorded
+     */
+    public synchronized AssetState get(String assetName) {
+        return assets.get(assetName);
+    }
+
+    /**
+     * Record the state of the asset.
+     *
+     * @param assetName the asset name
+     * @param state     the asset state
+     */
+    public synchronized void put(String assetName, AssetState state) {
+        assets.put(assetName, state);
+    }
+
+    /**
+     * Forget the state of the asset, usually because it is about to be replaced.
+     *
+     * @param assetName the asset name
+     */
+    public synchronized void remove(String assetName) {
+        assets.remove(assetName);
+    }
+
+    /**
+     * Copy the asset states from another state.
+     *
+     * @param other the state to copy from
+     */
+    public void putAll(ReleaseState other) {
+        Map<String, AssetState> otherAssets;
+        synchronized (other) {
+            otherAssets = new TreeMap<>(other.assets);
+        }
+        synchronized (this) {
+            assets.putAll(otherAssets);
+        }
+    }
+
+    /**
+     * The recorded state of a single asset.
+     */
+    public static final class AssetState {
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final String sha256;
+        private final long assetId;
+
+        /**
+         * Constructor.
+         *
+         * @param file    the uploaded file
+         * @param sha256  the SHA-256 digest of the file
+         * @param assetId the GitHub ID of the asset
+         */
+        public AssetState(File file, String sha256, long assetId) {
+            this(file.getAbsolutePath(), file.length(), file.lastModified(), sha256, assetId);
+        }
+
+        private AssetState(String path, long size, long lastModified, String sha256, long assetId) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha256 = sha256;
+            this.assetId = assetId;
+        }
+
+        /**
+         * Whether the file is the same path, size, and modification time as the uploaded file, which means
+         * that it has not changed without needing to read it.
+         *
+         * @param file the file
+         * @return true if the file has not been modified, false otherwise
+         */
+        public boolean isUnmodified(File file) {
+            return path.equals(file.getAbsolutePath()) && size == file.length()
+                    && lastModified == file.lastModified();
+        }
+
+        /**
+         * Whether the file has the same content as the uploaded file, even if it was rewritten since.
+         *
+         * @param file   the file
+         * @param digest the SHA-256 digest of the file
+         * @return true if the content is the same, false otherwise
+         */
+        public boolean hasSameContent(File file, String digest) {
+            return size == file.length() && sha256.equals(digest);
+        }
+
+        /**
+         * Get the GitHub ID of the asset.
+         *
+         * @return the asset ID
+         */
+        public long getAssetId() {
+            return assetId;
+        }
+
+        private static AssetState load(Properties properties, String prefix) {
+            return new AssetState(properties.getProperty(prefix + "path"),
+                    Long.parseLong(properties.getProperty(prefix + "size")),
+                    Long.parseLong(properties.getProperty(prefix + "lastModified")),
+                    properties.getProperty(prefix + "sha256"),
+                    Long.parseLong(properties.getProperty(prefix + "id")));
+        }
+
+        private void store(Properties properties, String prefix) {
+            properties.setProperty(prefix + "path", path);
+            properties.setProperty(prefix + "size", Long.toString(size));
+            properties.setProperty(prefix + "lastModified", Long.toString(lastModified));
+            properties.setProperty(prefix + "sha256", sha256);
+            properties.setProperty(prefix + "id", Long.toString(assetId));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * RetryPolicy.java - This file contains the policy for retrying GitHub operations that fail transiently.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.Log;
+import org.kohsuke.github.HttpException;
+
+import static io.rhpatrick.mojo.github.MavenUtils.logWarn;
+
+/**
+ * This class retries operations that fail with transient errors (e.g., network errors and 5xx responses)
+ * using exponential backoff with random jitter, so that many concurrent operations failing at the same time
+ * do not all retry at the same time.  Between attempts, an optional reconciler can inspect the state left
+ * behind by the failed attempt, clean it up, or determine that the operation actually succeeded.  Failures
+ * that the attempt already waited out, such as secondary rate limit responses, are retried without a delay.
+ */
+public final class RetryPolicy {
+    private static final long MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    private final int maxRetries;
+    private final long initialDelayMillis;
+    private final Log logger;
+
+    /**
+     * A single attempt of the operation.
+     *
+     * @param <R> the result type
+     */
+    @FunctionalInterface
+    public interface Attempt<R> {
+        /**
+         * Run the attempt.
+         *
+         * @return the result of the operation
+         * @throws IOException if the attempt failed
+         */
+        R run() throws IOException;
+    }
+
+    /**
+     * Reconciles the state left behind by a failed attempt before the operation is retried.
+     *
+     * @param <R> the result type
+     */
+    @FunctionalInterface
+    public interface Reconciler<R> {
+        /**
+         * Reconcile the state left behind by the failed attempt.
+         *
+         * @param failure the exception thrown by the failed attempt
+         * @return the result of the operation if the reconciliation determined that it actually succeeded,
+         *         or null if the operation should be retried
+         * @throws IOException if the reconciliation failed
+         */
+        R reconcile(IOException failure) throws IOException;
+    }
+
+    /**
+     * A retryable HTTP error response after which the attempt already waited as long as GitHub asked, so that
+     * retrying it without another delay is safe.
+     */
+    public static final class WaitedOutException extends HttpException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Constructor.
+         *
+         * @param message         the response body
+         * @param responseCode    the HTTP response code
+         * @param responseMessage the HTTP response message
+         * @param url             the request URL
+         */
+        public WaitedOutException(String message, int responseCode, String responseMessage, String url) {
+            super(message, responseCode, responseMessage, url);
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxRetries         the maximum number of times to retry a failed operation
+     * @param initialDelayMillis the base delay before the first retry, which doubles for each subsequent retry
+     * @param logger             the Maven logger to use
+     */
+    public RetryPolicy(int maxRetries, long initialDelayMillis, Log logger) {
+        this.maxRetries = Math.max(0, maxRetries);
+        this.initialDelayMillis = Math.max(0, initialDelayMillis);
+        this.logger = logger;
+    }
+
+    /**
+     * Run the operation, retrying it if it fails with a transient error.
+     *
+     * @param description the description of the operation used in log messages
+     * @param attempt     the operation to run
+     * @param reconciler  the reconciler to run after each failed attempt, or null
+     * @param <R>         the result type
+     * @return the result of the operation
+     * @throws IOException if the operation failed with an error that is not transient or failed on every attempt
+     */
+    public <R> R execute(String description, Attempt<R> attempt, Reconciler<R> reconciler) throws IOException {
+        int retry = 0;
+        while (true) {
+            try {
+                return attempt.run();
+            } catch (IOException ex) {
+                if (retry >= maxRetries || !isRetryable(ex)) {
+                    throw ex;
+                }
+                retry++;
+                long delayMillis = ex instanceof WaitedOutException ? 0 : getDelayMillis(retry);
+                logWarn(logger, "{0} failed, retrying in {1} ms (retry {2} of {3}): {4}",
+                        description, delayMillis, retry, maxRetries, ex.getMessage());
+                sleep(delayMillis);
+
+                if (reconciler != null) {
+                    R result = reconciler.reconcile(ex);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the exception represents a transient failure that is worth retrying.
+     *
+     * @param ex the exception
+     * @return true if the operation should be retried, false otherwise
+     */
+    public static boolean isRetryable(IOException ex) {
+        if (ex instanceof HttpException) {
+            int responseCode = ((HttpException) ex).getResponseCode();
+            return responseCode < 0 || responseCode >= 500 || responseCode == 408 || responseCode == 429;
+        }
+        if (ex instanceof SocketTimeoutException) {
+            return true;
+        }
+        // Missing resources and interrupted threads will not be fixed by trying again
+        return !(ex instanceof FileNotFoundException) && !(ex instanceof InterruptedIOException);
+    }
+
+    long getDelayMillis(int retry) {
+        long ceiling = Math.min(MAX_DELAY_MILLIS, initialDelayMillis << Math.min(retry - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw (InterruptedIOException) new InterruptedIOException("Interrupted while waiting to retry")
+                    .initCause(ex);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * UploadProgress.java - This file contains the progress reporting of asset uploads.
+ *
+ * Copyright 2021, 2022, Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.rhpatrick.mojo.github.ConcurrencyUtils.WorkerThreadFactory;
+import io.rhpatrick.mojo.github.ReleaseAssetClient.TransferListener;
+import org.apache.maven.plugin.logging.Log;
+
+import static io.rhpatrick.mojo.github.MavenUtils.logInfo;
+
+/**
+ * This class periodically logs the progress of the asset uploads of an execution so that long uploads do not
+ * look like a hung build.  Each report covers all concurrent uploads: the bytes sent out of the bytes
+ * expected, the number of uploads in progress, the throughput since the previous report and since the start,
+ * and the estimated time remaining.  Upload threads only add to lock-free counters as they send each buffer;
+ * the reports are logged by a separate thread, so logging never slows down the uploads.
+ */
+public final class UploadProgress implements AutoCloseable {
+    private static final double BYTES_PER_MEGABYTE = 1024.0 * 1024.0;
+
+    private final Log logger;
+    private final ScheduledExecutorService reporter;
+
+    private final LongAdder expectedBytes = new LongAdder();
+    // All bytes sent, including those of failed attempts that are discarded when the upload is retried
+    private final LongAdder sentBytes = new LongAdder();
+    private final LongAdder discardedBytes = new LongAdder();
+    private final AtomicInteger activeUploads = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+
+    // Only accessed by the reporter thread
+    private long lastReportNanos = startNanos;
+    private long lastReportSentBytes;
+
+    /**
+     * Constructor.  The reports start once the first interval has elapsed, so short runs log nothing.
+     *
+     * @param intervalSeconds the number of seconds between reports, or zero to not report progress
+     * @param logger          the Maven logger to use
+     */
+    public UploadProgress(long intervalSeconds, Log logger) {
+        this.logger = logger;
+        if (intervalSeconds > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(new WorkerThreadFactory("progress"));
+            reporter.scheduleAtFixedRate(this::report, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            reporter = null;
+        }
+    }
+
+    /**
+     * Add a file that is expected to be uploaded to the total.
+     *
+     * @param size the file size in bytes
+     */
+    public void expect(long size) {
+        expectedBytes.add(size);
+    }
+
+    /**
+     * Remove an expected file that will not be uploaded, such as an unchanged asset, from the total.
+     *
+     * @param size the file size in bytes
+     */
+    public void skip(long size) {
+        expectedBytes.add(-size);
+    }
+
+    /**
+     * Start an attempt to upload a file.  The returned transfer must be ended once the attempt completes.
+     *
+     * @return the transfer to pass to the asset client
+     */
+    public Transfer startTransfer() {
+        activeUploads.incrementAndGet();
+        return new Transfer();
+    }
+
+    @Override
+    public void close() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+        }
+    }
+
+    /**
+     * Log a progress report if any uploads were in progress since the previous report.
+     */
+    void report() {
+        long now = System.nanoTime();
+        long sent = sentBytes.sum();
+        int active = activeUploads.get();
+        if (active == 0 && sent == lastReportSentBytes) {
+            return;
+        }
+        long completed = sent - discardedBytes.sum();
+        long expected = Math.max(expectedBytes.sum(), completed);
+        double currentRate = getBytesPerSecond(sent - lastReportSentBytes, now - lastReportNanos);
+        double averageRate = getBytesPerSecond(sent, now - startNanos);
+        lastReportNanos = now;
+        lastReportSentBytes = sent;
+
+        logInfo(logger, "Uploaded {0} of {1} MB ({2}%) with {3} uploads in progress at {4} MB/s " +
+                "(average {5} MB/s), {6} remaining", toMegabytes(completed), toMegabytes(expected),
+                expected == 0 ? 100 : completed * 100 / expected, active, toMegabytes(currentRate),
+                toMegabytes(averageRate), formatEta(expected - completed, averageRate));
+    }
+
+    static String formatEta(long remainingBytes, double bytesPerSecond) {
+        if (remainingBytes <= 0) {
+            return "0s";
+        } else if (bytesPerSecond <= 0) {
+            return "unknown time";
+        }
+        long seconds = (long) Math.ceil(remainingBytes / bytesPerSecond);
+        if (seconds >= 3600) {
+            return String.format(Locale.ROOT, "%dh %02dm", seconds / 3600, seconds % 3600 / 60);
+        } else if (seconds >= 60) {
+            return String.format(Locale.ROOT, "%dm %02ds", seconds / 60, seconds % 60);
+        }
+        return seconds + "s";
+    }
+
+    private static double getBytesPerSecond(long bytes, long nanos) {
+        return nanos <= 0 ? 0 : bytes * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    private static String toMegabytes(double bytes) {
+        return String.format(Locale.ROOT, "%.1f", bytes / BYTES_PER_MEGABYTE);
+    }
+
+    /**
+     * A single attempt to upload a file.  It is only used by the upload thread running the attempt.
+     */
+    public final class Transfer implements TransferListener {
+        private long sent;
+        private boolean ended;
+
+        private Transfer() {
+            // use startTransfer()
+        }
+
+        @Override
+        public void bytesTransferred(int count) {
+            sent += count;
+            sentBytes.add(count);
+        }
+
+        /**
+         * End the attempt.  The bytes sent by a failed attempt no longer count toward the progress since
+         * they will be sent again if the upload is retried.
+         *
+         * @param succeeded whether the attempt succeeded
+         */
+        public void end(boolean succeeded) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            if (!succeeded) {
+                discardedBytes.add(sent);
+            }
+            activeUploads.decrementAndGet();
+        }
+    }
+}
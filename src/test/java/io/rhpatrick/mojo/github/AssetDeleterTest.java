@@ -0,0 +1,130 @@
+/*
+ * AssetDeleterTest.java - This file contains unit tests for the AssetDeleter class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AssetDeleterTest {
+
+    @DisplayName("Test AssetDeleter.await() returns only after the deletion submitted for the name completes")
+    @Test
+    @Timeout(30)
+    public void await_WithSlowDeletion_WaitsForDeletion() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean deleted = new AtomicBoolean();
+        AtomicInteger runs = new AtomicInteger();
+
+        try (AssetDeleter deleter = new AssetDeleter(2)) {
+            deleter.submit("asset.zip", () -> {
+                runs.incrementAndGet();
+                await(release);
+                deleted.set(true);
+            });
+            // A second submission for the same name is ignored
+            deleter.submit("asset.zip", runs::incrementAndGet);
+
+            Thread waiter = new Thread(() -> {
+                try {
+                    deleter.await("asset.zip");
+                } catch (MojoExecutionException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            });
+            waiter.start();
+            waiter.join(200L);
+            assertTrue(waiter.isAlive());
+
+            release.countDown();
+            waiter.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(waiter.isAlive());
+            assertTrue(deleted.get());
+            assertEquals(1, runs.get());
+
+            // Names without a deletion return immediately
+            deleter.await("other.zip");
+        }
+    }
+
+    @DisplayName("Test AssetDeleter.await() rethrows the failure of the deletion")
+    @Test
+    @Timeout(30)
+    public void await_WithFailedDeletion_ThrowsFailure() {
+        MojoExecutionException failure = new MojoExecutionException("delete failed");
+        Error error = new AssertionError("delete broke");
+
+        try (AssetDeleter deleter = new AssetDeleter(1)) {
+            deleter.submit("failed.zip", () -> {
+                throw failure;
+            });
+            deleter.submit("broken.zip", () -> {
+                throw error;
+            });
+
+            assertSame(failure, assertThrows(MojoExecutionException.class, () -> deleter.await("failed.zip")));
+            MojoExecutionException ex = assertThrows(MojoExecutionException.class, () -> deleter.await("broken.zip"));
+            assertSame(error, ex.getCause());
+        }
+    }
+
+    @DisplayName("Test AssetDeleter.await() fails and keeps the interrupt status when interrupted")
+    @Test
+    @Timeout(30)
+    public void await_WhenInterrupted_ThrowsAndKeepsInterruptStatus() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+
+        try (AssetDeleter deleter = new AssetDeleter(1)) {
+            deleter.submit("asset.zip", () -> {
+                started.countDown();
+                await(new CountDownLatch(1));
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+
+            Thread.currentThread().interrupt();
+            try {
+                MojoExecutionException ex = assertThrows(MojoExecutionException.class,
+                    () -> deleter.await("asset.zip"));
+                assertTrue(ex.getCause() instanceof InterruptedException, String.valueOf(ex.getCause()));
+                assertTrue(Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
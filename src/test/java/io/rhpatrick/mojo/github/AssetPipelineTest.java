@@ -0,0 +1,280 @@
+/*
+ * AssetPipelineTest.java - This file contains unit tests for the AssetPipeline class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.rhpatrick.mojo.github.AssetPipeline.SchedulingPolicy;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AssetPipelineTest {
+    @TempDir
+    Path tempDirectory;
+
+    @DisplayName("Test AssetPipeline.run() hashes later files while earlier files are uploading")
+    @Test
+    public void run_WithSlowUpload_OverlapsHashingAndUploading() throws Exception {
+        List<File> files = createFiles(3, 10);
+        CountDownLatch lastFileHashed = new CountDownLatch(1);
+        AssetPipeline pipeline = new AssetPipeline(1, 1, 0, SchedulingPolicy.SCAN_ORDER, new SystemStreamLog());
+
+        List<String> results = pipeline.run(sink -> {
+            for (File file : files) {
+                sink.accept(file, 0);
+            }
+        }, file -> {
+            if (file.equals(files.get(2))) {
+                lastFileHashed.countDown();
+            }
+            return file.getName().toUpperCase();
+        }, (file, digest) -> {
+            // The first upload only finishes once the hash stage has moved past it
+            if (file.equals(files.get(0)) && !await(lastFileHashed)) {
+                throw new MojoExecutionException("Hashing did not overlap the upload");
+            }
+            return digest;
+        });
+
+        assertEquals(Arrays.asList("FILE0.BIN", "FILE1.BIN", "FILE2.BIN"), results);
+    }
+
+    @DisplayName("Test AssetPipeline.run() limits the bytes hashed but not yet uploaded")
+    @Test
+    public void run_WithInFlightLimit_NeverExceedsLimit() throws Exception {
+        List<File> files = createFiles(8, 100);
+        File largeFile = createFile("large.bin", 250);
+        files.add(largeFile);
+        AssetPipeline pipeline = new AssetPipeline(4, 2, 200, SchedulingPolicy.SCAN_ORDER, new SystemStreamLog());
+        AtomicLong maxInFlightBytes = new AtomicLong();
+
+        List<Long> results = pipeline.run(sink -> {
+            for (File file : files) {
+                sink.accept(file, 0);
+            }
+        }, file -> null, (file, digest) -> {
+            long inFlightBytes = pipeline.getInFlightBytes();
+            maxInFlightBytes.accumulateAndGet(inFlightBytes, Math::max);
+            await(new CountDownLatch(1), 5);
+            return file.length();
+        });
+
+        assertEquals(files.size(), results.size());
+        // The file larger than the limit is not counted against it
+        assertTrue(maxInFlightBytes.get() <= 200, "In-flight bytes reached " + maxInFlightBytes.get());
+        assertEquals(0, pipeline.getInFlightBytes());
+    }
+
+    @DisplayName("Test AssetPipeline.run() uploads smaller files alongside a file larger than the in-flight limit")
+    @Test
+    public void run_WithLargestFirstAndOversizedFile_UploadsSmallFilesConcurrently() throws Exception {
+        List<File> files = createFiles(6, 10);
+        File largeFile = createFile("large.bin", 150);
+        files.add(largeFile);
+        CountDownLatch smallFilesUploaded = new CountDownLatch(6);
+        CountDownLatch scanned = new CountDownLatch(1);
+        AssetPipeline pipeline = new AssetPipeline(2, 2, 100, SchedulingPolicy.LARGEST_FIRST, new SystemStreamLog());
+
+        List<Boolean> results = pipeline.run(sink -> {
+            for (File file : files) {
+                sink.accept(file, 0);
+            }
+            scanned.countDown();
+        }, file -> {
+            await(scanned);
+            return null;
+        }, (file, digest) -> {
+            if (file.equals(largeFile)) {
+                // The large file only finishes once the small files have been uploaded on the other thread
+                return await(smallFilesUploaded, TimeUnit.SECONDS.toMillis(5));
+            }
+            smallFilesUploaded.countDown();
+            return true;
+        });
+
+        assertEquals(Collections.nCopies(files.size(), true), results);
+    }
+
+    @DisplayName("Test AssetPipeline.run() finishes the scanned files before reporting every failure")
+    @Test
+    public void run_WithFailures_ProcessesScannedFilesAndAggregatesFailures() throws Exception {
+        List<File> files = createFiles(4, 10);
+        AssetPipeline pipeline = new AssetPipeline(2, 2, 0, SchedulingPolicy.SCAN_ORDER, new SystemStreamLog());
+        AtomicInteger uploads = new AtomicInteger();
+
+        MojoExecutionException ex = assertThrows(MojoExecutionException.class, () -> pipeline.run(sink -> {
+            for (File file : files) {
+                sink.accept(file, 0);
+            }
+            throw new MojoExecutionException("scan failed");
+        }, file -> {
+            if (file.equals(files.get(1))) {
+                throw new MojoExecutionException("hash failed");
+            }
+            return null;
+        }, (file, digest) -> {
+            uploads.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(3, uploads.get());
+        assertEquals("2 of 5 asset tasks failed, first error: hash failed", ex.getMessage());
+        assertEquals("scan failed", ex.getSuppressed()[0].getMessage());
+    }
+
+    @DisplayName("Test AssetPipeline.run() fails the files whose hash or upload throws an Error instead of hanging")
+    @Test
+    @Timeout(30)
+    public void run_WithErrors_FailsFilesWithoutHanging() throws Exception {
+        List<File> files = createFiles(4, 10);
+        AssetPipeline pipeline = new AssetPipeline(1, 1, 0, SchedulingPolicy.SCAN_ORDER, new SystemStreamLog());
+        AtomicInteger uploads = new AtomicInteger();
+
+        MojoExecutionException ex = assertThrows(MojoExecutionException.class, () -> pipeline.run(sink -> {
+            for (File file : files) {
+                sink.accept(file, 0);
+            }
+        }, file -> {
+            if (file.equals(files.get(0))) {
+                throw new OutOfMemoryError("Map failed");
+            }
+            return null;
+        }, (file, digest) -> {
+            if (file.equals(files.get(1))) {
+                throw new AssertionError("upload failed");
+            }
+            uploads.incrementAndGet();
+            return null;
+        }));
+
+        // The single hash and upload threads survive their Errors and process the remaining files
+        assertEquals(2, uploads.get());
+        assertTrue(ex.getMessage().startsWith("2 of 4 asset tasks failed"), ex.getMessage());
+        assertTrue(ex.getCause().getCause() instanceof OutOfMemoryError, String.valueOf(ex.getCause()));
+    }
+
+    @DisplayName("Test AssetPipeline.run() uploads the largest files first, after files with a higher priority")
+    @Test
+    public void run_WithLargestFirst_MinimizesMakespan() throws Exception {
+        // Many small files with a large file scanned last, which becomes a long tail when uploaded in scan order
+        List<File> files = createFiles(6, 10);
+        File largeFile = createFile("large.bin", 40);
+        files.add(largeFile);
+        File priorityFile = createFile("priority.bin", 5);
+        CountDownLatch firstFileTaken = new CountDownLatch(1);
+        CountDownLatch scanned = new CountDownLatch(1);
+        List<File> uploadOrder = Collections.synchronizedList(new ArrayList<>());
+        AssetPipeline pipeline = new AssetPipeline(1, 1, 0, SchedulingPolicy.LARGEST_FIRST, new SystemStreamLog());
+
+        pipeline.run(sink -> {
+            // Scan the rest of the files only after the first one is being hashed, and hold the first one until
+            // everything is scanned, so that the order does not depend on timing
+            sink.accept(files.get(0), 0);
+            await(firstFileTaken);
+            for (File file : files.subList(1, files.size())) {
+                sink.accept(file, 0);
+            }
+            sink.accept(priorityFile, 1);
+            scanned.countDown();
+        }, file -> {
+            firstFileTaken.countDown();
+            await(scanned);
+            return null;
+        }, (file, digest) -> uploadOrder.add(file));
+
+        // Apart from the first file, which was hashed before the others were scanned, the priority file is
+        // uploaded first and then the rest are uploaded largest first
+        List<Long> sizes = new ArrayList<>();
+        for (File file : uploadOrder) {
+            if (!file.equals(files.get(0))) {
+                sizes.add(file.length());
+            }
+        }
+        assertEquals(Arrays.asList(5L, 40L, 10L, 10L, 10L, 10L, 10L), sizes);
+
+        // Replay both orders in virtual time on two upload threads
+        List<Long> scanOrder = Arrays.asList(10L, 10L, 10L, 10L, 10L, 10L, 40L);
+        List<Long> largestFirst = sizes.subList(1, sizes.size());
+        largestFirst.add(10L);
+        assertEquals(70, getMakespan(scanOrder, 2));
+        assertEquals(50, getMakespan(largestFirst, 2));
+    }
+
+    // Each upload starts on whichever thread becomes free first and takes time proportional to its size
+    private static long getMakespan(List<Long> durations, int threads) {
+        PriorityQueue<Long> threadFreeTimes = new PriorityQueue<>();
+        for (int i = 0; i < threads; i++) {
+            threadFreeTimes.add(0L);
+        }
+        long makespan = 0;
+        for (long duration : durations) {
+            long finishTime = threadFreeTimes.remove() + duration;
+            threadFreeTimes.add(finishTime);
+            makespan = Math.max(makespan, finishTime);
+        }
+        return makespan;
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        return await(latch, TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private static boolean await(CountDownLatch latch, long millis) {
+        try {
+            return latch.await(millis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<File> createFiles(int count, long size) throws Exception {
+        List<File> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(createFile("file" + i + ".bin", size));
+        }
+        return result;
+    }
+
+    private File createFile(String name, long size) throws Exception {
+        File file = tempDirectory.resolve(name).toFile();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(size);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * BandwidthLimiterTest.java - This file contains unit tests for the BandwidthLimiter class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BandwidthLimiterTest {
+    private static final int CHUNK = ReleaseAssetClient.BUFFER_SIZE;
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @DisplayName("Test BandwidthLimiter.reserve() allows a burst and then charges the debt at the rate")
+    @Test
+    public void reserve_BeyondBurst_ReturnsWaitForDebt() {
+        // The burst is one buffer since a tenth of a second at this rate is smaller
+        BandwidthLimiter limiter = new BandwidthLimiter(CHUNK);
+        long now = System.nanoTime();
+
+        assertEquals(0, limiter.reserve(CHUNK, now));
+        assertEquals(NANOS_PER_SECOND, limiter.reserve(CHUNK, now));
+        // Concurrent senders queue up behind the existing debt
+        assertEquals(2 * NANOS_PER_SECOND, limiter.reserve(CHUNK, now));
+        // Time passing repays the debt
+        assertEquals(NANOS_PER_SECOND, limiter.reserve(0, now + NANOS_PER_SECOND));
+    }
+
+    @DisplayName("Test BandwidthLimiter.acquire() holds concurrent senders to the combined rate")
+    @Test
+    public void acquire_ConcurrentSenders_HoldsRate() throws Exception {
+        long bytesPerSecond = 32L * CHUNK;
+        BandwidthLimiter limiter = new BandwidthLimiter(bytesPerSecond);
+        int chunksPerThread = 16;
+        Thread[] threads = new Thread[2];
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int chunk = 0; chunk < chunksPerThread; chunk++) {
+                        limiter.acquire(CHUNK);
+                    }
+                } catch (InterruptedIOException ex) {
+                    failure.set(ex);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        // 32 chunks at 32 chunks per second, less the initial burst of 3.2 chunks
+        assertEquals(null, failure.get());
+        double expectedNanos = (threads.length * chunksPerThread * CHUNK - bytesPerSecond / 10)
+            * (double) NANOS_PER_SECOND / bytesPerSecond;
+        assertTrue(elapsedNanos >= expectedNanos * 0.97, "elapsed " + elapsedNanos);
+        assertTrue(elapsedNanos <= expectedNanos * 1.5, "elapsed " + elapsedNanos);
+    }
+
+    @DisplayName("Test BandwidthLimiter.acquire() stops waiting when the thread is interrupted")
+    @Test
+    public void acquire_Interrupted_ThrowsInterruptedIOException() throws Exception {
+        BandwidthLimiter limiter = new BandwidthLimiter(1);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(InterruptedIOException.class, () -> limiter.acquire(CHUNK + 1));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @DisplayName("Test BandwidthLimiter rejects a rate that is not positive")
+    @Test
+    public void constructor_ZeroRate_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new BandwidthLimiter(0));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * ChecksumManifestTest.java - This file contains unit tests for the ChecksumManifest class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChecksumManifestTest {
+    // SHA-256 of "hello\n"
+    private static final String HELLO_DIGEST = "5891b5b522d5df086d0ff0b110fbd9d21bb4fc7163af34d08286a2e846f6be03";
+
+    @DisplayName("Test ChecksumManifest.parse() reads sha256sum text and binary mode lines")
+    @Test
+    public void parse_WithSha256SumOutput_ReadsAllEntries() {
+        String content = HELLO_DIGEST + "  hello.txt\n" +
+            HELLO_DIGEST.toUpperCase() + " *my asset.zip\r\n" +
+            "not a checksum line\n";
+
+        ChecksumManifest manifest = ChecksumManifest.parse(content.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(2, manifest.size());
+        assertEquals(HELLO_DIGEST, manifest.get("hello.txt"));
+        assertEquals(HELLO_DIGEST, manifest.get("my asset.zip"));
+        assertNull(manifest.get("not"));
+        assertFalse(manifest.isModified());
+    }
+
+    @DisplayName("Test ChecksumManifest.toBytes() writes sorted entries that parse back to the same manifest")
+    @Test
+    public void toBytes_WithEntries_RoundTrips() {
+        ChecksumManifest manifest = new ChecksumManifest();
+        manifest.put("b.zip", HELLO_DIGEST);
+        manifest.put("a.zip", HELLO_DIGEST);
+
+        String content = new String(manifest.toBytes(), StandardCharsets.UTF_8);
+
+        assertEquals(HELLO_DIGEST + "  a.zip\n" + HELLO_DIGEST + "  b.zip\n", content);
+        assertEquals(HELLO_DIGEST, ChecksumManifest.parse(manifest.toBytes()).get("b.zip"));
+    }
+
+    @DisplayName("Test ChecksumManifest only reports modifications that change its content")
+    @Test
+    public void isModified_AfterChanges_TracksContentChanges() {
+        ChecksumManifest manifest = ChecksumManifest.parse((HELLO_DIGEST + "  a.zip\n" + HELLO_DIGEST + "  b.zip\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+        manifest.put("a.zip", HELLO_DIGEST);
+        manifest.retainAll(name -> true);
+        assertFalse(manifest.isModified());
+
+        manifest.retainAll("a.zip"::equals);
+        assertTrue(manifest.isModified());
+        assertNull(manifest.get("b.zip"));
+
+        manifest.markPublished();
+        assertFalse(manifest.isModified());
+    }
+}
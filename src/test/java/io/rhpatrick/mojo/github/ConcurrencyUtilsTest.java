@@ -0,0 +1,72 @@
+/*
+ * ConcurrencyUtilsTest.java - This file contains unit tests for the ConcurrencyUtils class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyUtilsTest {
+
+    @DisplayName("Test ConcurrencyUtils.aggregateFailures() returns a single failure as is")
+    @Test
+    public void aggregateFailures_WithOneFailure_ReturnsFailure() {
+        MojoExecutionException failure = new MojoExecutionException("failed");
+
+        MojoExecutionException result = ConcurrencyUtils.aggregateFailures("test",
+            Collections.singletonList(failure), 5, new SystemStreamLog());
+
+        assertSame(failure, result);
+    }
+
+    @DisplayName("Test ConcurrencyUtils.aggregateFailures() reports the first of several failures")
+    @Test
+    public void aggregateFailures_WithSeveralFailures_SuppressesTheOthers() {
+        MojoExecutionException first = new MojoExecutionException("failed 1");
+        MojoExecutionException second = new MojoExecutionException("failed 2");
+        MojoExecutionException third = new MojoExecutionException("failed 3");
+
+        MojoExecutionException result = ConcurrencyUtils.aggregateFailures("test",
+            Arrays.asList(first, second, third), 5, new SystemStreamLog());
+
+        assertEquals("3 of 5 test tasks failed, first error: failed 1", result.getMessage());
+        assertSame(first, result.getCause());
+        assertEquals(Arrays.asList(second, third), Arrays.asList(result.getSuppressed()));
+    }
+
+    @DisplayName("Test ConcurrencyUtils.toMojoExecutionException() wraps unexpected failures")
+    @Test
+    public void toMojoExecutionException_WithError_WrapsError() {
+        MojoExecutionException failure = new MojoExecutionException("failed");
+        Error error = new OutOfMemoryError("Map failed");
+
+        MojoExecutionException result = ConcurrencyUtils.toMojoExecutionException("test", error);
+
+        assertSame(failure, ConcurrencyUtils.toMojoExecutionException("test", failure));
+        assertSame(error, result.getCause());
+        assertTrue(result.getMessage().startsWith("test task failed unexpectedly"), result.getMessage());
+    }
+}
@@ -18,14 +18,46 @@
 package io.rhpatrick.mojo.github;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigestSpi;
+import java.security.Provider;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.shared.utils.xml.Xpp3Dom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CreateReleaseMojoTest {
     private static final String TEST_MD_EXPECTED =
@@ -45,6 +77,22 @@ public class CreateReleaseMojoTest {
         + "      <passphrase>{kRBjmPgdyiHERnNNRp3tWCk2zPWMXBKJQVHxpVcW4T/FCp/L2h29+TRmVlgXh9gAX83hnhS302zAoVSdUTc/FA==}</passphrase>\n"
         + "    </server>\n"
         + "```\n";
+    private static final String AUTH_TOKEN_PROPERTY_NAME = "github.auth.token";
+    private static final String PLUGIN_KEY = "io.rhpatrick.mojo:github-maven-plugin";
+    private static final String GOAL = "create-release";
+
+    @TempDir
+    Path tempDirectory;
+
+    @BeforeEach
+    public void setAuthToken() {
+        System.setProperty(AUTH_TOKEN_PROPERTY_NAME, StubGitHubServer.AUTH_TOKEN);
+    }
+
+    @AfterEach
+    public void clearAuthToken() {
+        System.clearProperty(AUTH_TOKEN_PROPERTY_NAME);
+    }
 
     @DisplayName("Test CreateReleaseMojo.getFileContents(file)")
     @Test
@@ -94,4 +142,448 @@ public class CreateReleaseMojoTest {
 
         assertEquals("getFileContents() requires a file that is not a directory", ex.getMessage());
     }
+
+    @DisplayName("Test CreateReleaseMojo.getMimeTypeFromFileExtension() with the default mappings")
+    @Test
+    public void getMimeTypeFromFileExtension_KnownExtension_ReturnsMimeType() throws Exception {
+
+        String actual = CreateReleaseMojo.getMimeTypeFromFileExtension("project-1.0.tar.gz",
+            CreateReleaseMojo.DEFAULT_MIME_TYPE_MAPPINGS);
+
+        assertEquals("application/gzip", actual);
+    }
+
+    @DisplayName("Test CreateReleaseMojo.getMimeTypeFromFileExtension(<unmapped extension>)")
+    @Test
+    public void getMimeTypeFromFileExtension_UnknownExtension_ThrowsMojoExecutionException() throws Exception {
+
+        Exception ex = assertThrows(MojoExecutionException.class, () ->
+            CreateReleaseMojo.getMimeTypeFromFileExtension("project-1.0.war",
+                CreateReleaseMojo.DEFAULT_MIME_TYPE_MAPPINGS)
+        );
+
+        assertEquals("Missing MIME type mapping for file extension war", ex.getMessage());
+    }
+
+    @DisplayName("Test CreateReleaseMojo.getPlannedPhases() includes every phase up to the requested ones")
+    @Test
+    public void getPlannedPhases_WithPhases_ReturnsPhasesThatRun() {
+        List<List<String>> lifecycles = Arrays.asList(Arrays.asList("pre-clean", "clean"),
+            Arrays.asList("validate", "package", "install", "deploy"));
+
+        Set<String> actual = CreateReleaseMojo.getPlannedPhases(Arrays.asList("clean", "install", "sonar:sonar"),
+            "create-release", lifecycles);
+
+        assertEquals(new HashSet<>(Arrays.asList("pre-clean", "clean", "validate", "package", "install")), actual);
+        assertNull(CreateReleaseMojo.getPlannedPhases(Arrays.asList("package", "github:create-release@release"),
+            "create-release", lifecycles));
+    }
+
+    @DisplayName("Test CreateReleaseMojo.registersAggregateAssets() ignores executions that never register")
+    @Test
+    public void registersAggregateAssets_WithUnplannedOrDisabledExecutions_ReturnsFalse() {
+        Set<String> plannedPhases = new HashSet<>(Arrays.asList("validate", "package", "install", "deploy"));
+        Properties properties = new Properties();
+        properties.setProperty("release.aggregate", "true");
+
+        assertTrue(CreateReleaseMojo.registersAggregateAssets(createProject(null, "true"), PLUGIN_KEY, GOAL,
+            "deploy", plannedPhases, properties));
+        assertTrue(CreateReleaseMojo.registersAggregateAssets(createProject("package", "${release.aggregate}"),
+            PLUGIN_KEY, GOAL, "deploy", plannedPhases, properties));
+        assertFalse(CreateReleaseMojo.registersAggregateAssets(createProject("none", "true"), PLUGIN_KEY, GOAL,
+            "deploy", plannedPhases, properties));
+        assertFalse(CreateReleaseMojo.registersAggregateAssets(createProject(null, "true"), PLUGIN_KEY, GOAL,
+            "deploy", new HashSet<>(Arrays.asList("validate", "package")), properties));
+        assertFalse(CreateReleaseMojo.registersAggregateAssets(createProject(null, "false"), PLUGIN_KEY, GOAL,
+            "deploy", plannedPhases, properties));
+        assertFalse(CreateReleaseMojo.registersAggregateAssets(createProject(null, null), PLUGIN_KEY, GOAL,
+            "deploy", plannedPhases, properties));
+        assertFalse(CreateReleaseMojo.registersAggregateAssets(createProject(null, "${undefined}"), PLUGIN_KEY,
+            GOAL, "deploy", plannedPhases, properties));
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() creates the release and uploads the assets and their digests")
+    @Test
+    public void execute_NewRelease_CreatesReleaseAndUploadsAssets() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip", "c.zip"));
+            StubGitHubServer.setParameter(mojo, "uploadThreads", 2);
+            StubGitHubServer.setParameter(mojo, "skipUnchangedAssets", true);
+            File reportFile = tempDirectory.resolve("report/release-report.json").toFile();
+            StubGitHubServer.setParameter(mojo, "reportFile", reportFile);
+
+            mojo.execute();
+
+            long releaseId = server.getReleaseId("1.0.0");
+            List<String> assetNames = new ArrayList<>(server.getAssetNames(releaseId));
+            Collections.sort(assetNames);
+            assertEquals(Arrays.asList("SHA256SUMS", "a.zip", "b.zip", "c.zip"), assetNames);
+            assertEquals("content of b.zip", new String(server.getAssetContent(releaseId, "b.zip"),
+                StandardCharsets.UTF_8));
+            assertEquals(1, server.getRequestCount("POST releases"));
+            assertEquals(4, server.getRequestCount("POST asset"));
+
+            Map<?, ?> report = new ObjectMapper().readValue(reportFile, Map.class);
+            assertEquals(true, report.get("success"));
+            assertEquals(3, ((List<?>) report.get("assets")).size());
+            assertEquals(3, ((Map<?, ?>) report.get("uploads")).get("count"));
+            assertTrue(report.get("apiRequests").toString().contains("POST /repos/{owner}/{repo}/releases,"),
+                report.get("apiRequests").toString());
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() makes no asset requests when the state file shows no changes")
+    @Test
+    public void execute_WithUnchangedStateFile_SkipsAssetRequests() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            File stateFile = tempDirectory.resolve("release.state").toFile();
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip"));
+            StubGitHubServer.setParameter(mojo, "stateFile", stateFile);
+            mojo.execute();
+            server.resetStatistics();
+
+            CreateReleaseMojo rerun = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(rerun, "assets", createAssets("a.zip", "b.zip"));
+            StubGitHubServer.setParameter(rerun, "stateFile", stateFile);
+            rerun.execute();
+
+            // Only the user, repository, and release lookups
+            assertEquals(1, server.getRequestCount("GET repository"));
+            assertEquals(1, server.getRequestCount("GET release by tag"));
+            assertEquals(3, server.getRequestCount(), server.getRequestCounts().toString());
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() deletes the assets being overwritten and uploads the new ones")
+    @Test
+    public void execute_OverwriteExistingAssets_ReplacesAssets() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            long releaseId = server.addRelease("1.0.0", "Release 1.0.0");
+            for (String name : Arrays.asList("a.zip", "b.zip", "c.zip", "old.zip")) {
+                server.addAsset(releaseId, name, "old".getBytes(StandardCharsets.UTF_8));
+            }
+            server.setLatency(20);
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip", "c.zip", "d.zip"));
+            StubGitHubServer.setParameter(mojo, "uploadThreads", 4);
+            StubGitHubServer.setParameter(mojo, "overwriteExistingAssets", true);
+
+            mojo.execute();
+
+            List<String> assetNames = new ArrayList<>(server.getAssetNames(releaseId));
+            Collections.sort(assetNames);
+            assertEquals(Arrays.asList("a.zip", "b.zip", "c.zip", "d.zip", "old.zip"), assetNames);
+            for (String name : Arrays.asList("a.zip", "b.zip", "c.zip", "d.zip")) {
+                assertEquals("content of " + name, new String(server.getAssetContent(releaseId, name),
+                    StandardCharsets.UTF_8));
+            }
+            assertEquals(3, server.getRequestCount("DELETE asset"));
+            assertEquals(4, server.getRequestCount("POST asset"));
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() keeps an asset being overwritten if hashing its replacement fails")
+    @Test
+    public void execute_OverwriteExistingAssetsWithHashFailure_KeepsExistingAsset() throws Exception {
+        Security.addProvider(new FailingDigestProvider());
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            long releaseId = server.addRelease("1.0.0", "Release 1.0.0");
+            server.addAsset(releaseId, "a.zip", "old".getBytes(StandardCharsets.UTF_8));
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip"));
+            StubGitHubServer.setParameter(mojo, "overwriteExistingAssets", true);
+            StubGitHubServer.setParameter(mojo, "checksumAlgorithms",
+                Collections.singletonList(FailingDigestProvider.ALGORITHM));
+
+            assertThrows(MojoExecutionException.class, mojo::execute);
+
+            assertEquals(Collections.singletonList("a.zip"), server.getAssetNames(releaseId));
+            assertEquals("old", new String(server.getAssetContent(releaseId, "a.zip"), StandardCharsets.UTF_8));
+            assertEquals(0, server.getRequestCount("DELETE asset"));
+        } finally {
+            Security.removeProvider(FailingDigestProvider.NAME);
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() swaps the new assets into place before deleting the old ones")
+    @Test
+    public void execute_SwapExistingAssets_RenamesThenDeletes() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            long releaseId = server.addRelease("1.0.0", "Release 1.0.0");
+            server.addAsset(releaseId, "a.zip", "old".getBytes(StandardCharsets.UTF_8));
+            server.addAsset(releaseId, "b.zip", "old".getBytes(StandardCharsets.UTF_8));
+            // Left by an earlier run that failed before swapping b.zip
+            server.addAsset(releaseId, "b.zip" + CreateReleaseMojo.TEMPORARY_ASSET_SUFFIX,
+                "partial".getBytes(StandardCharsets.UTF_8));
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip", "c.zip"));
+            StubGitHubServer.setParameter(mojo, "uploadThreads", 2);
+            StubGitHubServer.setParameter(mojo, "overwriteExistingAssets", true);
+            StubGitHubServer.setParameter(mojo, "swapExistingAssets", true);
+
+            mojo.execute();
+
+            List<String> assetNames = new ArrayList<>(server.getAssetNames(releaseId));
+            Collections.sort(assetNames);
+            assertEquals(Arrays.asList("a.zip", "b.zip", "c.zip"), assetNames);
+            for (String name : assetNames) {
+                assertEquals("content of " + name, new String(server.getAssetContent(releaseId, name),
+                    StandardCharsets.UTF_8));
+            }
+            // Each replaced asset is renamed out of the way and its replacement renamed into place
+            assertEquals(4, server.getRequestCount("PATCH asset"));
+            assertEquals(3, server.getRequestCount("DELETE asset"));
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() updates an existing release and only uploads changed assets")
+    @Test
+    public void execute_UpdateExistingRelease_UploadsOnlyChangedAssets() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip"));
+            StubGitHubServer.setParameter(mojo, "updateExistingRelease", true);
+            mojo.execute();
+            long releaseId = server.getReleaseId("1.0.0");
+
+            Files.write(tempDirectory.resolve("assets").resolve("b.zip"), "changed".getBytes(StandardCharsets.UTF_8));
+            server.resetStatistics();
+            mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "name", "Release 1.0.0 (updated)");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip"));
+            StubGitHubServer.setParameter(mojo, "updateExistingRelease", true);
+            // The release found for the tag has another name, so renaming it has to be allowed explicitly
+            assertThrows(MojoExecutionException.class, mojo::execute);
+            assertEquals(0, server.getRequestCount("PATCH release"));
+            mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "name", "Release 1.0.0 (updated)");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip"));
+            StubGitHubServer.setParameter(mojo, "updateExistingRelease", true);
+            StubGitHubServer.setParameter(mojo, "allowReleaseNameMismatch", true);
+            mojo.execute();
+
+            assertEquals(releaseId, server.getReleaseId("1.0.0"));
+            assertEquals("Release 1.0.0 (updated)", server.getReleaseName(releaseId));
+            assertEquals(1, server.getRequestCount("PATCH release"));
+            assertEquals(0, server.getRequestCount("DELETE release"));
+            // Only the changed asset and the checksum manifest are uploaded again
+            assertEquals(2, server.getRequestCount("POST asset"));
+            assertEquals("changed", new String(server.getAssetContent(releaseId, "b.zip"), StandardCharsets.UTF_8));
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() in one session does not share a client across API URLs")
+    @Test
+    public void execute_WithDifferentApiUrlsInOneSession_UsesEachEndpoint() throws Exception {
+        @SuppressWarnings("deprecation")
+        MavenSession session = new MavenSession(null, null, new DefaultMavenExecutionRequest(),
+            new DefaultMavenExecutionResult());
+        try (StubGitHubServer first = new StubGitHubServer(); StubGitHubServer second = new StubGitHubServer()) {
+            for (StubGitHubServer server : Arrays.asList(first, second)) {
+                CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+                StubGitHubServer.setParameter(mojo, "session", session);
+                mojo.execute();
+            }
+
+            assertEquals(1, first.getRequestCount("POST releases"));
+            assertEquals(1, second.getRequestCount("POST releases"));
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() in one session raises the shared upload concurrency as needed")
+    @Test
+    public void execute_WithDifferentUploadThreadsInOneSession_UsesLargestConcurrency() throws Exception {
+        @SuppressWarnings("deprecation")
+        MavenSession session = new MavenSession(null, null, new DefaultMavenExecutionRequest(),
+            new DefaultMavenExecutionResult());
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            int[] uploadThreads = { 1, 4, 2 };
+            for (int i = 0; i < uploadThreads.length; i++) {
+                CreateReleaseMojo mojo = server.createReleaseMojo("1.0." + i);
+                StubGitHubServer.setParameter(mojo, "session", session);
+                StubGitHubServer.setParameter(mojo, "assets", createAssets("a" + i + ".zip", "b" + i + ".zip"));
+                StubGitHubServer.setParameter(mojo, "uploadThreads", uploadThreads[i]);
+                mojo.execute();
+            }
+
+            RateLimitScheduler scheduler = GitHubSessionContext.forSession(session)
+                .getRateLimitScheduler("github|" + server.getApiUrl(), () -> null);
+            assertEquals(4, scheduler.getConcurrencyLimit());
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() with draft reuses the draft release created by an earlier run")
+    @Test
+    public void execute_WithDraftRerun_ReusesDraftRelease() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            for (int run = 0; run < 2; run++) {
+                CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+                StubGitHubServer.setParameter(mojo, "draft", true);
+
+                mojo.execute();
+            }
+
+            assertEquals(1, server.getRequestCount("POST releases"));
+            // Each run falls back to the search by name since the tag lookup does not return the draft
+            assertEquals(2, server.getRequestCount("GET releases"));
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() with dryRun plans the changes without making any")
+    @Test
+    public void execute_DryRun_PlansWithoutWriting() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip"));
+            StubGitHubServer.setParameter(mojo, "updateExistingRelease", true);
+            mojo.execute();
+            long releaseId = server.getReleaseId("1.0.0");
+
+            Files.write(tempDirectory.resolve("assets").resolve("b.zip"), "changed".getBytes(StandardCharsets.UTF_8));
+            server.resetStatistics();
+            mojo = server.createReleaseMojo("1.0.0");
+            File reportFile = tempDirectory.resolve("plan-report.json").toFile();
+            StubGitHubServer.setParameter(mojo, "name", "Release 1.0.0 (updated)");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip", "c.zip"));
+            StubGitHubServer.setParameter(mojo, "updateExistingRelease", true);
+            StubGitHubServer.setParameter(mojo, "allowReleaseNameMismatch", true);
+            StubGitHubServer.setParameter(mojo, "dryRun", true);
+            StubGitHubServer.setParameter(mojo, "reportFile", reportFile);
+            mojo.execute();
+
+            for (String kind : server.getRequestCounts().keySet()) {
+                assertTrue(kind.startsWith("GET "), server.getRequestCounts().toString());
+            }
+            assertEquals("Release 1.0.0", server.getReleaseName(releaseId));
+            assertEquals("content of b.zip", new String(server.getAssetContent(releaseId, "b.zip"),
+                StandardCharsets.UTF_8));
+
+            Map<?, ?> plan = (Map<?, ?>) new ObjectMapper().readValue(reportFile, Map.class).get("plan");
+            assertEquals("update", plan.get("releaseAction"));
+            Map<?, ?> assetCounts = (Map<?, ?>) plan.get("assetCounts");
+            assertEquals(1, assetCounts.get("upload"));
+            // The changed asset and the checksum manifest
+            assertEquals(2, assetCounts.get("replace"));
+            assertEquals(1, assetCounts.get("unchanged"));
+            assertEquals(6, plan.get("estimatedApiCalls"));
+        }
+    }
+
+    @DisplayName("Test CreateReleaseMojo.execute() emits Flight Recorder events for API requests and uploads")
+    @Test
+    public void execute_WithFlightRecording_EmitsEvents() throws Exception {
+        Path recordingFile = tempDirectory.resolve("release.jfr");
+        try (StubGitHubServer server = new StubGitHubServer(); Recording recording = new Recording()) {
+            recording.enable("io.rhpatrick.mojo.github.ApiRequest");
+            recording.enable("io.rhpatrick.mojo.github.AssetUpload");
+            recording.start();
+            CreateReleaseMojo mojo = server.createReleaseMojo("1.0.0");
+            StubGitHubServer.setParameter(mojo, "assets", createAssets("a.zip", "b.zip"));
+            mojo.execute();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<String> uploads = new ArrayList<>();
+        List<String> endpoints = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(recordingFile)) {
+            if ("io.rhpatrick.mojo.github.AssetUpload".equals(event.getEventType().getName())) {
+                assertTrue(event.getBoolean("succeeded"));
+                uploads.add(event.getString("assetName") + ':' + event.getLong("size"));
+            } else if ("io.rhpatrick.mojo.github.ApiRequest".equals(event.getEventType().getName())) {
+                endpoints.add(event.getString("method") + ' ' + event.getString("endpoint") + ' '
+                    + event.getInt("status") + ' ' + event.getLong("bytesSent"));
+            }
+        }
+        Collections.sort(uploads);
+        assertEquals(Arrays.asList("a.zip:16", "b.zip:16"), uploads);
+        assertTrue(endpoints.contains("POST /repos/{owner}/{repo}/releases 201 0"), endpoints.toString());
+        // The asset uploads are API requests too
+        assertEquals(2, Collections.frequency(endpoints, "POST /repos/{owner}/{repo}/releases/{id}/assets 201 16"),
+            endpoints.toString());
+    }
+
+    private List<AssetFileSet> createAssets(String... names) throws Exception {
+        Path directory = tempDirectory.resolve("assets");
+        Files.createDirectories(directory);
+        for (String name : names) {
+            Path file = directory.resolve(name);
+            if (!Files.exists(file)) {
+                Files.write(file, ("content of " + name).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        AssetFileSet fileSet = new AssetFileSet();
+        fileSet.setDirectory(directory.toString());
+        fileSet.setIncludes(Arrays.asList(names));
+        return Collections.singletonList(fileSet);
+    }
+
+    private static MavenProject createProject(String phase, String aggregate) {
+        PluginExecution execution = new PluginExecution();
+        execution.setId("release");
+        execution.setPhase(phase);
+        execution.addGoal(GOAL);
+        if (aggregate != null) {
+            Xpp3Dom configuration = new Xpp3Dom("configuration");
+            Xpp3Dom child = new Xpp3Dom("aggregate");
+            child.setValue(aggregate);
+            configuration.addChild(child);
+            execution.setConfiguration(configuration);
+        }
+        Plugin plugin = new Plugin();
+        plugin.setGroupId("io.rhpatrick.mojo");
+        plugin.setArtifactId("github-maven-plugin");
+        plugin.addExecution(execution);
+
+        MavenProject project = new MavenProject();
+        project.getBuild().addPlugin(plugin);
+        return project;
+    }
+
+    // A digest algorithm that the JVM accepts but that fails when it is given any content, only after long enough
+    // for a deletion that was started before hashing to complete
+    private static final class FailingDigestProvider extends Provider {
+        private static final long serialVersionUID = 1L;
+        static final String NAME = "FailingDigest";
+        static final String ALGORITHM = "FAILING";
+
+        // The constructor taking the version as a string is not available on Java 8
+        @SuppressWarnings("deprecation")
+        FailingDigestProvider() {
+            super(NAME, 1.0, "Digest that fails to hash");
+            put("MessageDigest." + ALGORITHM, FailingDigest.class.getName());
+        }
+    }
+
+    public static final class FailingDigest extends MessageDigestSpi {
+        @Override
+        protected void engineUpdate(byte input) {
+            fail();
+        }
+
+        @Override
+        protected void engineUpdate(byte[] input, int offset, int len) {
+            fail();
+        }
+
+        @Override
+        protected byte[] engineDigest() {
+            return new byte[0];
+        }
+
+        @Override
+        protected void engineReset() {
+        }
+
+        private static void fail() {
+            try {
+                TimeUnit.MILLISECONDS.sleep(500);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Hashing failed");
+        }
+    }
 }
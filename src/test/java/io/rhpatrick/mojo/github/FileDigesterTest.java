@@ -0,0 +1,96 @@
+/*
+ * FileDigesterTest.java - This file contains unit tests for the FileDigester class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class FileDigesterTest {
+    private static final String HELLO_SHA_256 = "5891b5b522d5df086d0ff0b110fbd9d21bb4fc7163af34d08286a2e846f6be03";
+    private static final String HELLO_SHA_512 = "e7c22b994c59d9cf2b48e549b1e24666636045930d3da7c1acb299d1c3b7f931" +
+        "f94aae41edda2c2b207a36e10f8bcb8d45223e54878f5b316e7ce3b6bc019629";
+
+    @TempDir
+    Path tempDirectory;
+
+    @DisplayName("Test FileDigester.digest() computes several digests of a file in one call")
+    @Test
+    public void digest_WithSeveralAlgorithms_MatchesShaSums() throws Exception {
+        File file = tempDirectory.resolve("hello.txt").toFile();
+        Files.write(file.toPath(), "hello\n".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> digests = FileDigester.digest(file, Arrays.asList("SHA-512", FileDigester.SHA_256));
+
+        assertEquals(Arrays.asList("SHA-512", "SHA-256"), Arrays.asList(digests.keySet().toArray()));
+        assertEquals(HELLO_SHA_512, digests.get("SHA-512"));
+        assertEquals(HELLO_SHA_256, digests.get(FileDigester.SHA_256));
+        assertEquals(HELLO_SHA_256, FileDigester.digest(file, FileDigester.SHA_256));
+    }
+
+    @DisplayName("Test FileDigester.digest() handles files that span several mapped windows and empty files")
+    @Test
+    public void digest_WithFileLargerThanWindow_MatchesStreamingDigest() throws Exception {
+        File file = tempDirectory.resolve("large.bin").toFile();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(FileDigester.MAP_WINDOW_SIZE + 3);
+            randomAccessFile.seek(FileDigester.MAP_WINDOW_SIZE + 1);
+            randomAccessFile.write(42);
+        }
+        File emptyFile = tempDirectory.resolve("empty.bin").toFile();
+        Files.write(emptyFile.toPath(), new byte[0]);
+
+        assertEquals(FileDigester.toHex(streamingDigest(file)), FileDigester.digest(file, FileDigester.SHA_256));
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+            FileDigester.digest(emptyFile, FileDigester.SHA_256));
+    }
+
+    @DisplayName("Test FileDigester.digest() rejects unsupported algorithms")
+    @Test
+    public void digest_WithUnknownAlgorithm_ThrowsIOException() throws Exception {
+        File file = tempDirectory.resolve("hello.txt").toFile();
+        Files.write(file.toPath(), "hello\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> FileDigester.digest(file, "NOT-A-DIGEST"));
+    }
+
+    private static byte[] streamingDigest(File file) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance(FileDigester.SHA_256);
+        byte[] buffer = new byte[1024 * 1024];
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        return digest.digest();
+    }
+}
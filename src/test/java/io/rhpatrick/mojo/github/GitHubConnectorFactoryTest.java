@@ -0,0 +1,153 @@
+/*
+ * GitHubConnectorFactoryTest.java - This file contains unit tests for the GitHubConnectorFactory class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpServer;
+import io.rhpatrick.mojo.github.GitHubConnectorFactory.ConnectorType;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GitHubConnectorFactoryTest {
+    private static final String ETAG = "\"abc123\"";
+    private static final byte[] REPOSITORY_JSON =
+        "{\"id\":1,\"name\":\"github-maven-plugin\",\"full_name\":\"rpatrick00/github-maven-plugin\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+
+    @TempDir
+    Path cacheDirectory;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/repos/rpatrick00/github-maven-plugin", exchange -> {
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            exchange.getResponseHeaders().add("Cache-Control", "private, max-age=60, s-maxage=60");
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                fullResponses.incrementAndGet();
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, REPOSITORY_JSON.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(REPOSITORY_JSON);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @DisplayName("Test GitHubConnectorFactory response cache revalidates with conditional requests")
+    @Test
+    public void create_WithResponseCache_RevalidatesCachedResponses() throws Exception {
+        File directory = cacheDirectory.toFile();
+        GitHub github = newGitHub(new GitHubConnectorFactory().withResponseCache(directory, 1));
+
+        GHRepository first = github.getRepository("rpatrick00/github-maven-plugin");
+        GHRepository second = github.getRepository("rpatrick00/github-maven-plugin");
+
+        assertEquals("github-maven-plugin", first.getName());
+        assertEquals("github-maven-plugin", second.getName());
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+
+    @DisplayName("Test GitHubConnectorFactory does not cache responses in a directory locked by another build")
+    @Test
+    public void create_WithLockedResponseCache_AlwaysFetchesResponses() throws Exception {
+        File directory = cacheDirectory.toFile();
+        try (FileChannel channel = FileChannel.open(cacheDirectory.resolve("cache.lock"),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE); FileLock lock = channel.lock()) {
+            assertTrue(lock.isValid());
+            GitHub github = newGitHub(new GitHubConnectorFactory().withResponseCache(directory, 1));
+
+            github.getRepository("rpatrick00/github-maven-plugin");
+            github.getRepository("rpatrick00/github-maven-plugin");
+        }
+
+        assertEquals(2, fullResponses.get());
+        assertEquals(0, notModifiedResponses.get());
+    }
+
+    @DisplayName("Test GitHubConnectorFactory default connector does not cache responses")
+    @Test
+    public void create_WithoutResponseCache_AlwaysFetchesResponses() throws Exception {
+        GitHub github = newGitHub(new GitHubConnectorFactory());
+
+        github.getRepository("rpatrick00/github-maven-plugin");
+        github.getRepository("rpatrick00/github-maven-plugin");
+
+        assertEquals(2, fullResponses.get());
+        assertEquals(0, notModifiedResponses.get());
+    }
+
+    @DisplayName("Test GitHubConnectorFactory creates working connectors of every type")
+    @ParameterizedTest
+    @EnumSource(ConnectorType.class)
+    public void create_WithConnectorType_ReturnsWorkingConnector(ConnectorType type) throws Exception {
+        GitHub github = newGitHub(new GitHubConnectorFactory()
+            .withConnectorType(type)
+            .withConnectionPool(2, 30)
+            .withTimeouts(5, 5));
+
+        GHRepository repository = github.getRepository("rpatrick00/github-maven-plugin");
+
+        assertEquals("rpatrick00/github-maven-plugin", repository.getFullName());
+        assertEquals(1, fullResponses.get());
+    }
+
+    private GitHub newGitHub(GitHubConnectorFactory connectorFactory) throws Exception {
+        return new GitHubBuilder()
+            .withEndpoint("http://127.0.0.1:" + server.getAddress().getPort())
+            .withOAuthToken("token")
+            .withConnector(connectorFactory.create(new SystemStreamLog()))
+            .build();
+    }
+}
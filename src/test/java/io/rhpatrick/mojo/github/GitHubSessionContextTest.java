@@ -0,0 +1,133 @@
+/*
+ * GitHubSessionContextTest.java - This file contains unit tests for the GitHubSessionContext class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.rhpatrick.mojo.github.GitHubSessionContext.ReleaseHandle;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHAsset;
+import org.kohsuke.github.GHRelease;
+import org.kohsuke.github.GitHubBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GitHubSessionContextTest {
+
+    @DisplayName("Test GitHubSessionContext.getRelease() loads the release only once for concurrent callers")
+    @Test
+    public void getRelease_FromConcurrentExecutions_LoadsReleaseOnce() throws Exception {
+        GitHubSessionContext context = GitHubSessionContext.forSession(null);
+        AtomicInteger loads = new AtomicInteger();
+        List<ReleaseHandle> handles = Collections.synchronizedList(new ArrayList<>());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    handles.add(context.getRelease("github", "owner/repo", "1.0", () -> {
+                        loads.incrementAndGet();
+                        sleep(50L);
+                        return new ReleaseHandle(null, true);
+                    }));
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(8, handles.size());
+        for (ReleaseHandle handle : handles) {
+            assertSame(handles.get(0), handle);
+        }
+    }
+
+    @DisplayName("Test GitHubSessionContext.getRelease() keys releases by tag")
+    @Test
+    public void getRelease_WithDifferentTags_LoadsEachRelease() throws Exception {
+        GitHubSessionContext context = GitHubSessionContext.forSession(null);
+
+        ReleaseHandle first = context.getRelease("github", "owner/repo", "1.0", () -> new ReleaseHandle(null, true));
+        ReleaseHandle second = context.getRelease("github", "owner/repo", "2.0", () -> new ReleaseHandle(null, true));
+
+        assertNotSame(first, second);
+    }
+
+    @DisplayName("Test GitHubSessionContext.getRelease() retries after a failed load")
+    @Test
+    public void getRelease_AfterFailedLoad_LoadsAgain() throws Exception {
+        GitHubSessionContext context = GitHubSessionContext.forSession(null);
+
+        Exception ex = assertThrows(MojoExecutionException.class, () ->
+            context.getRelease("github", "owner/repo", "1.0", () -> {
+                throw new MojoExecutionException("create failed");
+            })
+        );
+        ReleaseHandle handle = context.getRelease("github", "owner/repo", "1.0", () -> new ReleaseHandle(null, true));
+
+        assertEquals("create failed", ex.getMessage());
+        assertEquals(0, handle.getAssetIndex(new SystemStreamLog()).size());
+    }
+
+    @DisplayName("Test ReleaseHandle.listAssetsAfter() shares a listing that started after the requested time")
+    @Test
+    public void listAssetsAfter_WithListingStartedLater_ReusesListing() throws Exception {
+        try (StubGitHubServer server = new StubGitHubServer()) {
+            long releaseId = server.addRelease("1.0", "Release 1.0");
+            server.addAsset(releaseId, "a.zip", new byte[] { 1 });
+            GHRelease release = new GitHubBuilder().withEndpoint(server.getApiUrl()).build()
+                .getRepository(StubGitHubServer.REPOSITORY_ID).getRelease(releaseId);
+            ReleaseHandle handle = new ReleaseHandle(release, false);
+            long failedAt = System.nanoTime();
+
+            List<GHAsset> first = handle.listAssetsAfter(failedAt);
+            List<GHAsset> second = handle.listAssetsAfter(failedAt);
+            handle.listAssetsAfter(System.nanoTime());
+
+            assertSame(first, second);
+            assertEquals("a.zip", first.get(0).getName());
+            assertEquals(2, server.getRequestCount("GET assets"));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
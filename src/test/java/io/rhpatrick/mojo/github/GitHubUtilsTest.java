@@ -0,0 +1,124 @@
+/*
+ * GitHubUtilsTest.java - This file contains unit tests for the GitHubUtils class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHRelease;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHubBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GitHubUtilsTest {
+    private final Log logger = new SystemStreamLog();
+    private StubGitHubServer server;
+    private GHRepository repository;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = new StubGitHubServer();
+        server.addRelease("0.9.0", "Release 0.9.0");
+        server.addRelease("1.0.0", "Release 1.0.0");
+        server.addRelease("2.0.0", "Release 2.0.0", true);
+        repository = new GitHubBuilder().withEndpoint(server.getApiUrl()).build()
+            .getRepository(StubGitHubServer.REPOSITORY_ID);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    @DisplayName("Test GitHubUtils.findReleaseByTag() finds published releases only")
+    @Test
+    public void findReleaseByTag_WithPublishedAndDraftReleases_FindsPublishedRelease() throws Exception {
+        GHRelease release = GitHubUtils.findReleaseByTag(repository, "1.0.0", logger);
+
+        assertEquals("Release 1.0.0", release.getName());
+        assertNull(GitHubUtils.findReleaseByTag(repository, "2.0.0", logger));
+        assertNull(GitHubUtils.findReleaseByTag(repository, "3.0.0", logger));
+    }
+
+    @DisplayName("Test GitHubUtils.findReleaseByTag() with an empty tag")
+    @Test
+    public void findReleaseByTag_WithEmptyTag_ThrowsMojoExecutionException() {
+        Exception ex = assertThrows(MojoExecutionException.class, () ->
+            GitHubUtils.findReleaseByTag(repository, "", logger)
+        );
+
+        assertEquals("findReleaseByTag() requires the tag name to not be empty", ex.getMessage());
+    }
+
+    @DisplayName("Test GitHubUtils.findReleaseByName() finds published and draft releases")
+    @Test
+    public void findReleaseByName_WithPublishedAndDraftReleases_FindsBoth() throws Exception {
+        GHRelease published = GitHubUtils.findReleaseByName(repository, "Release 0.9.0", logger);
+        GHRelease draft = GitHubUtils.findReleaseByName(repository, "Release 2.0.0", logger);
+
+        assertEquals("0.9.0", published.getTagName());
+        assertEquals("2.0.0", draft.getTagName());
+        assertNull(GitHubUtils.findReleaseByName(repository, "Release 3.0.0", logger));
+    }
+
+    @DisplayName("Test GitHubUtils.findRelease() only searches by name when the tag lookup misses")
+    @Test
+    public void findRelease_WithReleaseForTag_DoesNotSearchByName() throws Exception {
+        GHRelease release = GitHubUtils.findRelease(repository, "1.0.0", "Release 1.0.0", true, logger);
+
+        assertEquals("Release 1.0.0", release.getName());
+        assertEquals(1, server.getRequestCount("GET release by tag"));
+        assertEquals(0, server.getRequestCount("GET releases"));
+    }
+
+    @DisplayName("Test GitHubUtils.findRelease() finds a draft release only when searching by name")
+    @Test
+    public void findRelease_WithDraftRelease_RequiresNameSearch() throws Exception {
+        assertNull(GitHubUtils.findRelease(repository, "2.0.0", "Release 2.0.0", false, logger));
+
+        GHRelease release = GitHubUtils.findRelease(repository, "2.0.0", "Release 2.0.0", true, logger);
+
+        assertEquals("2.0.0", release.getTagName());
+        assertTrue(release.isDraft());
+        assertEquals(1, server.getRequestCount("GET releases"));
+    }
+
+    @DisplayName("Test GitHubUtils.checkReleaseName() refuses to change a release found by tag with another name")
+    @Test
+    public void checkReleaseName_WithNameMismatch_RequiresOptIn() throws Exception {
+        GHRelease release = GitHubUtils.findRelease(repository, "1.0.0", "Release One", false, logger);
+
+        Exception ex = assertThrows(MojoExecutionException.class, () ->
+            GitHubUtils.checkReleaseName(release, "Release One", "delete", false)
+        );
+
+        assertEquals("Refusing to delete release Release 1.0.0 for tag 1.0.0 since its name does not match the " +
+            "specified name Release One; set allowReleaseNameMismatch to true to delete it anyway", ex.getMessage());
+        assertDoesNotThrow(() -> GitHubUtils.checkReleaseName(release, "Release One", "delete", true));
+        assertDoesNotThrow(() -> GitHubUtils.checkReleaseName(release, "Release 1.0.0", "update", false));
+    }
+}
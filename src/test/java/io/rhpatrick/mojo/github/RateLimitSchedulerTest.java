@@ -0,0 +1,136 @@
+/*
+ * RateLimitSchedulerTest.java - This file contains unit tests for the RateLimitScheduler class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimitSchedulerTest {
+
+    @DisplayName("Test RateLimitScheduler halves concurrency on secondary rate limits")
+    @Test
+    public void onSecondaryRateLimit_WithRetryAfter_HalvesConcurrencyAndReturnsWait() {
+        RateLimitScheduler scheduler = new RateLimitScheduler(8, new SystemStreamLog());
+
+        long waitMillis = scheduler.onSecondaryRateLimit(headers(RateLimitScheduler.RETRY_AFTER_HEADER, "0"));
+
+        assertEquals(0L, waitMillis);
+        assertEquals(4, scheduler.getConcurrencyLimit());
+        scheduler.onSecondaryRateLimit(headers(RateLimitScheduler.RETRY_AFTER_HEADER, "0"));
+        scheduler.onSecondaryRateLimit(headers(RateLimitScheduler.RETRY_AFTER_HEADER, "0"));
+        scheduler.onSecondaryRateLimit(headers(RateLimitScheduler.RETRY_AFTER_HEADER, "0"));
+        assertEquals(1, scheduler.getConcurrencyLimit());
+    }
+
+    @DisplayName("Test RateLimitScheduler additively increases concurrency after successful operations")
+    @Test
+    public void release_AfterSecondaryRateLimit_IncreasesConcurrencyToMaximum() throws Exception {
+        RateLimitScheduler scheduler = new RateLimitScheduler(4, new SystemStreamLog());
+        scheduler.onSecondaryRateLimit(headers(RateLimitScheduler.RETRY_AFTER_HEADER, "0"));
+        assertEquals(2, scheduler.getConcurrencyLimit());
+
+        // 2 -> 2.5 -> 2.9 -> 3.24
+        for (int i = 0; i < 3; i++) {
+            scheduler.acquire();
+            scheduler.release();
+        }
+        assertEquals(3, scheduler.getConcurrencyLimit());
+
+        for (int i = 0; i < 20; i++) {
+            scheduler.acquire();
+            scheduler.release();
+        }
+        assertEquals(4, scheduler.getConcurrencyLimit());
+    }
+
+    @DisplayName("Test RateLimitScheduler.raiseMaxConcurrency() only ever raises the maximum")
+    @Test
+    public void raiseMaxConcurrency_WithLargerAndSmallerValues_KeepsLargest() throws Exception {
+        RateLimitScheduler scheduler = new RateLimitScheduler(1, new SystemStreamLog());
+
+        scheduler.raiseMaxConcurrency(4);
+        scheduler.raiseMaxConcurrency(2);
+
+        assertEquals(4, scheduler.getConcurrencyLimit());
+        scheduler.onSecondaryRateLimit(headers(RateLimitScheduler.RETRY_AFTER_HEADER, "0"));
+        scheduler.raiseMaxConcurrency(8);
+        // A reduced limit climbs back toward the new maximum one operation at a time
+        assertEquals(2, scheduler.getConcurrencyLimit());
+        for (int i = 0; i < 100; i++) {
+            scheduler.acquire();
+            scheduler.release();
+        }
+        assertEquals(8, scheduler.getConcurrencyLimit());
+    }
+
+    @DisplayName("Test RateLimitScheduler.acquire() blocks at the concurrency limit")
+    @Test
+    public void acquire_AtConcurrencyLimit_BlocksUntilRelease() throws Exception {
+        RateLimitScheduler scheduler = new RateLimitScheduler(1, new SystemStreamLog());
+        scheduler.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+
+        Thread waiter = new Thread(() -> {
+            try {
+                scheduler.acquire();
+                acquired.countDown();
+                scheduler.release();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        waiter.start();
+
+        assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+        scheduler.release();
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        waiter.join();
+    }
+
+    @DisplayName("Test RateLimitScheduler only counts non-304 responses against the rate limit")
+    @Test
+    public void onResponse_WithConditionalResponse_DoesNotCountAgainstRateLimit() {
+        RateLimitScheduler scheduler = new RateLimitScheduler(1, new SystemStreamLog());
+        Map<String, String> headers = new HashMap<>();
+        headers.put(RateLimitScheduler.REMAINING_HEADER, "4999");
+        headers.put(RateLimitScheduler.LIMIT_HEADER, "5000");
+
+        scheduler.onResponse(200, headers::get);
+        scheduler.onResponse(304, headers::get);
+        scheduler.onResponse(201, headers::get);
+
+        assertEquals(2, scheduler.getCountedRequestCount());
+    }
+
+    private static Function<String, String> headers(String name, String value) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put(name, value);
+        return headers::get;
+    }
+}
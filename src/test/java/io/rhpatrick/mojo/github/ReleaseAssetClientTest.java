@@ -0,0 +1,290 @@
+/*
+ * ReleaseAssetClientTest.java - This file contains unit tests for the ReleaseAssetClient class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kohsuke.github.GHAsset;
+import org.kohsuke.github.GHRelease;
+import org.kohsuke.github.GitHub;
+import org.kohsuke.github.GitHubBuilder;
+import org.kohsuke.github.HttpException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReleaseAssetClientTest {
+    private static final long LARGE_ASSET_SIZE = 256L * 1024 * 1024;
+    private static final long MAX_ALLOCATED_BYTES = 16L * 1024 * 1024;
+
+    private static final String MANIFEST =
+        "5891b5b522d5df086d0ff0b110fbd9d21bb4fc7163af34d08286a2e846f6be03  hello.txt\n";
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private final AtomicReference<String> contentLength = new AtomicReference<>();
+    private final AtomicReference<String> transferEncoding = new AtomicReference<>();
+    private final AtomicReference<String> assetName = new AtomicReference<>();
+    private final AtomicInteger uploadStatus = new AtomicInteger(201);
+    private final AtomicReference<String> retryAfterSeconds = new AtomicReference<>("1");
+
+    @TempDir
+    Path tempDirectory;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/repos/owner/repo/releases/tags/v1", exchange ->
+            respond(exchange, 200, "{\"id\":1,\"tag_name\":\"v1\",\"name\":\"v1\",\"upload_url\":\"" + baseUrl
+                + "/repos/owner/repo/releases/1/assets{?name,label}\"}"));
+        server.createContext("/repos/owner/repo/releases/1/assets", exchange -> {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                respond(exchange, 200, "[{\"id\":7,\"name\":\"SHA256SUMS\",\"url\":\"" + baseUrl
+                    + "/repos/owner/repo/releases/assets/7\"}]");
+                return;
+            }
+            contentLength.set(exchange.getRequestHeaders().getFirst("Content-Length"));
+            transferEncoding.set(exchange.getRequestHeaders().getFirst("Transfer-Encoding"));
+            assetName.set(exchange.getRequestURI().getQuery());
+            long count = 0;
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = exchange.getRequestBody()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    count += read;
+                }
+            }
+            receivedBytes.set(count);
+            if (uploadStatus.get() == 201) {
+                respond(exchange, 201, "{\"id\":42,\"name\":\"large.zip\",\"state\":\"uploaded\",\"size\":"
+                    + count + "}");
+            } else {
+                if (uploadStatus.get() == 429) {
+                    exchange.getResponseHeaders().add("Retry-After", retryAfterSeconds.get());
+                }
+                respond(exchange, uploadStatus.get(), "{\"message\":\"Server Error\"}");
+            }
+        });
+        server.createContext("/repos/owner/repo/releases/assets/7", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/storage/SHA256SUMS");
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.createContext("/storage/SHA256SUMS", exchange -> {
+            boolean authenticated = exchange.getRequestHeaders().containsKey("Authorization");
+            byte[] body = (authenticated ? "rejected" : MANIFEST).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(authenticated ? 400 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            exchange.close();
+        });
+        server.createContext("/repos/owner/repo", exchange ->
+            respond(exchange, 200, "{\"id\":1,\"name\":\"repo\",\"full_name\":\"owner/repo\"}"));
+        server.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @DisplayName("Test ReleaseAssetClient.uploadAsset() streams a large file without buffering it in memory")
+    @Test
+    public void uploadAsset_WithLargeFile_StreamsWithFixedLength() throws Exception {
+        File file = tempDirectory.resolve("large.zip").toFile();
+        try (RandomAccessFile sparseFile = new RandomAccessFile(file, "rw")) {
+            sparseFile.setLength(LARGE_ASSET_SIZE);
+        }
+        GitHub github = new GitHubBuilder().withEndpoint(baseUrl).build();
+        GHRelease release = github.getRepository("owner/repo").getReleaseByTagName("v1");
+        ReleaseAssetClient client = new ReleaseAssetClient(github, createHttpClient(), "token", null, null,
+            new SystemStreamLog());
+
+        // Warm up the connection and buffer so that only the large upload is measured
+        File smallFile = tempDirectory.resolve("small.zip").toFile();
+        try (RandomAccessFile sparseFile = new RandomAccessFile(smallFile, "rw")) {
+            sparseFile.setLength(1024);
+        }
+        client.uploadAsset(release, smallFile, "small.zip", "application/zip");
+
+        com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        GHAsset asset = client.uploadAsset(release, file, "large file.zip", "application/zip");
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertEquals(42, asset.getId());
+        assertEquals(LARGE_ASSET_SIZE, asset.getSize());
+        assertSame(release.getOwner(), asset.getOwner());
+        assertEquals(LARGE_ASSET_SIZE, receivedBytes.get());
+        assertEquals(String.valueOf(LARGE_ASSET_SIZE), contentLength.get());
+        assertNull(transferEncoding.get());
+        assertEquals("name=large file.zip", assetName.get());
+        assertTrue(allocated < MAX_ALLOCATED_BYTES,
+            "Uploading " + LARGE_ASSET_SIZE + " bytes allocated " + allocated + " bytes");
+    }
+
+    @DisplayName("Test ReleaseAssetClient.uploadAsset() reports server errors as retryable HttpExceptions")
+    @Test
+    public void uploadAsset_WithServerError_ThrowsRetryableHttpException() throws Exception {
+        File file = createSmallFile();
+        uploadStatus.set(502);
+        GitHub github = new GitHubBuilder().withEndpoint(baseUrl).build();
+        GHRelease release = github.getRepository("owner/repo").getReleaseByTagName("v1");
+        ApiRequestLog requestLog = new ApiRequestLog();
+        ReleaseAssetClient client = new ReleaseAssetClient(github, createHttpClient(), "token", null, requestLog,
+            new SystemStreamLog());
+
+        HttpException ex = assertThrows(HttpException.class,
+            () -> client.uploadAsset(release, file, "small.zip", "application/zip"));
+
+        assertEquals(502, ex.getResponseCode());
+        assertTrue(RetryPolicy.isRetryable(ex));
+        List<ApiRequestLog.ApiRequest> requests = requestLog.getRequestsSince(0);
+        assertEquals(1, requests.size());
+        assertEquals("POST /repos/{owner}/{repo}/releases/{id}/assets", requests.get(0).getEndpoint());
+        assertEquals(502, requests.get(0).getStatus());
+        assertEquals(1024, requests.get(0).getBytesSent());
+    }
+
+    @DisplayName("Test ReleaseAssetClient.uploadAsset() waits out a secondary rate limit before reporting it")
+    @Test
+    public void uploadAsset_WithSecondaryRateLimit_ThrowsWaitedOutException() throws Exception {
+        File file = createSmallFile();
+        uploadStatus.set(429);
+        GitHub github = new GitHubBuilder().withEndpoint(baseUrl).build();
+        GHRelease release = github.getRepository("owner/repo").getReleaseByTagName("v1");
+        RateLimitScheduler scheduler = new RateLimitScheduler(1, new SystemStreamLog());
+        ReleaseAssetClient client = new ReleaseAssetClient(github, createHttpClient(), "token", scheduler, null,
+            new SystemStreamLog());
+
+        long start = System.nanoTime();
+        HttpException ex = assertThrows(RetryPolicy.WaitedOutException.class,
+            () -> client.uploadAsset(release, file, "small.zip", "application/zip"));
+
+        assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(1));
+        assertEquals(429, ex.getResponseCode());
+        assertTrue(RetryPolicy.isRetryable(ex));
+    }
+
+    @DisplayName("Test ReleaseAssetClient.uploadAsset() fails with InterruptedIOException when interrupted waiting")
+    @Test
+    public void uploadAsset_InterruptedDuringSecondaryRateLimit_ThrowsInterruptedIOException() throws Exception {
+        File file = createSmallFile();
+        uploadStatus.set(429);
+        retryAfterSeconds.set("60");
+        GitHub github = new GitHubBuilder().withEndpoint(baseUrl).build();
+        GHRelease release = github.getRepository("owner/repo").getReleaseByTagName("v1");
+        RateLimitScheduler scheduler = new RateLimitScheduler(1, new SystemStreamLog());
+        ReleaseAssetClient client = new ReleaseAssetClient(github, createHttpClient(), "token", scheduler, null,
+            new SystemStreamLog());
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Thread uploader = new Thread(() -> {
+            try {
+                client.uploadAsset(release, file, "small.zip", "application/zip");
+            } catch (Throwable ex) {
+                failure.set(ex);
+            }
+            interrupted.set(Thread.currentThread().isInterrupted());
+        });
+        uploader.start();
+        // The uploader only sleeps once the rate limited response was received
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (uploader.getState() != Thread.State.TIMED_WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(10L);
+        }
+        uploader.interrupt();
+        uploader.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(uploader.isAlive());
+        assertTrue(failure.get() instanceof InterruptedIOException, String.valueOf(failure.get()));
+        assertTrue(failure.get().getCause() instanceof InterruptedException, String.valueOf(failure.get()));
+        assertFalse(RetryPolicy.isRetryable((InterruptedIOException) failure.get()));
+        assertTrue(interrupted.get());
+    }
+
+    @DisplayName("Test ReleaseAssetClient.downloadAsset() follows the storage redirect without the auth token")
+    @Test
+    public void downloadAsset_WithRedirect_DownloadsContentWithoutCredentials() throws Exception {
+        GitHub github = new GitHubBuilder().withEndpoint(baseUrl).build();
+        GHRelease release = github.getRepository("owner/repo").getReleaseByTagName("v1");
+        GHAsset asset = release.listAssets().toList().get(0);
+        ReleaseAssetClient client = new ReleaseAssetClient(github, createHttpClient(), "token", null, null,
+            new SystemStreamLog());
+
+        byte[] content = client.downloadAsset(asset);
+
+        assertEquals(MANIFEST, new String(content, StandardCharsets.UTF_8));
+    }
+
+    private static OkHttpClient createHttpClient() throws Exception {
+        return new GitHubConnectorFactory().createAssetHttpClient(new SystemStreamLog());
+    }
+
+    private File createSmallFile() throws IOException {
+        File file = tempDirectory.resolve("small.zip").toFile();
+        try (RandomAccessFile sparseFile = new RandomAccessFile(file, "rw")) {
+            sparseFile.setLength(1024);
+        }
+        return file;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        exchange.close();
+    }
+}
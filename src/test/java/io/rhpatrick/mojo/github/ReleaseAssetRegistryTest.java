@@ -0,0 +1,72 @@
+/*
+ * ReleaseAssetRegistryTest.java - This file contains unit tests for the ReleaseAssetRegistry class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.rhpatrick.mojo.github.ReleaseAssetRegistry.RegisteredAsset;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ReleaseAssetRegistryTest {
+    private static final RegisteredAsset CORE_ASSET = new RegisteredAsset(new File("core.zip"), 0);
+    private static final RegisteredAsset CLI_ASSET = new RegisteredAsset(new File("cli.zip"), 1);
+    private static final RegisteredAsset DOCS_ASSET = new RegisteredAsset(new File("docs.zip"), 0);
+
+    @DisplayName("Test ReleaseAssetRegistry.register() returns every asset to the last expected project")
+    @Test
+    public void register_ByLastExpectedProject_ReturnsAllAssets() {
+        ReleaseAssetRegistry registry = new ReleaseAssetRegistry();
+
+        assertNull(registry.register("core", Collections.singletonList(CORE_ASSET), 3));
+        assertNull(registry.register("parent", Collections.emptyList(), 3));
+        List<RegisteredAsset> result = registry.register("cli", Collections.singletonList(CLI_ASSET), 3);
+
+        assertEquals(Arrays.asList(CORE_ASSET, CLI_ASSET), result);
+        assertEquals(3, registry.getProjectCount());
+    }
+
+    @DisplayName("Test ReleaseAssetRegistry.register() merges several executions in the same project")
+    @Test
+    public void register_WithSeveralExecutionsInProject_MergesAssets() {
+        ReleaseAssetRegistry registry = new ReleaseAssetRegistry();
+
+        assertNull(registry.register("core", Collections.singletonList(CORE_ASSET), 2));
+        assertNull(registry.register("core", Collections.singletonList(DOCS_ASSET), 2));
+        List<RegisteredAsset> result = registry.register("cli", Collections.singletonList(CLI_ASSET), 2);
+
+        assertEquals(Arrays.asList(CORE_ASSET, DOCS_ASSET, CLI_ASSET), result);
+    }
+
+    @DisplayName("Test ReleaseAssetRegistry.register() returns only the project's assets after publishing")
+    @Test
+    public void register_AfterPublishing_ReturnsOwnAssets() {
+        ReleaseAssetRegistry registry = new ReleaseAssetRegistry();
+        registry.register("core", Collections.singletonList(CORE_ASSET), 1);
+
+        List<RegisteredAsset> result = registry.register("docs", Collections.singletonList(DOCS_ASSET), 1);
+
+        assertEquals(Collections.singletonList(DOCS_ASSET), result);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * ReleasePlanTest.java - This file contains unit tests for the ReleasePlan class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReleasePlanTest {
+    @DisplayName("Test ReleasePlan.getEstimatedApiCalls() counts the uploads, deletes, and renames of each action")
+    @Test
+    public void getEstimatedApiCalls_MixedActions_ReturnsWriteCalls() {
+        ReleasePlan plan = new ReleasePlan("Release 1.0.0", ReleasePlan.ReleaseAction.UPDATE,
+            Collections.singletonList("name"));
+        plan.addAsset("new.zip", 100, ReleasePlan.AssetAction.UPLOAD, "new asset");
+        plan.addAsset("changed.zip", 200, ReleasePlan.AssetAction.REPLACE, "content changed");
+        plan.addAsset("swapped.zip", 300, ReleasePlan.AssetAction.SWAP, "content changed");
+        plan.addAsset("same.zip", 400, ReleasePlan.AssetAction.UNCHANGED, "same content as the existing asset");
+        plan.addAsset("kept.zip", 500, ReleasePlan.AssetAction.SKIP, "asset exists");
+
+        // 1 release update + 1 upload + (1 delete + 1 upload) + (1 upload + 2 renames + 1 delete)
+        assertEquals(8, plan.getEstimatedApiCalls());
+        assertEquals(600, plan.getUploadBytes());
+    }
+
+    @DisplayName("Test ReleasePlan.toMap() lists the assets by name whatever order they were added in")
+    @Test
+    public void toMap_AssetsAddedOutOfOrder_ListsAssetsByName() {
+        ReleasePlan plan = new ReleasePlan("Release 1.0.0", ReleasePlan.ReleaseAction.CREATE, null);
+        plan.addAsset("b.zip", 1, ReleasePlan.AssetAction.UPLOAD, "new asset");
+        plan.addAsset("a.zip", 1, ReleasePlan.AssetAction.UPLOAD, "new asset");
+
+        Map<String, Object> map = plan.toMap();
+
+        assertEquals("create", map.get("releaseAction"));
+        List<?> assets = (List<?>) map.get("assets");
+        assertEquals("a.zip", ((Map<?, ?>) assets.get(0)).get("name"));
+        assertEquals("b.zip", ((Map<?, ?>) assets.get(1)).get("name"));
+    }
+}
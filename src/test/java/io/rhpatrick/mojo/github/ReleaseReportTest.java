@@ -0,0 +1,110 @@
+/*
+ * ReleaseReportTest.java - This file contains unit tests for the ReleaseReport and ApiRequestLog classes.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import io.rhpatrick.mojo.github.ApiRequestLog.ApiRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ReleaseReportTest {
+    @DisplayName("Test ApiRequestLog.getEndpoint() replaces the repository, tag, and IDs with placeholders")
+    @Test
+    public void getEndpoint_RequestPaths_ReturnsGroupedEndpoints() {
+        assertEquals("/user", ApiRequestLog.getEndpoint("/user"));
+        assertEquals("/repos/{owner}/{repo}", ApiRequestLog.getEndpoint("/repos/owner/repo"));
+        assertEquals("/repos/{owner}/{repo}/releases/tags/{tag}",
+                ApiRequestLog.getEndpoint("/repos/owner/repo/releases/tags/1.0.0"));
+        assertEquals("/repos/{owner}/{repo}/releases/{id}/assets",
+                ApiRequestLog.getEndpoint("/repos/owner/repo/releases/42/assets"));
+        assertEquals("/repos/{owner}/{repo}/releases/assets/{id}",
+                ApiRequestLog.getEndpoint("/repos/owner/1234/releases/assets/7"));
+    }
+
+    @DisplayName("Test ApiRequestLog.getRequestsSince() only returns the requests made after the mark")
+    @Test
+    public void getRequestsSince_Mark_ReturnsLaterRequests() {
+        ApiRequestLog requestLog = new ApiRequestLog();
+        requestLog.add(new ApiRequest("GET /user", 200, 1));
+        int mark = requestLog.mark();
+        requestLog.add(new ApiRequest("GET /repos/{owner}/{repo}", 404, 2));
+
+        List<ApiRequest> requests = requestLog.getRequestsSince(mark);
+
+        assertEquals(1, requests.size());
+        assertEquals("GET /repos/{owner}/{repo}", requests.get(0).getEndpoint());
+        assertEquals(404, requests.get(0).getStatus());
+    }
+
+    @DisplayName("Test ReleaseReport.getPercentile() uses the nearest rank")
+    @Test
+    public void getPercentile_SortedValues_ReturnsNearestRank() {
+        List<Long> values = Arrays.asList(10L, 20L, 30L, 40L, 50L, 60L, 70L, 80L, 90L, 100L);
+
+        assertEquals(50L, ReleaseReport.getPercentile(values, 50));
+        assertEquals(90L, ReleaseReport.getPercentile(values, 90));
+        assertEquals(100L, ReleaseReport.getPercentile(values, 99));
+        assertEquals(10L, ReleaseReport.getPercentile(values, 0));
+        assertEquals(0L, ReleaseReport.getPercentile(Collections.emptyList(), 50));
+    }
+
+    @DisplayName("Test ReleaseReport.toMap() includes failed operations, endpoint errors, and asset retries")
+    @Test
+    @SuppressWarnings("unchecked")
+    public void toMap_RecordedRun_ReturnsReport() {
+        ReleaseReport report = new ReleaseReport();
+        assertThrows(IOException.class, () -> report.time("delete asset", () -> {
+            throw new IOException("Not found");
+        }));
+        report.recordOperation("delete asset", TimeUnit.MILLISECONDS.toNanos(5), true);
+        report.recordAsset("asset.zip", 2048, ReleaseReport.UPLOADED, TimeUnit.SECONDS.toNanos(2), 1);
+        report.recordAsset("other.zip", 1024, ReleaseReport.SKIPPED, 0, 0);
+        report.setApiRequests(Arrays.asList(new ApiRequest("GET /user", 200, 1),
+                new ApiRequest("GET /user", 502, 1), new ApiRequest("GET /repos/{owner}/{repo}", -1, 1),
+                new ApiRequest("POST /repos/{owner}/{repo}/releases/{id}/assets", 201, 1, 2048)));
+        report.finish(true);
+
+        Map<String, Object> result = report.toMap("owner/repo", "1.0.0");
+
+        assertEquals("owner/repo", result.get("repository"));
+        assertEquals(true, result.get("success"));
+        Map<String, Object> operation = ((List<Map<String, Object>>) result.get("operations")).get(0);
+        assertEquals("delete asset", operation.get("name"));
+        assertEquals(2, operation.get("count"));
+        assertEquals(1, operation.get("failures"));
+        List<Map<String, Object>> endpoints = (List<Map<String, Object>>) result.get("apiRequests");
+        assertEquals(3, endpoints.size());
+        assertEquals(1, endpoints.get(0).get("errors"));
+        assertEquals(1, endpoints.get(1).get("errors"));
+        assertEquals(2048L, endpoints.get(2).get("bytesSent"));
+        List<Map<String, Object>> assets = (List<Map<String, Object>>) result.get("assets");
+        assertEquals(1, assets.get(0).get("retries"));
+        assertEquals(1024L, assets.get(0).get("bytesPerSecond"));
+        assertEquals(ReleaseReport.SKIPPED, assets.get(1).get("outcome"));
+        assertEquals(1, ((Map<String, Object>) result.get("uploads")).get("count"));
+    }
+}
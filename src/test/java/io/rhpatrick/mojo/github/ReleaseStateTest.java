@@ -0,0 +1,93 @@
+/*
+ * ReleaseStateTest.java - This file contains unit tests for the ReleaseState class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import io.rhpatrick.mojo.github.ReleaseState.AssetState;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ReleaseStateTest {
+    private static final String DIGEST = "ab12";
+
+    @TempDir
+    Path tempDirectory;
+
+    @DisplayName("Test ReleaseState.load() returns the saved release and assets")
+    @Test
+    public void load_SavedState_ReturnsSameState() throws Exception {
+        File asset = createFile("my asset=1.zip", "content");
+        File stateFile = tempDirectory.resolve("state/release.properties").toFile();
+        ReleaseState state = new ReleaseState("owner/repo", "1.0.0", 42, "SHA256SUMS");
+        state.put(asset.getName(), new AssetState(asset, DIGEST, 7));
+        state.save(stateFile);
+
+        ReleaseState loaded = ReleaseState.load(stateFile, new SystemStreamLog());
+
+        assertNotNull(loaded);
+        assertTrue(loaded.isFor("owner/repo", "1.0.0", 42, "SHA256SUMS"));
+        assertFalse(loaded.isFor("owner/repo", "1.0.0", 43, "SHA256SUMS"));
+        assertFalse(loaded.isFor("owner/repo", "1.0.0", 42, "SHA256SUMS,SHA512SUMS"));
+        AssetState assetState = loaded.get(asset.getName());
+        assertNotNull(assetState);
+        assertEquals(7, assetState.getAssetId());
+        assertTrue(assetState.isUnmodified(asset));
+        assertNull(loaded.get("other.zip"));
+    }
+
+    @DisplayName("Test AssetState recognizes rewritten files with the same content")
+    @Test
+    public void isUnmodified_RewrittenFile_ReturnsFalseButHasSameContent() throws Exception {
+        File asset = createFile("asset.zip", "content");
+        AssetState assetState = new AssetState(asset, DIGEST, 7);
+
+        assertTrue(asset.setLastModified(asset.lastModified() - 10000));
+
+        assertFalse(assetState.isUnmodified(asset));
+        assertTrue(assetState.hasSameContent(asset, DIGEST));
+        assertFalse(assetState.hasSameContent(asset, "cd34"));
+    }
+
+    @DisplayName("Test ReleaseState.load() returns null for a missing or corrupt file")
+    @Test
+    public void load_MissingOrCorruptFile_ReturnsNull() throws Exception {
+        File corruptFile = createFile("corrupt.properties", "release.id=not-a-number\n");
+
+        assertNull(ReleaseState.load(tempDirectory.resolve("missing.properties").toFile(),
+                new SystemStreamLog()));
+        assertNull(ReleaseState.load(corruptFile, new SystemStreamLog()));
+    }
+
+    private File createFile(String name, String content) throws Exception {
+        Path path = tempDirectory.resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path.toFile();
+    }
+}
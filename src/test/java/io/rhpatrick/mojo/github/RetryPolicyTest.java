@@ -0,0 +1,137 @@
+/*
+ * RetryPolicyTest.java - This file contains unit tests for the RetryPolicy class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.HttpException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+    private static final String URL = "https://uploads.github.com/repos/owner/repo/releases/1/assets";
+
+    @DisplayName("Test RetryPolicy.execute() retries transient failures until the operation succeeds")
+    @Test
+    public void execute_WithTransientFailures_RetriesUntilSuccess() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, 1, new SystemStreamLog());
+        AtomicInteger attempts = new AtomicInteger();
+        AtomicInteger reconciliations = new AtomicInteger();
+
+        String actual = policy.execute("test", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new HttpException("Bad Gateway", 502, "Bad Gateway", URL);
+            }
+            return "uploaded";
+        }, failure -> {
+            reconciliations.incrementAndGet();
+            return null;
+        });
+
+        assertEquals("uploaded", actual);
+        assertEquals(3, attempts.get());
+        assertEquals(2, reconciliations.get());
+    }
+
+    @DisplayName("Test RetryPolicy.execute() retries failures that were already waited out without a delay")
+    @Test
+    public void execute_WithWaitedOutFailure_RetriesWithoutDelay() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, TimeUnit.MINUTES.toMillis(1), new SystemStreamLog());
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        String actual = policy.execute("test", () -> {
+            if (attempts.incrementAndGet() < 2) {
+                throw new RetryPolicy.WaitedOutException("Too Many Requests", 429, "Too Many Requests", URL);
+            }
+            return "uploaded";
+        }, null);
+
+        assertEquals("uploaded", actual);
+        assertEquals(2, attempts.get());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @DisplayName("Test RetryPolicy.execute() stops retrying when the reconciler finds the result")
+    @Test
+    public void execute_WhenReconcilerFindsResult_ReturnsResultWithoutRetrying() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, 1, new SystemStreamLog());
+        AtomicInteger attempts = new AtomicInteger();
+
+        String actual = policy.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new SocketTimeoutException("Read timed out");
+        }, failure -> "reconciled");
+
+        assertEquals("reconciled", actual);
+        assertEquals(1, attempts.get());
+    }
+
+    @DisplayName("Test RetryPolicy.execute() does not retry client errors")
+    @Test
+    public void execute_WithClientError_ThrowsWithoutRetrying() {
+        RetryPolicy policy = new RetryPolicy(3, 1, new SystemStreamLog());
+        AtomicInteger attempts = new AtomicInteger();
+        HttpException error = new HttpException("Validation Failed", 422, "Unprocessable Entity", URL);
+
+        IOException ex = assertThrows(IOException.class, () -> policy.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw error;
+        }, null));
+
+        assertSame(error, ex);
+        assertEquals(1, attempts.get());
+    }
+
+    @DisplayName("Test RetryPolicy.execute() gives up after the maximum number of retries")
+    @Test
+    public void execute_WithPersistentFailure_ThrowsAfterMaxRetries() {
+        RetryPolicy policy = new RetryPolicy(2, 1, new SystemStreamLog());
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(HttpException.class, () -> policy.execute("test", () -> {
+            attempts.incrementAndGet();
+            throw new HttpException("Service Unavailable", 503, "Service Unavailable", URL);
+        }, null));
+
+        assertEquals(3, attempts.get());
+    }
+
+    @DisplayName("Test RetryPolicy delays grow exponentially with jitter")
+    @Test
+    public void getDelayMillis_ForSuccessiveRetries_GrowsExponentially() {
+        RetryPolicy policy = new RetryPolicy(10, 1000, new SystemStreamLog());
+
+        for (int retry = 1; retry <= 4; retry++) {
+            long ceiling = 1000L << (retry - 1);
+            long delay = policy.getDelayMillis(retry);
+            assertTrue(delay >= ceiling / 2 && delay <= ceiling,
+                "Delay " + delay + " for retry " + retry + " should be between " + ceiling / 2 + " and " + ceiling);
+        }
+        assertTrue(policy.getDelayMillis(20) <= 60000L);
+    }
+}
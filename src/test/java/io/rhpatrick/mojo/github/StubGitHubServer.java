@@ -0,0 +1,778 @@
+/*
+ * StubGitHubServer.java - This file contains a local stand-in for the GitHub REST API used by the plugin.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class is an embeddable stand-in for the parts of the GitHub REST API that the create-release goal uses:
+ * the user, repository, release, asset list, asset upload, and asset download endpoints of a single repository.
+ * It keeps the releases and assets in memory and counts every request and the bytes uploaded so that tests
+ * and benchmarks can check how many API calls a run costs.  Latency, upload bandwidth, and upload failures can
+ * be injected to emulate a slow or flaky connection.  Uploads and API calls are served by the same server,
+ * unlike GitHub where uploads go to uploads.github.com.
+ */
+public final class StubGitHubServer implements AutoCloseable {
+    public static final String REPOSITORY_ID = "owner/repo";
+    public static final String AUTH_TOKEN = "stub-token";
+
+    // Larger assets are only counted, not kept, so that benchmarks can upload gigabytes
+    private static final int MAX_STORED_ASSET_SIZE = 1024 * 1024;
+    private static final String TIMESTAMP = "2021-01-01T00:00:00Z";
+    private static final String REPOSITORY_PATH = "/repos/" + REPOSITORY_ID;
+    private static final Pattern RELEASE_BY_TAG = Pattern.compile(REPOSITORY_PATH + "/releases/tags/(.+)");
+    private static final Pattern RELEASE = Pattern.compile(REPOSITORY_PATH + "/releases/(\\d+)");
+    private static final Pattern RELEASE_ASSETS = Pattern.compile(REPOSITORY_PATH + "/releases/(\\d+)/assets");
+    private static final Pattern ASSET = Pattern.compile(REPOSITORY_PATH + "/releases/assets/(\\d+)");
+    private static final Pattern STORAGE = Pattern.compile("/storage/(\\d+)");
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final Map<Long, Release> releases = new TreeMap<>();
+    private final Map<Long, Asset> assets = new TreeMap<>();
+
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    private volatile long latencyMillis;
+    private volatile long uploadBandwidth;
+    private volatile double uploadFailureRate;
+    private final Random random = new Random(42);
+
+    /**
+     * Start the server on an ephemeral port of the loopback interface.
+     *
+     * @throws IOException if the server could not be started
+     */
+    public StubGitHubServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        // Concurrent uploads need concurrent handlers
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "stub-github");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Get the URL of the stand-in API, which is what the apiUrl parameter of the goal should be set to.
+     *
+     * @return the API URL
+     */
+    public String getApiUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Delay every response by the specified time to emulate the round trip to GitHub.
+     *
+     * @param latencyMillis the latency in milliseconds
+     */
+    public void setLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * Limit the rate at which each upload is received.
+     *
+     * @param bytesPerSecond the bandwidth of each upload, or zero for no limit
+     */
+    public void setUploadBandwidth(long bytesPerSecond) {
+        this.uploadBandwidth = bytesPerSecond;
+    }
+
+    /**
+     * Fail the specified fraction of uploads with a 502 response once the upload body was received.  The
+     * failures are pseudo-random but repeatable.
+     *
+     * @param failureRate the fraction of uploads to fail, between 0 and 1
+     */
+    public void setUploadFailureRate(double failureRate) {
+        this.uploadFailureRate = failureRate;
+    }
+
+    /**
+     * Create a published release.
+     *
+     * @param tag  the tag name
+     * @param name the release name
+     * @return the release ID
+     */
+    public long addRelease(String tag, String name) {
+        return addRelease(tag, name, false);
+    }
+
+    /**
+     * Create a release.
+     *
+     * @param tag   the tag name
+     * @param name  the release name
+     * @param draft whether the release is a draft, which the tag lookup does not return
+     * @return the release ID
+     */
+    public synchronized long addRelease(String tag, String name, boolean draft) {
+        Release release = new Release(nextId.getAndIncrement(), tag, name);
+        release.draft = draft;
+        releases.put(release.id, release);
+        return release.id;
+    }
+
+    /**
+     * Add an asset to a release.
+     *
+     * @param releaseId the release ID
+     * @param name      the asset name
+     * @param content   the asset content
+     * @return the asset ID
+     */
+    public synchronized long addAsset(long releaseId, String name, byte[] content) {
+        Asset asset = new Asset(nextId.getAndIncrement(), releaseId, name, "application/octet-stream",
+                content.length, content);
+        assets.put(asset.id, asset);
+        return asset.id;
+    }
+
+    /**
+     * Get the ID of the release for the tag.
+     *
+     * @param tag the tag name
+     * @return the release ID, or -1 if there is no such release
+     */
+    public synchronized long getReleaseId(String tag) {
+        for (Release release : releases.values()) {
+            if (release.tag.equals(tag)) {
+                return release.id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the name of a release.
+     *
+     * @param releaseId the release ID
+     * @return the release name, or null if there is no such release
+     */
+    public synchronized String getReleaseName(long releaseId) {
+        Release release = releases.get(releaseId);
+        return release == null ? null : release.name;
+    }
+
+    /**
+     * Get the names of a release's assets.
+     *
+     * @param releaseId the release ID
+     * @return the asset names, in the order they were created
+     */
+    public synchronized List<String> getAssetNames(long releaseId) {
+        List<String> result = new ArrayList<>();
+        for (Asset asset : assets.values()) {
+            if (asset.releaseId == releaseId) {
+                result.add(asset.name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get the content of a release asset that is small enough to be kept.
+     *
+     * @param releaseId the release ID
+     * @param name      the asset name
+     * @return the content, or null if there is no such asset or its content was not kept
+     */
+    public synchronized byte[] getAssetContent(long releaseId, String name) {
+        for (Asset asset : assets.values()) {
+            if (asset.releaseId == releaseId && asset.name.equals(name)) {
+                return asset.content;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the total number of requests received.
+     *
+     * @return the request count
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Get the number of requests received of one kind, such as "POST asset" for uploads or "DELETE asset".
+     *
+     * @param kind the HTTP method and the resource name
+     * @return the request count
+     */
+    public int getRequestCount(String kind) {
+        AtomicInteger count = requestCounts.get(kind);
+        return count == null ? 0 : count.get();
+    }
+
+    /**
+     * Get the number of requests received of each kind.
+     *
+     * @return the request counts keyed by kind
+     */
+    public Map<String, Integer> getRequestCounts() {
+        Map<String, Integer> result = new TreeMap<>();
+        for (Map.Entry<String, AtomicInteger> count : requestCounts.entrySet()) {
+            result.put(count.getKey(), count.getValue().get());
+        }
+        return result;
+    }
+
+    /**
+     * Get the total number of asset bytes received by uploads, including failed uploads.
+     *
+     * @return the uploaded bytes
+     */
+    public long getUploadedBytes() {
+        return uploadedBytes.get();
+    }
+
+    /**
+     * Reset the request counts and uploaded bytes, usually before the part of a test that is measured.
+     */
+    public void resetStatistics() {
+        requestCount.set(0);
+        requestCounts.clear();
+        uploadedBytes.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Create a create-release goal configured with the goal's default parameter values and aimed at this
+     * server's repository.  The goal reads the auth token from the github.auth.token system property, which
+     * the caller must set to any value (e.g., AUTH_TOKEN) while running it.
+     *
+     * @param tag the tag name of the release
+     * @return the goal
+     * @throws ReflectiveOperationException if a parameter could not be set
+     */
+    public CreateReleaseMojo createReleaseMojo(String tag) throws ReflectiveOperationException {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("serverId", "github");
+        parameters.put("apiUrl", baseUrl);
+        parameters.put("repositoryId", REPOSITORY_ID);
+        parameters.put("name", "Release " + tag);
+        parameters.put("tag", tag);
+        parameters.put("preRelease", false);
+        parameters.put("digestManifestName", "SHA256SUMS");
+        parameters.put("excludePreReleases", true);
+        parameters.put("uploadThreads", 1);
+        parameters.put("maxPendingUploadSize", 1024L);
+        parameters.put("uploadOrder", AssetPipeline.SchedulingPolicy.LARGEST_FIRST);
+        parameters.put("uploadRetries", 3);
+        parameters.put("uploadRetryDelay", 1000L);
+        parameters.put("progressInterval", 10L);
+        parameters.put("connector", GitHubConnectorFactory.ConnectorType.DEFAULT);
+        parameters.put("connectionPoolSize", 5);
+        parameters.put("connectionKeepAlive", 300L);
+        parameters.put("connectTimeout", 10L);
+        parameters.put("readTimeout", 60L);
+
+        CreateReleaseMojo mojo = new CreateReleaseMojo();
+        for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+            setParameter(mojo, parameter.getKey(), parameter.getValue());
+        }
+        return mojo;
+    }
+
+    /**
+     * Set a parameter of a goal the way Maven does, by setting its field.
+     *
+     * @param mojo  the goal
+     * @param name  the parameter name
+     * @param value the parameter value
+     * @throws ReflectiveOperationException if there is no such parameter
+     */
+    public static void setParameter(Object mojo, String name, Object value) throws ReflectiveOperationException {
+        Field field = mojo.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            requestCount.incrementAndGet();
+            if (latencyMillis > 0) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            route(exchange);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, message("Server is shutting down"));
+        } catch (RuntimeException ex) {
+            respond(exchange, 500, message(ex.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, InterruptedException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        // HttpURLConnection cannot send PATCH so the GitHub API for Java sends a POST with this header instead
+        String methodOverride = exchange.getRequestHeaders().getFirst("X-HTTP-Method-Override");
+        if ("POST".equals(method) && methodOverride != null) {
+            method = methodOverride.toUpperCase();
+        }
+
+        Matcher matcher;
+        if (path.equals("/user")) {
+            // The GitHub API for Java looks up the login of the token's user
+            count(method, "user");
+            respond(exchange, 200, "{\"login\":\"owner\",\"id\":1,\"type\":\"User\"}");
+        } else if (path.equals(REPOSITORY_PATH)) {
+            count(method, "repository");
+            respond(exchange, 200, repositoryJson());
+        } else if (path.equals(REPOSITORY_PATH + "/releases")) {
+            count(method, "releases");
+            if ("POST".equals(method)) {
+                respond(exchange, 201, createRelease(readJson(exchange)));
+            } else {
+                respond(exchange, 200, listReleases());
+            }
+        } else if ((matcher = RELEASE_BY_TAG.matcher(path)).matches()) {
+            count(method, "release by tag");
+            Release release = findPublishedRelease(matcher.group(1));
+            respondWithRelease(exchange, release);
+        } else if ((matcher = RELEASE.matcher(path)).matches()) {
+            count(method, "release");
+            long releaseId = Long.parseLong(matcher.group(1));
+            if ("DELETE".equals(method)) {
+                discardBody(exchange);
+                respond(exchange, deleteRelease(releaseId) ? 204 : 404, null);
+            } else if ("PATCH".equals(method)) {
+                respondWithRelease(exchange, updateRelease(releaseId, readJson(exchange)));
+            } else {
+                respondWithRelease(exchange, getRelease(releaseId));
+            }
+        } else if ((matcher = RELEASE_ASSETS.matcher(path)).matches()) {
+            long releaseId = Long.parseLong(matcher.group(1));
+            if ("POST".equals(method)) {
+                count(method, "asset");
+                uploadAsset(exchange, releaseId);
+            } else {
+                count(method, "assets");
+                respond(exchange, 200, listAssets(releaseId));
+            }
+        } else if ((matcher = ASSET.matcher(path)).matches()) {
+            count(method, "asset");
+            long assetId = Long.parseLong(matcher.group(1));
+            if ("DELETE".equals(method)) {
+                discardBody(exchange);
+                respond(exchange, deleteAsset(assetId) ? 204 : 404, null);
+            } else if ("PATCH".equals(method)) {
+                respondWithAsset(exchange, updateAsset(assetId, readJson(exchange)));
+            } else if ("application/octet-stream".equals(exchange.getRequestHeaders().getFirst("Accept"))) {
+                // Like GitHub, redirect downloads to the storage service
+                exchange.getResponseHeaders().add("Location", baseUrl + "/storage/" + assetId);
+                respond(exchange, 302, null);
+            } else {
+                respondWithAsset(exchange, getAsset(assetId));
+            }
+        } else if ((matcher = STORAGE.matcher(path)).matches()) {
+            count(method, "storage");
+            Asset asset = getAsset(Long.parseLong(matcher.group(1)));
+            if (asset == null || asset.content == null) {
+                respond(exchange, 404, null);
+            } else {
+                exchange.sendResponseHeaders(200, asset.content.length == 0 ? -1 : asset.content.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(asset.content);
+                }
+            }
+        } else {
+            count(method, "unknown");
+            respond(exchange, 404, message("Not Found"));
+        }
+    }
+
+    private void uploadAsset(HttpExchange exchange, long releaseId) throws IOException, InterruptedException {
+        String name = getQueryParameter(exchange, "name");
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        ByteArrayOutputStream stored = new ByteArrayOutputStream();
+        long size = 0;
+        long start = System.nanoTime();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = exchange.getRequestBody()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                size += read;
+                uploadedBytes.addAndGet(read);
+                if (size <= MAX_STORED_ASSET_SIZE) {
+                    stored.write(buffer, 0, read);
+                }
+                long bandwidth = uploadBandwidth;
+                if (bandwidth > 0) {
+                    long dueNanos = start + TimeUnit.SECONDS.toNanos(size) / bandwidth - System.nanoTime();
+                    if (dueNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(dueNanos);
+                    }
+                }
+            }
+        }
+
+        boolean fail;
+        synchronized (random) {
+            fail = random.nextDouble() < uploadFailureRate;
+        }
+        if (fail) {
+            respond(exchange, 502, message("Server Error"));
+            return;
+        }
+
+        Asset asset;
+        synchronized (this) {
+            if (!releases.containsKey(releaseId)) {
+                asset = null;
+            } else if (findAsset(releaseId, name) != null) {
+                respond(exchange, 422, "{\"message\":\"Validation Failed\",\"errors\":[{\"resource\":" +
+                        "\"ReleaseAsset\",\"code\":\"already_exists\",\"field\":\"name\"}]}");
+                return;
+            } else {
+                asset = new Asset(nextId.getAndIncrement(), releaseId, name, contentType, size,
+                        size <= MAX_STORED_ASSET_SIZE ? stored.toByteArray() : null);
+                assets.put(asset.id, asset);
+            }
+        }
+        if (asset == null) {
+            respond(exchange, 404, message("Not Found"));
+        } else {
+            respond(exchange, 201, assetJson(asset));
+        }
+    }
+
+    private synchronized Release findPublishedRelease(String tag) {
+        for (Release release : releases.values()) {
+            // Like GitHub, the tag lookup does not return draft releases
+            if (release.tag.equals(tag) && !release.draft) {
+                return release;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Release getRelease(long releaseId) {
+        return releases.get(releaseId);
+    }
+
+    private synchronized String createRelease(JsonNode request) throws IOException {
+        Release release = new Release(nextId.getAndIncrement(), request.path("tag_name").asText(),
+                request.path("name").asText(null));
+        applyReleaseUpdate(release, request);
+        releases.put(release.id, release);
+        return releaseJson(release);
+    }
+
+    private synchronized Release updateRelease(long releaseId, JsonNode request) {
+        Release release = releases.get(releaseId);
+        if (release != null) {
+            if (request.has("tag_name")) {
+                release.tag = request.get("tag_name").asText();
+            }
+            if (request.has("name")) {
+                release.name = request.get("name").asText();
+            }
+            applyReleaseUpdate(release, request);
+        }
+        return release;
+    }
+
+    private static void applyReleaseUpdate(Release release, JsonNode request) {
+        if (request.has("body")) {
+            release.body = request.get("body").asText();
+        }
+        if (request.has("draft")) {
+            release.draft = request.get("draft").asBoolean();
+        }
+        if (request.has("prerelease")) {
+            release.prerelease = request.get("prerelease").asBoolean();
+        }
+        if (request.has("target_commitish")) {
+            release.commitish = request.get("target_commitish").asText();
+        }
+    }
+
+    private synchronized boolean deleteRelease(long releaseId) {
+        if (releases.remove(releaseId) == null) {
+            return false;
+        }
+        assets.values().removeIf(asset -> asset.releaseId == releaseId);
+        return true;
+    }
+
+    private synchronized String listReleases() throws IOException {
+        List<Object> result = new ArrayList<>();
+        for (Release release : releases.values()) {
+            result.add(releaseMap(release));
+        }
+        Collections.reverse(result);
+        return mapper.writeValueAsString(result);
+    }
+
+    private synchronized String listAssets(long releaseId) throws IOException {
+        List<Object> result = new ArrayList<>();
+        for (Asset asset : assets.values()) {
+            if (asset.releaseId == releaseId) {
+                result.add(assetMap(asset));
+            }
+        }
+        return mapper.writeValueAsString(result);
+    }
+
+    private synchronized Asset getAsset(long assetId) {
+        return assets.get(assetId);
+    }
+
+    private synchronized Asset findAsset(long releaseId, String name) {
+        for (Asset asset : assets.values()) {
+            if (asset.releaseId == releaseId && asset.name.equals(name)) {
+                return asset;
+            }
+        }
+        return null;
+    }
+
+    private synchronized Asset updateAsset(long assetId, JsonNode request) {
+        Asset asset = assets.get(assetId);
+        if (asset != null && request.has("name")) {
+            String name = request.get("name").asText();
+            Asset existing = findAsset(asset.releaseId, name);
+            if (existing != null && existing != asset) {
+                return null;
+            }
+            asset.name = name;
+        }
+        return asset;
+    }
+
+    private synchronized boolean deleteAsset(long assetId) {
+        return assets.remove(assetId) != null;
+    }
+
+    private void respondWithRelease(HttpExchange exchange, Release release) throws IOException {
+        if (release == null) {
+            respond(exchange, 404, message("Not Found"));
+        } else {
+            respond(exchange, 200, releaseJson(release));
+        }
+    }
+
+    private void respondWithAsset(HttpExchange exchange, Asset asset) throws IOException {
+        if (asset == null) {
+            respond(exchange, 404, message("Not Found"));
+        } else {
+            respond(exchange, 200, assetJson(asset));
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, String json) throws IOException {
+        exchange.getResponseHeaders().add("X-RateLimit-Limit", "5000");
+        exchange.getResponseHeaders().add("X-RateLimit-Remaining",
+                Integer.toString(Math.max(0, 5000 - requestCount.get())));
+        exchange.getResponseHeaders().add("X-RateLimit-Reset",
+                Long.toString(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 3600));
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private JsonNode readJson(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return mapper.readTree(in);
+        }
+    }
+
+    // The GitHub API for Java sends a body with DELETE requests, and a body that is left unread corrupts the
+    // next exchange on the kept-alive connection
+    private static void discardBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[1024];
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+        }
+    }
+
+    private void count(String method, String resource) {
+        requestCounts.computeIfAbsent(method + ' ' + resource, key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static String getQueryParameter(HttpExchange exchange, String name) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                int separator = parameter.indexOf('=');
+                if (separator > 0 && parameter.substring(0, separator).equals(name)) {
+                    return URLDecoder.decode(parameter.substring(separator + 1), "UTF-8");
+                }
+            }
+        }
+        return null;
+    }
+
+    private String message(String message) {
+        try {
+            return mapper.writeValueAsString(Collections.singletonMap("message", message));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String repositoryJson() throws IOException {
+        Map<String, Object> owner = new LinkedHashMap<>();
+        owner.put("login", "owner");
+        owner.put("id", 1);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", 1);
+        result.put("name", "repo");
+        result.put("full_name", REPOSITORY_ID);
+        result.put("owner", owner);
+        result.put("url", baseUrl + REPOSITORY_PATH);
+        return mapper.writeValueAsString(result);
+    }
+
+    private String releaseJson(Release release) throws IOException {
+        return mapper.writeValueAsString(releaseMap(release));
+    }
+
+    private Map<String, Object> releaseMap(Release release) {
+        String url = baseUrl + REPOSITORY_PATH + "/releases/" + release.id;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", release.id);
+        result.put("tag_name", release.tag);
+        result.put("name", release.name);
+        result.put("body", release.body);
+        result.put("draft", release.draft);
+        result.put("prerelease", release.prerelease);
+        result.put("target_commitish", release.commitish);
+        result.put("url", url);
+        result.put("html_url", baseUrl + "/" + REPOSITORY_ID + "/releases/tag/" + release.tag);
+        result.put("assets_url", url + "/assets");
+        result.put("upload_url", url + "/assets{?name,label}");
+        result.put("created_at", TIMESTAMP);
+        result.put("published_at", TIMESTAMP);
+        return result;
+    }
+
+    private String assetJson(Asset asset) throws IOException {
+        return mapper.writeValueAsString(assetMap(asset));
+    }
+
+    private Map<String, Object> assetMap(Asset asset) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("id", asset.id);
+        result.put("name", asset.name);
+        result.put("label", "");
+        result.put("state", "uploaded");
+        result.put("content_type", asset.contentType);
+        result.put("size", asset.size);
+        result.put("download_count", 0);
+        result.put("url", baseUrl + REPOSITORY_PATH + "/releases/assets/" + asset.id);
+        result.put("browser_download_url", baseUrl + "/storage/" + asset.id);
+        result.put("created_at", TIMESTAMP);
+        result.put("updated_at", TIMESTAMP);
+        return result;
+    }
+
+    private static final class Release {
+        private final long id;
+        private String tag;
+        private String name;
+        private String body;
+        private boolean draft;
+        private boolean prerelease;
+        private String commitish = "main";
+
+        private Release(long id, String tag, String name) {
+            this.id = id;
+            this.tag = tag;
+            this.name = name;
+        }
+    }
+
+    private static final class Asset {
+        private final long id;
+        private final long releaseId;
+        private String name;
+        private final String contentType;
+        private final long size;
+        private final byte[] content;
+
+        private Asset(long id, long releaseId, String name, String contentType, long size, byte[] content) {
+            this.id = id;
+            this.releaseId = releaseId;
+            this.name = name;
+            this.contentType = contentType;
+            this.size = size;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * UploadProgressTest.java - This file contains unit tests for the UploadProgress class.
+ *
+ * Copyright 2021 Robert Patrick <rhpatrick@gmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.rhpatrick.mojo.github;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UploadProgressTest {
+    private static final int MEGABYTE = 1024 * 1024;
+
+    @DisplayName("Test UploadProgress.formatEta() formats seconds, minutes, and hours")
+    @Test
+    public void formatEta_RemainingBytes_ReturnsEstimate() {
+        assertEquals("0s", UploadProgress.formatEta(0, 100));
+        assertEquals("unknown time", UploadProgress.formatEta(100, 0));
+        assertEquals("10s", UploadProgress.formatEta(1000, 100));
+        assertEquals("2m 05s", UploadProgress.formatEta(12500, 100));
+        assertEquals("1h 01m", UploadProgress.formatEta(366000, 100));
+    }
+
+    @DisplayName("Test UploadProgress.report() does not count the bytes of failed attempts as progress")
+    @Test
+    public void report_FailedAttempt_ReportsOnlySuccessfulBytes() throws Exception {
+        List<String> messages = new ArrayList<>();
+        try (UploadProgress progress = new UploadProgress(0, new MessageLog(messages))) {
+            progress.expect(4L * MEGABYTE);
+            progress.expect(2L * MEGABYTE);
+            progress.skip(2L * MEGABYTE);
+
+            UploadProgress.Transfer failed = progress.startTransfer();
+            failed.bytesTransferred(MEGABYTE);
+            failed.end(false);
+            UploadProgress.Transfer retry = progress.startTransfer();
+            retry.bytesTransferred(MEGABYTE);
+            progress.report();
+            retry.bytesTransferred(MEGABYTE);
+            retry.end(true);
+            progress.report();
+            // Nothing was sent since the previous report
+            progress.report();
+        }
+
+        assertEquals(2, messages.size(), messages.toString());
+        assertTrue(messages.get(0).startsWith("Uploaded 1.0 of 4.0 MB (25%) with 1 uploads in progress"),
+            messages.get(0));
+        assertTrue(messages.get(1).startsWith("Uploaded 2.0 of 4.0 MB (50%) with 0 uploads in progress"),
+            messages.get(1));
+    }
+
+    private static final class MessageLog extends SystemStreamLog {
+        private final List<String> messages;
+
+        private MessageLog(List<String> messages) {
+            this.messages = messages;
+        }
+
+        @Override
+        public void info(CharSequence content) {
+            messages.add(content.toString());
+        }
+    }
+}